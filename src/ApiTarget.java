@@ -0,0 +1,46 @@
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// A todo manager instance the suite talks to. Endpoint URIs are parsed once
+// per path and cached, so tests and load runs don't re-parse the same string.
+public final class ApiTarget {
+    private static final int MAX_CACHED_URIS = 4096;
+
+    private final String name;
+    private final String base;
+    private final Map<String, URI> uris = new ConcurrentHashMap<>();
+
+    public ApiTarget(String name, URI base) {
+        String text = base.toString();
+        this.name = name;
+        this.base = text.endsWith("/") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public URI baseUri() {
+        return uri("/");
+    }
+
+    // path is everything after the host, e.g. "/todos/3/categories?title=Home"
+    public URI uri(String path) {
+        URI uri = uris.get(path);
+        if (uri == null) {
+            if (uris.size() >= MAX_CACHED_URIS) {
+                // per-id paths keep arriving during long runs, so start over
+                uris.clear();
+            }
+            uri = URI.create(base + (path.startsWith("/") ? path : "/" + path));
+            uris.put(path, uri);
+        }
+        return uri;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + base + ")";
+    }
+}
@@ -0,0 +1,116 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Resolves which todo manager the suite runs against, in order:
+//   -Dapi.target=<name|url>, then $API_TARGET, then "default" in the config
+//   file, then http://localhost:4567.
+// Names come from api-targets.properties (working directory first, then the
+// classpath, or -Dapi.targets.file=<path>) as name=url lines. The name
+// "embedded" starts the in-process TodoManagerStub instead.
+public final class ApiTargets {
+    public static final String DEFAULT_URL = "http://localhost:4567";
+    public static final String EMBEDDED = "embedded";
+    public static final String CONFIG_FILE = "api-targets.properties";
+
+    private static final Map<String, ApiTarget> targets = new ConcurrentHashMap<>();
+    private static volatile ApiTarget current;
+    private static Properties config;
+
+    private ApiTargets() {
+    }
+
+    public static ApiTarget current() {
+        ApiTarget target = current;
+        if (target == null) {
+            synchronized (ApiTargets.class) {
+                if (current == null) {
+                    current = get(selected());
+                }
+                target = current;
+            }
+        }
+        return target;
+    }
+
+    // name from the config file, "embedded", or a literal base URL
+    public static ApiTarget get(String nameOrUrl) {
+        return targets.computeIfAbsent(nameOrUrl.trim(), ApiTargets::resolve);
+    }
+
+    // comma separated list of names/URLs, for fanning one run out to several instances
+    public static List<ApiTarget> list(String namesOrUrls) {
+        List<ApiTarget> list = new ArrayList<>();
+        for (String name : namesOrUrls.split(",")) {
+            if (!name.isBlank()) {
+                list.add(get(name));
+            }
+        }
+        return list;
+    }
+
+    private static String selected() {
+        String selected = System.getProperty("api.target");
+        if (selected == null || selected.isBlank()) {
+            selected = System.getenv("API_TARGET");
+        }
+        if (selected == null || selected.isBlank()) {
+            selected = config().getProperty("default", DEFAULT_URL);
+        }
+        return selected;
+    }
+
+    private static ApiTarget resolve(String nameOrUrl) {
+        if (nameOrUrl.equals(EMBEDDED)) {
+            try {
+                return new ApiTarget(EMBEDDED, TodoManagerStub.shared().baseUri());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start the embedded todo manager", e);
+            }
+        }
+        if (nameOrUrl.contains("://")) {
+            return new ApiTarget(nameOrUrl, URI.create(nameOrUrl));
+        }
+        String url = config().getProperty(nameOrUrl);
+        if (url == null) {
+            throw new IllegalArgumentException("Unknown target '" + nameOrUrl + "', expected a URL, '"
+                    + EMBEDDED + "' or a name from " + CONFIG_FILE);
+        }
+        if (url.trim().equals(EMBEDDED)) {
+            return resolve(EMBEDDED);
+        }
+        return new ApiTarget(nameOrUrl, URI.create(url.trim()));
+    }
+
+    private static synchronized Properties config() {
+        if (config == null) {
+            Properties properties = new Properties();
+            try {
+                Path file = Path.of(System.getProperty("api.targets.file", CONFIG_FILE));
+                if (Files.isReadable(file)) {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        properties.load(in);
+                    }
+                } else {
+                    try (InputStream in = ApiTargets.class.getResourceAsStream("/" + CONFIG_FILE)) {
+                        if (in != null) {
+                            properties.load(in);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read " + CONFIG_FILE, e);
+            }
+            config = properties;
+        }
+        return config;
+    }
+}
@@ -0,0 +1,136 @@
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Runs dependent request chains (create -> read id -> link) as
+// CompletableFuture pipelines on HttpTransport.sendAsync, so one caller thread
+// keeps hundreds of requests in flight.
+//
+// Each pipeline holds one permit from submit() until it completes, so at most
+// maxInFlight pipelines run at once; requests in flight are bounded by that
+// times the widest fan-out of a pipeline (2 for createTodoFixture). submit()
+// blocks while no permit is free, which is the backpressure on whoever is
+// producing work. Steps never wait for permits themselves, so
+// a full pipeline cannot deadlock the client's completion threads.
+//
+//   java AsyncPipeline --count 1000 --max-in-flight 200 [--target <name|url>]
+public final class AsyncPipeline {
+    private final ApiTarget target;
+    private final int maxInFlight;
+    private final Semaphore permits;
+
+    public AsyncPipeline(ApiTarget target, int maxInFlight) {
+        this.target = target;
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    public static void main(String[] args) throws Exception {
+        CliArgs options = CliArgs.parse(args);
+        ApiTarget target = options.has("target") ? ApiTargets.get(options.get("target", "")) : ApiTargets.current();
+        int count = options.getInt("count", 1000);
+        try {
+            AsyncPipeline pipeline = new AsyncPipeline(target, options.getInt("max-in-flight", 200));
+            long start = System.nanoTime();
+            List<CompletableFuture<String[]>> fixtures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                fixtures.add(pipeline.submit(pipeline::createTodoFixture));
+            }
+            long failed = 0;
+            for (CompletableFuture<String[]> fixture : fixtures) {
+                try {
+                    fixture.join();
+                } catch (CompletionException e) {
+                    failed++;
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("created %d todo fixtures (%d failed) in %.2fs, %.1f fixtures/s, %.1f req/s%n",
+                    count - failed, failed, seconds, (count - failed) / seconds, count * 4 / seconds);
+        } finally {
+            TodoManagerStub.stopShared();
+        }
+    }
+
+    // pipelines started but not finished yet
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    // Starts the pipeline once a permit is free and returns its result.
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> pipeline) throws InterruptedException {
+        permits.acquire();
+        CompletableFuture<T> result;
+        try {
+            result = pipeline.get();
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return result.whenComplete((value, failure) -> permits.release());
+    }
+
+    // waits until every submitted pipeline has finished, or the timeout passes
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!permits.tryAcquire(maxInFlight, timeout, unit)) {
+            return false;
+        }
+        permits.release(maxInFlight);
+        return true;
+    }
+
+    // TodosTest's fixture: a todo that is a task of project 1 and linked to a
+    // new category; the two links run concurrently. Yields {todoId, categoryId}.
+    public CompletableFuture<String[]> createTodoFixture() {
+        return create("/todos", RequestShapes.TODO).thenCompose(todoId -> {
+            CompletableFuture<String> task = link("/todos/" + todoId + "/tasksof", "1");
+            CompletableFuture<String> category = createCategoryLinkedTo(todoId);
+            return task.thenCombine(category, (ignored, categoryId) -> new String[]{todoId, categoryId});
+        });
+    }
+
+    // TodosTest.createCategory: create a category, then link it to the todo
+    public CompletableFuture<String> createCategoryLinkedTo(String todoId) {
+        return create("/categories", RequestShapes.CATEGORY)
+                .thenCompose(categoryId -> link("/todos/" + todoId + "/categories", categoryId));
+    }
+
+    // POSTs the body and yields the new entity's id
+    public CompletableFuture<String> create(String path, String body) {
+        return send(post(path, body), 201).thenApply(response -> ResponseJson.idUnchecked(response.body()));
+    }
+
+    // POSTs {"id": id} to a relationship path and yields id
+    public CompletableFuture<String> link(String path, String id) {
+        return send(post(path, RequestShapes.link(id)), 201).thenApply(response -> id);
+    }
+
+    public CompletableFuture<Void> delete(String path) {
+        return send(HttpRequest.newBuilder().uri(target.uri(path)).DELETE().build(), 200).thenApply(response -> null);
+    }
+
+    // fails the stage when the status is not the expected one
+    public CompletableFuture<HttpResponse<String>> send(HttpRequest request, int expectedStatus) {
+        return HttpTransport.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (response.statusCode() != expectedStatus) {
+                throw new IllegalStateException(request.method() + " " + request.uri().getPath() + " returned "
+                        + response.statusCode() + ", expected " + expectedStatus);
+            }
+            return response;
+        });
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder()
+                .uri(target.uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
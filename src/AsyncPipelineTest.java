@@ -0,0 +1,89 @@
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// runs against a stub of its own so the in-flight bound can be observed exactly
+@Execution(ExecutionMode.SAME_THREAD)
+public class AsyncPipelineTest {
+    private static TodoManagerStub stub;
+    private static ApiTarget target;
+
+    @BeforeAll
+    public static void start() throws IOException {
+        stub = TodoManagerStub.start(0);
+        target = new ApiTarget("async", stub.baseUri());
+    }
+
+    @AfterAll
+    public static void stop() {
+        stub.close();
+    }
+
+    @Test
+    public void shouldLinkCategoryToTodo() throws IOException, InterruptedException {
+        AsyncPipeline pipeline = new AsyncPipeline(target, 4);
+        String[] ids = pipeline.submit(pipeline::createTodoFixture).join();
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(target.uri("/todos/" + ids[0] + "/categories"))
+                .GET().build();
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"id\":\"" + ids[1] + "\""));
+    }
+
+    @Test
+    public void shouldNeverExceedMaxInFlight() throws InterruptedException {
+        AsyncPipeline pipeline = new AsyncPipeline(target, 8);
+        // requests really outstanding: counted up when sent, down when the response is in
+        AtomicInteger outstanding = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<CompletableFuture<String>> created = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            created.add(pipeline.submit(() -> {
+                peak.accumulateAndGet(outstanding.incrementAndGet(), Math::max);
+                return pipeline.create("/categories", RequestShapes.CATEGORY)
+                        .whenComplete((id, failure) -> outstanding.decrementAndGet());
+            }));
+        }
+        assertTrue(pipeline.awaitIdle(30, TimeUnit.SECONDS));
+        assertEquals(0, outstanding.get());
+        assertTrue(peak.get() <= 8, "peak " + peak.get());
+        // requests did overlap, so it was the bound that held them back
+        assertTrue(peak.get() > 1, "peak " + peak.get());
+        for (CompletableFuture<String> id : created) {
+            assertFalse(id.join().isEmpty());
+        }
+    }
+
+    @Test
+    public void shouldFailStageOnUnexpectedStatus() throws InterruptedException {
+        AsyncPipeline pipeline = new AsyncPipeline(target, 1);
+        CompletableFuture<String> link = pipeline.submit(() -> pipeline.link("/todos/999999/categories", "1"));
+        CompletionException failure = assertThrows(CompletionException.class, link::join);
+        assertTrue(failure.getCause().getMessage().contains("404"));
+        assertTrue(pipeline.awaitIdle(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldReleasePermitWhenPipelineCannotStart() {
+        AsyncPipeline pipeline = new AsyncPipeline(new ApiTarget("broken", URI.create("http://localhost:1")), 1);
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(() -> {
+            throw new IllegalStateException("no");
+        }));
+        assertEquals(0, pipeline.inFlight());
+    }
+}
@@ -1,9 +1,6 @@
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.*;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 
@@ -12,48 +9,59 @@ import static org.junit.jupiter.api.Assertions.*;
 @TestMethodOrder(MethodOrderer.Random.class)
 
 public class CategoriesTest {
-    private HttpClient client;
-    public static String categoryId = "0";
+    private static ApiTarget target;
+    private static FixturePool<String> fixtures;
+    // per-instance, so concurrently running tests never see each other's fixtures
+    private String categoryId = "0";
 
 
+    @BeforeAll
+    public static void selectTarget() {
+        target = ApiTargets.current();
+        fixtures = FixturePool.start("categories", CategoriesTest::createCategoryAndGetId, CategoriesTest::deleteCategoryById);
+    }
+
+    @AfterAll
+    public static void closeFixtures() throws InterruptedException {
+        fixtures.close();
+    }
+
     @BeforeEach
     public void setup() throws IOException, InterruptedException {
-        client = HttpClient.newHttpClient();
-        categoryId = createCategoryAndGetId();
+        categoryId = fixtures.acquire();
 
     }
     @AfterEach
-    public void restore() throws IOException, InterruptedException {
-        deleteCategoryById(categoryId);
+    public void restore() {
+        fixtures.release(categoryId);
     }
 
+    // testDeleteCategory removes the fixture itself, so 404 is fine here
     private static void deleteCategoryById(String categoryId) throws IOException, InterruptedException {
-        String id = createCategoryAndGetId();
         HttpRequest deleteRequest = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories/" + id))
+                .uri(target.uri("/categories/" + categoryId))
                 .DELETE()
                 .build();
 
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<String> deleteResponse = client.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> deleteResponse = HttpTransport.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
 
-        assertEquals(200, deleteResponse.statusCode(), "Failed to delete project with id: " + categoryId);
+        assertTrue(deleteResponse.statusCode() == 200 || deleteResponse.statusCode() == 404,
+                "Failed to delete category with id: " + categoryId);
     }
 
     private static String createCategoryAndGetId() throws IOException, InterruptedException {
         String categoryRequestBody = "{ \"title\": \"Category Title\", \"description\": \"Category Description\" }";
         HttpRequest categoryRequest = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories"))
+                .uri(target.uri("/categories"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(categoryRequestBody))
                 .build();
 
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<String> categoryResponse = client.send(categoryRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> categoryResponse = HttpTransport.send(categoryRequest, HttpResponse.BodyHandlers.ofString());
         assertEquals(201, categoryResponse.statusCode());
 
         String responseBody = categoryResponse.body();
-        String id = new ObjectMapper().readTree(responseBody).get("id").asText();
+        String id = ResponseJson.id(responseBody);
 
         return id;
     }
@@ -61,10 +69,10 @@ public class CategoriesTest {
     @Test
     public void shouldRedirectToMainPage() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567"))
+                .uri(target.uri("/"))
                 .GET().build();
 
-        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
         assertEquals(302, response.statusCode(), "Expected redirect from main page");
     }
 
@@ -72,10 +80,10 @@ public class CategoriesTest {
     @Test
     public void testCategories() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories"))
+                .uri(target.uri("/categories"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
     }
 
@@ -83,23 +91,25 @@ public class CategoriesTest {
     @Test
     public void testGetCategories() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories"))
+                .uri(target.uri("/categories"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<JsonArrayHandler.Summary> response =
+                HttpTransport.send(request, JsonArrayHandler.of("categories").require("id", "title"));
         assertEquals(200, response.statusCode());
-        System.out.println(response.body());
+        assertTrue(response.body().count() > 0);
+        assertTrue(response.body().valid(), response.body().violations().toString());
     }
 
     // status code 200 for Head of Categories
     @Test
     public void testHeadAllCategories() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories"))
+                .uri(target.uri("/categories"))
                 .method("HEAD", HttpRequest.BodyPublishers.noBody())
                 .build();
 
-        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
         assertEquals(200, response.statusCode());
     }
 
@@ -108,12 +118,12 @@ public class CategoriesTest {
     public void testCreateCategory() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"s anim id est laboruma i\", \"description\": \"in culpa qui officia\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories"))
+                .uri(target.uri("/categories"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(201, response.statusCode());
         System.out.println(response.body());
     }
@@ -123,12 +133,12 @@ public class CategoriesTest {
     public void testCreateCategoryWithEmptyTitle() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"\", \"description\": \"creation without a title\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories"))
+                .uri(target.uri("/categories"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
 
         assertEquals(400, response.statusCode());
         System.out.println(response.body());
@@ -140,12 +150,12 @@ public class CategoriesTest {
     public void testCreateCategoryWithID() throws IOException, InterruptedException {
         String requestBody = "{ \"description\": \"bad api\", \"id\": \"8\", \"title\": \"car vehicle\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories"))
+                .uri(target.uri("/categories"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
 
         assertEquals(400, response.statusCode());
         System.out.println(response.body());
@@ -156,10 +166,10 @@ public class CategoriesTest {
     @Test
     public void testGetCategoryById() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories/" + categoryId))
+                .uri(target.uri("/categories/" + categoryId))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -168,11 +178,11 @@ public class CategoriesTest {
     @Test
     public void testHeadCategoryById() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories/" + categoryId))
+                .uri(target.uri("/categories/" + categoryId))
                 .method("HEAD", HttpRequest.BodyPublishers.noBody())
                 .build();
 
-        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
         assertEquals(200, response.statusCode());
     }
 
@@ -180,10 +190,10 @@ public class CategoriesTest {
     @Test
     public void testGetCategoryWithNonExistentId() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories/-1"))
+                .uri(target.uri("/categories/-1"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response.statusCode());
         System.out.println(response.body());
     }
@@ -192,10 +202,10 @@ public class CategoriesTest {
     @Test
     public void testGetTodosForCategory() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories/1/todos"))
+                .uri(target.uri("/categories/" + categoryId + "/todos"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -204,10 +214,10 @@ public class CategoriesTest {
     @Test
     public void testGetProjectsForCategory() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories/1/projects"))
+                .uri(target.uri("/categories/" + categoryId + "/projects"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -217,12 +227,12 @@ public class CategoriesTest {
     public void testPostUpdateCategoryWithTitleOnly() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \" Couch \"}";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories/" + categoryId))
+                .uri(target.uri("/categories/" + categoryId))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody)) // Empty body
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -232,12 +242,12 @@ public class CategoriesTest {
     public void testUpdateCategoryWithEmptyTitle() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories/" + categoryId))
+                .uri(target.uri("/categories/" + categoryId))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(400, response.statusCode());
         System.out.println(response.body());
     }
@@ -247,12 +257,12 @@ public class CategoriesTest {
     public void UpdateCategoryWithNonExistentID() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \" Chocolate \" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories/-1"))
+                .uri(target.uri("/categories/-1"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(""))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response.statusCode());
         System.out.println(response.body());
     }
@@ -262,12 +272,12 @@ public class CategoriesTest {
     public void testPutUpdateCategoryTitleOnly() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \" Chocolate\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories/" + categoryId))
+                .uri(target.uri("/categories/" + categoryId))
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -277,12 +287,12 @@ public class CategoriesTest {
     public void testUpdateCategoryWithEmptyTitleField() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories/" + categoryId))
+                .uri(target.uri("/categories/" + categoryId))
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(400, response.statusCode());
         System.out.println(response.body());
     }
@@ -292,12 +302,12 @@ public class CategoriesTest {
     public void testUpdateNonExistentCategoryID() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"Title\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories/-1"))
+                .uri(target.uri("/categories/-1"))
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response.statusCode());
         System.out.println(response.body());
     }
@@ -306,11 +316,11 @@ public class CategoriesTest {
     @Test
     public void testDeleteCategory() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories/" + categoryId))
+                .uri(target.uri("/categories/" + categoryId))
                 .DELETE()
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -319,11 +329,11 @@ public class CategoriesTest {
     @Test
     public void testDeleteCategoryWithNonExistentID() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories/-1"))
+                .uri(target.uri("/categories/-1"))
                 .DELETE()
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response.statusCode());
         System.out.println(response.body());
     }
@@ -332,10 +342,10 @@ public class CategoriesTest {
     @Test
     public void testGetCategoriesByValidTitle() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories?title=Home"))
+                .uri(target.uri("/categories?title=Home"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -344,10 +354,10 @@ public class CategoriesTest {
     @Test
     public void testGetCategoriesByInvalidTitle() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories?title=NotExist"))
+                .uri(target.uri("/categories?title=NotExist"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertNotEquals(400, response.statusCode());
         System.out.println(response.body());
     }
@@ -356,10 +366,10 @@ public class CategoriesTest {
     @Test
     public void testGetCategoriesByInvalidTitleWorking() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories?title=NotExist"))
+                .uri(target.uri("/categories?title=NotExist"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -370,12 +380,12 @@ public class CategoriesTest {
         String malformedJson = "{ \"title\": \"Invalid Project, \"description\": \"This is malformed JSON\" }";
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories"))
+                .uri(target.uri("/categories"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(malformedJson))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(400, response.statusCode());
         System.out.println("Response body: " + response.body());
     }
@@ -386,14 +396,49 @@ public class CategoriesTest {
         String malformedXml = "<category><title>Invalid Project<description>This is malformed XML</description></category>";
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories"))
+                .uri(target.uri("/categories"))
                 .header("Content-Type", "application/xml")
                 .POST(HttpRequest.BodyPublishers.ofString(malformedXml))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(400, response.statusCode());
         System.out.println("Response body: " + response.body());
     }
-}
 
+    @Test
+    public void testCreateUpdateAndListCategoryAsXml() throws IOException, InterruptedException {
+        HttpRequest create = HttpRequest.newBuilder()
+                .uri(target.uri("/categories"))
+                .header("Content-Type", "application/xml")
+                .header("Accept", "application/xml")
+                .POST(HttpRequest.BodyPublishers.ofString(RequestShapes.CATEGORY_XML))
+                .build();
+        HttpResponse<String> created = HttpTransport.send(create, HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, created.statusCode());
+        assertTrue(created.headers().firstValue("Content-Type").orElse("").contains("xml"));
+        String id = ResponseXml.id(created.body());
+        assertNotNull(id);
+
+        HttpRequest update = HttpRequest.newBuilder()
+                .uri(target.uri("/categories/" + id))
+                .header("Content-Type", "application/xml")
+                .header("Accept", "application/xml")
+                .PUT(HttpRequest.BodyPublishers.ofString(RequestShapes.CATEGORY_UPDATE_XML))
+                .build();
+        HttpResponse<String> updated = HttpTransport.send(update, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, updated.statusCode());
+        assertEquals(" Chocolate", ResponseXml.field(updated.body(), "title"));
+
+        HttpRequest list = HttpRequest.newBuilder()
+                .uri(target.uri("/categories"))
+                .header("Accept", "application/xml")
+                .GET().build();
+        HttpResponse<String> listed = HttpTransport.send(list, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, listed.statusCode());
+        assertTrue(ResponseXml.count(listed.body()) > 0);
+
+        HttpRequest delete = HttpRequest.newBuilder().uri(target.uri("/categories/" + id)).DELETE().build();
+        assertEquals(200, HttpTransport.send(delete, HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+}
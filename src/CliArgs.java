@@ -0,0 +1,79 @@
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// `--name value` / `--flag` command-line options for the load and benchmark tools.
+public final class CliArgs {
+    private final Map<String, String> values = new LinkedHashMap<>();
+
+    private CliArgs() {
+    }
+
+    public static CliArgs parse(String[] args) {
+        CliArgs parsed = new CliArgs();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String name = args[i].substring(2);
+            int eq = name.indexOf('=');
+            if (eq >= 0) {
+                parsed.values.put(name.substring(0, eq), name.substring(eq + 1));
+            } else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                parsed.values.put(name, args[++i]);
+            } else {
+                parsed.values.put(name, "true");
+            }
+        }
+        return parsed;
+    }
+
+    public boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    public String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    public int getInt(String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    public long getLong(String name, long defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    public double getDouble(String name, double defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    public boolean getBoolean(String name) {
+        return Boolean.parseBoolean(values.getOrDefault(name, "false"));
+    }
+
+    // 500ms, 30s, 5m, 2h; a bare number is seconds
+    public Duration getDuration(String name, Duration defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : duration(value);
+    }
+
+    static Duration duration(String value) {
+        String text = value.trim().toLowerCase();
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        long amount = Long.parseLong(text.replaceAll("[a-z]+$", ""));
+        switch (text.isEmpty() ? ' ' : text.charAt(text.length() - 1)) {
+            case 'h':
+                return Duration.ofHours(amount);
+            case 'm':
+                return Duration.ofMinutes(amount);
+            default:
+                return Duration.ofSeconds(amount);
+        }
+    }
+}
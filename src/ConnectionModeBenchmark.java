@@ -0,0 +1,246 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Runs the same workload over three kinds of connection handling and
+// compares them, to show what the old client-per-call helpers measured:
+//
+//   churn      a new HttpClient per request, so a new connection every time
+//   keepalive  the shared HttpTransport client, connections pooled and reused
+//   http2      one HTTP/2 client; plain http means an h2c upgrade, and a
+//              server that ignores it keeps answering HTTP/1.1
+//
+//   java ConnectionModeBenchmark --users 4 --duration 20s --label thingifier-1.5.5
+//
+// Other options: --modes keepalive,http2,churn, --warmup 50 (cycles on the
+// shared client before the first mode), --out connection-modes.csv,
+// --target <name|url>.
+//
+// The workload is the TodosTest fixture cycle: create a todo, make it a task
+// of project 1, create a category and link it, read the todo back, then
+// delete the todo and the category. Per mode it reports throughput, request
+// latency percentiles, the protocol versions the responses came back with
+// and, for the embedded target, the connections the server accepted.
+//
+// Churn runs last by default: the JDK client cannot be closed, so the
+// connections of its discarded clients stay open on the server until they
+// are garbage collected, and the modes after it would run against a server
+// holding thousands of idle sockets. A GC between modes limits the overlap.
+public final class ConnectionModeBenchmark {
+    public enum Mode {
+        CHURN, KEEPALIVE, HTTP2
+    }
+
+    private final ApiTarget target;
+    private final RequestTemplate createTodo;
+    private final RequestTemplate linkTask;
+    private final RequestTemplate createCategory;
+    private final RequestTemplate linkCategory;
+    private final RequestTemplate getTodo;
+    private final RequestTemplate deleteTodo;
+    private final RequestTemplate deleteCategory;
+
+    public ConnectionModeBenchmark(ApiTarget target) {
+        this.target = target;
+        this.createTodo = RequestTemplate.of(target, "POST", "/todos", RequestShapes.TODO);
+        this.linkTask = RequestTemplate.of(target, "POST", "/todos/{id}/tasksof", RequestShapes.LINK);
+        this.createCategory = RequestTemplate.of(target, "POST", "/categories", RequestShapes.CATEGORY);
+        this.linkCategory = RequestTemplate.of(target, "POST", "/todos/{id}/categories", RequestShapes.LINK);
+        this.getTodo = RequestTemplate.of(target, "GET", "/todos/{id}", null);
+        this.deleteTodo = RequestTemplate.of(target, "DELETE", "/todos/{id}", null);
+        this.deleteCategory = RequestTemplate.of(target, "DELETE", "/categories/{id}", null);
+    }
+
+    public static void main(String[] args) throws Exception {
+        CliArgs options = CliArgs.parse(args);
+        ApiTarget target = options.has("target") ? ApiTargets.get(options.get("target", "")) : ApiTargets.current();
+        String label = options.get("label", target.name());
+        int users = options.getInt("users", 4);
+        Duration duration = options.getDuration("duration", Duration.ofSeconds(20));
+        ConnectionModeBenchmark benchmark = new ConnectionModeBenchmark(target);
+        try (CsvReport csv = new CsvReport(Paths.get(options.get("out", "connection-modes.csv")), "label", "mode",
+                "users", "seconds", "cycles", "requests", "errors", "req_per_s", "p50_ms", "p90_ms", "p99_ms",
+                "max_ms", "connections", "versions")) {
+            HttpClient shared = HttpTransport.client();
+            for (int i = 0; i < options.getInt("warmup", 50); i++) {
+                benchmark.cycle(() -> shared, new Result(Mode.KEEPALIVE));
+            }
+            System.out.printf("%-10s %7s %9s %7s %9s %9s %9s %9s %9s %12s  %s%n", "mode", "cycles", "requests",
+                    "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "connections", "versions");
+            for (String name : options.get("modes", "keepalive,http2,churn").split(",")) {
+                Result result = benchmark.run(Mode.valueOf(name.trim().toUpperCase()), users, duration);
+                result.print(System.out);
+                // lets discarded clients go, closing their connections before the next mode
+                System.gc();
+                Thread.sleep(1000);
+                LatencyHistogram latency = result.latency;
+                csv.row(label, result.mode, users, result.seconds, result.cycles.sum(), latency.count(),
+                        result.errors.sum(), latency.count() / result.seconds, latency.valueAtPercentile(50) / 1000.0,
+                        latency.valueAtPercentile(90) / 1000.0, latency.valueAtPercentile(99) / 1000.0,
+                        latency.maxMicros() / 1000.0, result.connections, result.versions());
+            }
+        } finally {
+            TodoManagerStub.stopShared();
+        }
+    }
+
+    public static final class Result {
+        final Mode mode;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder cycles = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final Map<HttpClient.Version, LongAdder> versions = new ConcurrentHashMap<>();
+        double seconds;
+        // accepted by the embedded server during the run, -1 for other targets
+        int connections = -1;
+
+        Result(Mode mode) {
+            this.mode = mode;
+        }
+
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        public long errors() {
+            return errors.sum();
+        }
+
+        public int connections() {
+            return connections;
+        }
+
+        // e.g. "HTTP_1_1=1400"
+        public String versions() {
+            Map<HttpClient.Version, Long> counts = new EnumMap<>(HttpClient.Version.class);
+            versions.forEach((version, count) -> counts.put(version, count.sum()));
+            StringBuilder text = new StringBuilder();
+            counts.forEach((version, count) -> text.append(text.length() == 0 ? "" : " ").append(version).append('=').append(count));
+            return text.toString();
+        }
+
+        void print(PrintStream out) {
+            out.printf("%-10s %7d %9d %7d %9.0f %9.2f %9.2f %9.2f %9.2f %12s  %s%n", mode, cycles.sum(), latency.count(),
+                    errors.sum(), latency.count() / seconds, latency.valueAtPercentile(50) / 1000.0,
+                    latency.valueAtPercentile(90) / 1000.0, latency.valueAtPercentile(99) / 1000.0,
+                    latency.maxMicros() / 1000.0, connections < 0 ? "n/a" : String.valueOf(connections), versions());
+        }
+    }
+
+    // users loop over the cycle until the duration is up
+    public Result run(Mode mode, int users, Duration duration) throws InterruptedException {
+        Result result = new Result(mode);
+        ClientSource clients = clients(mode);
+        TodoManagerStub stub = embedded();
+        int connectionsBefore = stub == null ? 0 : stub.connectionsAccepted();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(users, HttpTransport.daemonThreads("connection-user"));
+        CountDownLatch done = new CountDownLatch(users);
+        for (int u = 0; u < users; u++) {
+            executor.execute(() -> {
+                try {
+                    while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                        cycle(clients, result);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        executor.shutdownNow();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+        result.seconds = (System.nanoTime() - start) / 1e9;
+        if (stub != null) {
+            result.connections = stub.connectionsAccepted() - connectionsBefore;
+        }
+        return result;
+    }
+
+    // one fixture cycle; a failed step ends the cycle early
+    void cycle(ClientSource clients, Result result) throws InterruptedException {
+        String todoId = created(send(clients, createTodo.request(), 201, result));
+        if (todoId == null) {
+            return;
+        }
+        send(clients, linkTask.request(todoId, "1"), 201, result);
+        String categoryId = created(send(clients, createCategory.request(), 201, result));
+        if (categoryId != null) {
+            send(clients, linkCategory.request(todoId, categoryId), 201, result);
+        }
+        send(clients, getTodo.request(todoId), 200, result);
+        send(clients, deleteTodo.request(todoId), 200, result);
+        if (categoryId != null) {
+            send(clients, deleteCategory.request(categoryId), 200, result);
+        }
+        result.cycles.increment();
+    }
+
+    private static HttpResponse<String> send(ClientSource clients, HttpRequest request, int expectedStatus, Result result)
+            throws InterruptedException {
+        HttpClient client = clients.next();
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            result.latency.recordNanos(System.nanoTime() - start);
+            result.versions.computeIfAbsent(response.version(), v -> new LongAdder()).increment();
+            if (response.statusCode() != expectedStatus) {
+                result.errors.increment();
+                return null;
+            }
+            return response;
+        } catch (IOException e) {
+            result.latency.recordNanos(System.nanoTime() - start);
+            result.errors.increment();
+            return null;
+        }
+    }
+
+    private static String created(HttpResponse<String> response) {
+        return response == null ? null : ResponseJson.idUnchecked(response.body());
+    }
+
+    private ClientSource clients(Mode mode) {
+        switch (mode) {
+            case CHURN:
+                // nothing keeps the old clients, so their pools and selector threads go with the next GC
+                return () -> HttpTransport.newClient(HttpClient.Version.HTTP_1_1);
+            case HTTP2:
+                HttpClient http2 = HttpTransport.newClient(HttpClient.Version.HTTP_2);
+                return () -> http2;
+            default:
+                HttpClient shared = HttpTransport.client();
+                return () -> shared;
+        }
+    }
+
+    private TodoManagerStub embedded() {
+        if (!target.name().equals(ApiTargets.EMBEDDED)) {
+            return null;
+        }
+        try {
+            return TodoManagerStub.shared();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    interface ClientSource {
+        HttpClient next();
+    }
+}
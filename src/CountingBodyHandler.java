@@ -0,0 +1,58 @@
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+// BodyHandlers.ofString() that also counts the body bytes as they arrive, so
+// a response's size is what came over the wire rather than the length of the
+// decoded String (UTF-16 chars). One handler per request:
+//
+//   CountingBodyHandler body = new CountingBodyHandler();
+//   HttpResponse<String> response = HttpTransport.send(request, body);
+//   long bytes = body.bytes();
+public final class CountingBodyHandler implements HttpResponse.BodyHandler<String> {
+    private final AtomicLong bytes = new AtomicLong();
+
+    // body bytes received so far; all of them once the response is complete
+    public long bytes() {
+        return bytes.get();
+    }
+
+    @Override
+    public HttpResponse.BodySubscriber<String> apply(HttpResponse.ResponseInfo info) {
+        HttpResponse.BodySubscriber<String> delegate = HttpResponse.BodyHandlers.ofString().apply(info);
+        return new HttpResponse.BodySubscriber<>() {
+            @Override
+            public CompletionStage<String> getBody() {
+                return delegate.getBody();
+            }
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                delegate.onSubscribe(subscription);
+            }
+
+            @Override
+            public void onNext(List<ByteBuffer> items) {
+                long received = 0;
+                for (ByteBuffer item : items) {
+                    received += item.remaining();
+                }
+                bytes.addAndGet(received);
+                delegate.onNext(items);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                delegate.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                delegate.onComplete();
+            }
+        };
+    }
+}
@@ -0,0 +1,29 @@
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CountingBodyHandlerTest {
+
+    @Test
+    public void shouldCountEncodedBytesNotChars() throws IOException, InterruptedException {
+        try (TodoManagerStub stub = TodoManagerStub.start(0)) {
+            ApiTarget target = new ApiTarget("counting", stub.baseUri());
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(target.uri("/categories"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{ \"title\": \"caf\u00e9 \u00fcber\" }"))
+                    .build();
+            CountingBodyHandler body = new CountingBodyHandler();
+            HttpResponse<String> response = HttpTransport.send(request, body);
+            assertEquals(201, response.statusCode());
+            assertEquals(response.body().getBytes(StandardCharsets.UTF_8).length, body.bytes());
+            // two characters take two bytes each in UTF-8
+            assertEquals(response.body().length() + 2, body.bytes());
+        }
+    }
+}
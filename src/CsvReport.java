@@ -0,0 +1,76 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+
+// Appends benchmark results to a CSV file meant for plotting across runs and
+// releases. The header is written only when the file is new, and must match
+// when appending to an existing file, so rows from different runs line up.
+public final class CsvReport implements AutoCloseable {
+    private final List<String> columns;
+    private final BufferedWriter writer;
+
+    public CsvReport(Path file, String... columns) throws IOException {
+        this.columns = List.of(columns);
+        String header = String.join(",", columns);
+        boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+        if (!fresh) {
+            String existing;
+            try (var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+                existing = lines.findFirst().orElse("");
+            }
+            if (!existing.equals(header)) {
+                throw new IllegalStateException(file + " has columns '" + existing + "', expected '" + header + "'");
+            }
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        if (fresh) {
+            writer.write(header);
+            writer.newLine();
+        }
+    }
+
+    // one value per column; doubles are written with 3 decimals and a '.' separator
+    public void row(Object... values) throws IOException {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " values, got " + values.length);
+        }
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(format(values[i]));
+        }
+        writer.write(line.toString());
+        writer.newLine();
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return String.format(Locale.ROOT, "%.3f", ((Number) value).doubleValue());
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,376 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+// Populates a todo manager with a large dataset for the scaling benchmarks:
+// categories, then projects, then todos, each todo linked to a few
+// categories and made a task of one project.
+//
+//   java DatasetSeeder --todos 1000000 --projects 10000 --categories 1000 --rps 2000
+//
+// Other options: --categories-per-todo 2, --done-ratio 0.3, --active-ratio 0.5,
+// --completed-ratio 0.2, --max-in-flight 64, --checkpoint seed-checkpoint,
+// --progress 5s, --target <name|url>.
+//
+// Entities are created with AsyncPipeline. The rate limit counts HTTP
+// requests, not entities. Every entity is appended to an id log in the
+// checkpoint directory as "<index> <id>" as soon as its create succeeds, and
+// each line is flushed as it is written, so an interrupted run (Ctrl-C
+// included) loses at most the creates still in flight. Running again with the
+// same directory seeds exactly the indexes missing from the logs, whether
+// they failed or were never reached. A link that fails is appended to
+// links.failed and retried by the next run; a successful retry appends an
+// "ok" line for it, so the file stays append-only.
+//
+// A checkpoint is only resumed against the server it was written for, and
+// only while the last id of each log still exists there: a restarted server
+// would otherwise look fully seeded.
+public final class DatasetSeeder {
+    private static final String[] CATEGORY_TITLES = {"Home", "Office", "Errands", "Garden", "Finance", "Health"};
+
+    private final ApiTarget target;
+    private final Plan plan;
+    private final Path checkpoint;
+    private final AsyncPipeline pipeline;
+    private final RateLimiter limiter;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong linkFailures = new AtomicLong();
+
+    // what to seed; attributes are derived from each entity's index, so a
+    // resumed run keeps the same distribution
+    public record Plan(int todos, int projects, int categories, int categoriesPerTodo,
+                       double doneRatio, double activeRatio, double completedRatio) {
+    }
+
+    public DatasetSeeder(ApiTarget target, Plan plan, Path checkpoint, int maxInFlight, double requestsPerSecond) {
+        this.target = target;
+        this.plan = plan;
+        this.checkpoint = checkpoint;
+        this.pipeline = new AsyncPipeline(target, maxInFlight);
+        this.limiter = new RateLimiter(requestsPerSecond);
+    }
+
+    public static void main(String[] args) throws Exception {
+        CliArgs options = CliArgs.parse(args);
+        ApiTarget target = options.has("target") ? ApiTargets.get(options.get("target", "")) : ApiTargets.current();
+        Plan plan = new Plan(options.getInt("todos", 10_000), options.getInt("projects", 100),
+                options.getInt("categories", 100), options.getInt("categories-per-todo", 2),
+                options.getDouble("done-ratio", 0.3), options.getDouble("active-ratio", 0.5),
+                options.getDouble("completed-ratio", 0.2));
+        Path checkpoint = Paths.get(options.get("checkpoint", "seed-checkpoint"));
+        try {
+            DatasetSeeder seeder = new DatasetSeeder(target, plan, checkpoint,
+                    options.getInt("max-in-flight", 64), options.getDouble("rps", 0));
+            System.out.printf("Seeding %s into %s (checkpoint %s)%n", plan, target, checkpoint.toAbsolutePath());
+            seeder.run(options.getDuration("progress", Duration.ofSeconds(5)));
+        } finally {
+            TodoManagerStub.stopShared();
+        }
+    }
+
+    // Seeds whatever the checkpoint says is still missing; returns the number
+    // of entities and links that failed (rerun to fill them in).
+    public long run(Duration progressInterval) throws IOException, InterruptedException {
+        Files.createDirectories(checkpoint);
+        checkTarget();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(HttpTransport.daemonThreads("seed-progress"));
+        long start = System.nanoTime();
+        try (IdLog categories = new IdLog(checkpoint.resolve("categories.ids"), true);
+             IdLog projects = new IdLog(checkpoint.resolve("projects.ids"), true);
+             IdLog todos = new IdLog(checkpoint.resolve("todos.ids"), false);
+             IdLog failedLinks = new IdLog(checkpoint.resolve("links.failed"), true)) {
+            long period = progressInterval.toMillis();
+            checkLogged(categories, "/categories/");
+            checkLogged(projects, "/projects/");
+            checkLogged(todos, "/todos/");
+            reporter.scheduleAtFixedRate(() -> progress(start, categories, projects, todos), period, period, TimeUnit.MILLISECONDS);
+
+            seed(categories, plan.categories(), 1,
+                    i -> pipeline.create("/categories", category(i)).thenAccept(id -> categories.add(i, id)));
+            seed(projects, plan.projects(), 1,
+                    i -> pipeline.create("/projects", project(i)).thenAccept(id -> projects.add(i, id)));
+            relink(failedLinks);
+            int linksPerTodo = Math.min(plan.categoriesPerTodo(), categories.size());
+            int taskLinks = projects.size() > 0 ? 1 : 0;
+            seed(todos, plan.todos(), 1 + linksPerTodo + taskLinks,
+                    i -> todo(i, linksPerTodo, todos, categories, projects, failedLinks));
+        } finally {
+            reporter.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("done: %d requests in %.1fs (%.1f req/s), %d entities and %d links failed%n",
+                requests.get(), seconds, requests.get() / seconds, failures.get(), linkFailures.get());
+        return failures.get() + linkFailures.get();
+    }
+
+    // create logs the new entity itself; failures are counted here
+    private void seed(IdLog log, int wanted, int requestsEach, IntFunction<CompletableFuture<?>> create)
+            throws InterruptedException {
+        for (int i = 0; i < wanted; i++) {
+            if (log.has(i)) {
+                continue;
+            }
+            limiter.acquire(requestsEach);
+            int index = i;
+            // logged inside the pipeline, so awaitIdle() also waits for the log
+            pipeline.submit(() -> create.apply(index).whenComplete((done, failure) -> {
+                requests.addAndGet(requestsEach);
+                if (failure != null && failures.incrementAndGet() <= 10) {
+                    System.err.println("seed failed: " + failure.getMessage());
+                }
+            }));
+        }
+        pipeline.awaitIdle(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    // Create the todo and log it, then link its categories and make it a task
+    // of a project, all at once; links are skipped when there is nothing to
+    // link to. A failed link does not fail the todo, it goes to links.failed.
+    private CompletableFuture<?> todo(int index, int links, IdLog todos, IdLog categories, IdLog projects,
+                                      IdLog failedLinks) {
+        SplittableRandom random = new SplittableRandom(index);
+        return pipeline.create("/todos", todoBody(index)).thenCompose(todoId -> {
+            todos.add(index, todoId);
+            List<CompletableFuture<?>> steps = new ArrayList<>();
+            int first = categories.size() == 0 ? 0 : random.nextInt(categories.size());
+            for (int l = 0; l < links; l++) {
+                String categoryId = categories.get((first + l) % categories.size());
+                steps.add(link("/todos/" + todoId + "/categories", categoryId, failedLinks));
+            }
+            if (projects.size() > 0) {
+                String projectId = projects.get(random.nextInt(projects.size()));
+                steps.add(link("/projects/" + projectId + "/tasks", todoId, failedLinks));
+            }
+            return CompletableFuture.allOf(steps.toArray(new CompletableFuture<?>[0]));
+        });
+    }
+
+    // completes normally either way; a failure is logged as "<path> <id>"
+    private CompletableFuture<?> link(String path, String id, IdLog failedLinks) {
+        return pipeline.link(path, id).handle((done, failure) -> {
+            if (failure != null) {
+                failedLinks.add(path + " " + id);
+                if (linkFailures.incrementAndGet() <= 10) {
+                    System.err.println("link failed: " + path + " " + id + ": " + failure.getMessage());
+                }
+            }
+            return done;
+        });
+    }
+
+    // Retries the links earlier runs could not make; each one that works now
+    // is marked with an "ok <path> <id>" line.
+    private void relink(IdLog failedLinks) throws InterruptedException {
+        List<String> pending = new ArrayList<>();
+        for (int i = 0; i < failedLinks.size(); i++) {
+            String line = failedLinks.get(i);
+            if (line.startsWith("ok ")) {
+                pending.remove(line.substring(3));
+            } else {
+                pending.add(line);
+            }
+        }
+        for (String line : pending) {
+            int space = line.lastIndexOf(' ');
+            String path = line.substring(0, space);
+            String id = line.substring(space + 1);
+            limiter.acquire(1);
+            pipeline.submit(() -> pipeline.link(path, id).whenComplete((done, failure) -> {
+                requests.incrementAndGet();
+                if (failure == null) {
+                    failedLinks.add("ok " + line);
+                } else if (linkFailures.incrementAndGet() <= 10) {
+                    System.err.println("link failed again: " + line + ": " + failure.getMessage());
+                }
+            }));
+        }
+        pipeline.awaitIdle(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    private String todoBody(int index) {
+        return "{ \"title\": \"seed todo " + index + "\", \"doneStatus\": " + ratio(index, plan.doneRatio())
+                + ", \"description\": \"seeded\" }";
+    }
+
+    private String project(int index) {
+        return "{ \"title\": \"seed project " + index + "\", \"active\": " + ratio(index, plan.activeRatio())
+                + ", \"completed\": " + ratio(index * 31 + 7, plan.completedRatio()) + ", \"description\": \"seeded\" }";
+    }
+
+    private static String category(int index) {
+        return "{ \"title\": \"" + CATEGORY_TITLES[index % CATEGORY_TITLES.length] + "\", \"description\": \"seeded\" }";
+    }
+
+    // true for about that fraction of indexes, spread evenly
+    private static boolean ratio(int index, double fraction) {
+        return (index % 100) < Math.round(fraction * 100);
+    }
+
+    // refuses to resume a checkpoint written against another server (see
+    // checkLogged for the same server restarted)
+    private void checkTarget() throws IOException {
+        Path meta = checkpoint.resolve("seed.properties");
+        Properties properties = new Properties();
+        String base = target.baseUri().toString();
+        if (Files.exists(meta)) {
+            try (Reader reader = Files.newBufferedReader(meta)) {
+                properties.load(reader);
+            }
+            String recorded = properties.getProperty("target");
+            if (recorded != null && !recorded.equals(base)) {
+                if (!target.name().equals(ApiTargets.EMBEDDED)) {
+                    throw new IllegalStateException("Checkpoint " + checkpoint + " was written against " + recorded
+                            + ", not " + base + "; use another --checkpoint");
+                }
+                // the embedded stub starts empty on a new port every run, so nothing can be resumed
+                System.out.println("Embedded target restarted, discarding checkpoint " + checkpoint);
+                for (String log : new String[]{"categories.ids", "projects.ids", "todos.ids", "links.failed"}) {
+                    Files.deleteIfExists(checkpoint.resolve(log));
+                }
+            }
+        }
+        properties.setProperty("target", base);
+        properties.setProperty("plan", plan.toString());
+        try (Writer writer = Files.newBufferedWriter(meta)) {
+            properties.store(writer, "DatasetSeeder checkpoint");
+        }
+    }
+
+    // The embedded stub restarting is caught by checkTarget (new port); any
+    // other target is asked for the last id logged, which a restarted or
+    // wiped server no longer has.
+    private void checkLogged(IdLog log, String path) throws IOException, InterruptedException {
+        String id = log.last();
+        if (id == null || target.name().equals(ApiTargets.EMBEDDED)) {
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder().uri(target.uri(path + id)).GET().build();
+        int status = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status == 404) {
+            throw new IllegalStateException("Checkpoint " + checkpoint + " logged " + path + id + " but "
+                    + target.baseUri() + " no longer has it (restarted?); use another --checkpoint");
+        }
+        if (status != 200) {
+            throw new IOException("GET " + path + id + " answered " + status);
+        }
+    }
+
+    private void progress(long start, IdLog categories, IdLog projects, IdLog todos) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long total = (long) plan.categories() + plan.projects() + plan.todos();
+        long done = categories.size() + projects.size() + todos.size();
+        double rate = requests.get() / seconds;
+        System.out.printf("categories %d/%d  projects %d/%d  todos %d/%d  (%.1f%%)  %.0f req/s  %d failed%n",
+                categories.size(), plan.categories(), projects.size(), plan.projects(), todos.size(), plan.todos(),
+                total == 0 ? 100.0 : done * 100.0 / total, rate, failures.get() + linkFailures.get());
+    }
+
+    // Append-only file of created ids, one per line; the checkpoint itself.
+    // Entity logs hold "<index> <id>" lines (add(int, String)) so a resumed run
+    // knows which indexes are seeded; links.failed holds free-form lines.
+    // Every line is flushed as it is added, so it survives the process being
+    // killed right after (one write per entity, far below the request cost).
+    static final class IdLog implements AutoCloseable {
+        private final List<String> ids = new ArrayList<>();
+        private final BitSet seeded = new BitSet();
+        private final boolean keepIds;
+        private final BufferedWriter writer;
+        private int size;
+        private String last;
+
+        IdLog(Path file, boolean keepIds) throws IOException {
+            this.keepIds = keepIds;
+            if (Files.exists(file)) {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    if (!line.isBlank()) {
+                        read(line.trim());
+                    }
+                }
+            }
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        private void read(String line) {
+            int space = line.indexOf(' ');
+            if (space > 0 && line.chars().limit(space).allMatch(Character::isDigit)) {
+                seeded.set(Integer.parseInt(line.substring(0, space)));
+                remember(line.substring(space + 1));
+            } else {
+                remember(line);
+            }
+        }
+
+        private void remember(String id) {
+            if (keepIds) {
+                ids.add(id);
+            }
+            last = id;
+            size++;
+        }
+
+        synchronized void add(int index, String id) {
+            write(index + " " + id);
+            seeded.set(index);
+            remember(id);
+        }
+
+        synchronized void add(String line) {
+            write(line);
+            remember(line);
+        }
+
+        private void write(String line) {
+            try {
+                writer.write(line);
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized boolean has(int index) {
+            return seeded.get(index);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized String get(int index) {
+            return ids.get(index);
+        }
+
+        // null when nothing was logged
+        synchronized String last() {
+            return last;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// each test seeds a stub of its own so the entity counts are exact
+@Execution(ExecutionMode.SAME_THREAD)
+public class DatasetSeederTest {
+    private TodoManagerStub stub;
+    private ApiTarget target;
+
+    @BeforeEach
+    public void start() throws IOException {
+        stub = TodoManagerStub.start(0);
+        target = new ApiTarget("seed", stub.baseUri());
+    }
+
+    @AfterEach
+    public void stop() {
+        stub.close();
+    }
+
+    @Test
+    public void shouldResumeFromCheckpoint(@TempDir Path checkpoint) throws IOException, InterruptedException {
+        DatasetSeeder.Plan first = new DatasetSeeder.Plan(20, 3, 4, 2, 0.5, 0.5, 0.5);
+        assertEquals(0, new DatasetSeeder(target, first, checkpoint, 8, 0).run(Duration.ofSeconds(60)));
+        assertEquals(20, Files.readAllLines(checkpoint.resolve("todos.ids")).size());
+
+        DatasetSeeder.Plan more = new DatasetSeeder.Plan(30, 3, 4, 2, 0.5, 0.5, 0.5);
+        assertEquals(0, new DatasetSeeder(target, more, checkpoint, 8, 0).run(Duration.ofSeconds(60)));
+        assertEquals(30, Files.readAllLines(checkpoint.resolve("todos.ids")).size());
+        assertEquals(4, Files.readAllLines(checkpoint.resolve("categories.ids")).size());
+
+        // the stub was seeded with 2 todos, 1 project and 2 categories of its own
+        assertEquals(32, count("/todos", "todos"));
+        assertEquals(4, count("/projects", "projects"));
+        assertEquals(6, count("/categories", "categories"));
+    }
+
+    @Test
+    public void shouldLinkEveryTodo(@TempDir Path checkpoint) throws IOException, InterruptedException {
+        DatasetSeeder.Plan plan = new DatasetSeeder.Plan(5, 1, 2, 2, 0, 0, 0);
+        new DatasetSeeder(target, plan, checkpoint, 4, 0).run(Duration.ofSeconds(60));
+        String todoId = ids(checkpoint.resolve("todos.ids")).get(0);
+        assertEquals(2, count("/todos/" + todoId + "/categories", "categories"));
+        assertEquals(1, count("/todos/" + todoId + "/tasksof", "projects"));
+    }
+
+    @Test
+    public void shouldRetryFailedLinksOnResume(@TempDir Path checkpoint) throws IOException, InterruptedException {
+        DatasetSeeder.Plan plan = new DatasetSeeder.Plan(1, 0, 1, 0, 0, 0, 0);
+        assertEquals(0, new DatasetSeeder(target, plan, checkpoint, 4, 0).run(Duration.ofSeconds(60)));
+        String todoId = ids(checkpoint.resolve("todos.ids")).get(0);
+        String categoryId = ids(checkpoint.resolve("categories.ids")).get(0);
+        assertEquals(0, count("/todos/" + todoId + "/categories", "categories"));
+
+        // as a link that failed would have been logged
+        String link = "/todos/" + todoId + "/categories " + categoryId;
+        Files.writeString(checkpoint.resolve("links.failed"), link + System.lineSeparator(), StandardOpenOption.APPEND);
+        assertEquals(0, new DatasetSeeder(target, plan, checkpoint, 4, 0).run(Duration.ofSeconds(60)));
+        assertEquals(1, count("/todos/" + todoId + "/categories", "categories"));
+        assertEquals(List.of(link, "ok " + link), Files.readAllLines(checkpoint.resolve("links.failed")));
+        assertEquals(1, Files.readAllLines(checkpoint.resolve("todos.ids")).size());
+    }
+
+    @Test
+    public void shouldReseedTheIndexesMissingFromTheLog(@TempDir Path checkpoint) throws IOException, InterruptedException {
+        DatasetSeeder.Plan plan = new DatasetSeeder.Plan(10, 0, 0, 0, 0, 0, 0);
+        assertEquals(0, new DatasetSeeder(target, plan, checkpoint, 4, 0).run(Duration.ofSeconds(60)));
+
+        // as if the create of todo 3 had failed: neither logged nor on the server
+        Path log = checkpoint.resolve("todos.ids");
+        List<String> lines = Files.readAllLines(log);
+        String third = lines.stream().filter(line -> line.startsWith("3 ")).findFirst().orElseThrow();
+        lines.remove(third);
+        Files.write(log, lines);
+        HttpRequest delete = HttpRequest.newBuilder().uri(target.uri("/todos/" + third.substring(2))).DELETE().build();
+        assertEquals(200, HttpTransport.send(delete, HttpResponse.BodyHandlers.discarding()).statusCode());
+
+        assertEquals(0, new DatasetSeeder(target, plan, checkpoint, 4, 0).run(Duration.ofSeconds(60)));
+        lines = Files.readAllLines(log);
+        assertEquals(10, lines.size());
+        assertTrue(lines.get(9).startsWith("3 "), lines.toString());
+        assertEquals(12, count("/todos", "todos"));
+    }
+
+    @Test
+    public void shouldRefuseACheckpointTheTargetNoLongerHas(@TempDir Path checkpoint) throws IOException, InterruptedException {
+        DatasetSeeder.Plan plan = new DatasetSeeder.Plan(0, 0, 2, 0, 0, 0, 0);
+        assertEquals(0, new DatasetSeeder(target, plan, checkpoint, 4, 0).run(Duration.ofSeconds(60)));
+
+        // as a restarted server would have lost it
+        String categoryId = ids(checkpoint.resolve("categories.ids")).get(1);
+        HttpRequest delete = HttpRequest.newBuilder().uri(target.uri("/categories/" + categoryId)).DELETE().build();
+        assertEquals(200, HttpTransport.send(delete, HttpResponse.BodyHandlers.discarding()).statusCode());
+
+        DatasetSeeder seeder = new DatasetSeeder(target, plan, checkpoint, 4, 0);
+        assertThrows(IllegalStateException.class, () -> seeder.run(Duration.ofSeconds(60)));
+    }
+
+    // the ids of "<index> <id>" lines
+    private static List<String> ids(Path log) throws IOException {
+        return Files.readAllLines(log).stream().map(line -> line.substring(line.indexOf(' ') + 1)).toList();
+    }
+
+    private long count(String path, String array) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder().uri(target.uri(path)).GET().build();
+        return HttpTransport.send(request, JsonArrayHandler.of(array)).body().count();
+    }
+}
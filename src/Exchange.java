@@ -0,0 +1,18 @@
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+// One request/response pair as seen by HttpTransport. response is null when
+// the request failed (connect error, timeout, ...), in which case failure is set.
+// phases is null unless PhaseRecorder.ENABLED.
+public record Exchange(HttpRequest request, HttpResponse<?> response, Throwable failure,
+                       long startNanos, long latencyNanos, ExchangePhases phases) {
+
+    // e.g. "POST /todos/{id}/categories"
+    public String route() {
+        return Routes.template(request.method(), request.uri());
+    }
+
+    public int status() {
+        return response == null ? -1 : response.statusCode();
+    }
+}
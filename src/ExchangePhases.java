@@ -0,0 +1,169 @@
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+// Where the time of one exchange went, split at the points the JDK client
+// lets us observe from outside: it asks the request's BodyPublisher for its
+// length once it has a connection and composes the headers, subscribes to it
+// to write the body, and hands the response headers to the BodyHandler before
+// streaming the body through the handler's subscriber.
+//
+//   setup    start -> the client pulls the request body: queueing for a
+//            client thread, pool checkout or opening a connection, and
+//            composing the headers
+//   write    -> last body byte handed to the client
+//   ttfb     -> status line and headers received: the server's time plus
+//            the network round trip
+//   read     -> last body byte received
+//
+// Setup is not the connect time: the JDK doesn't expose when a connection is
+// acquired, and on a reused connection this is mostly executor queueing
+// (0.1-0.5 ms against the embedded stub), with connection churn as a second
+// mode on top. Requests without a body (GET, HEAD, DELETE) are sent as they
+// are, since there is no body to pull: their setup and write are -1 and
+// their ttfb runs from the start. The harness only speaks plain HTTP; over
+// TLS the handshake would be part of setup. Any other phase is -1 when the
+// exchange never reached its end (connect errors, timeouts).
+public final class ExchangePhases {
+    private final long startNanos;
+    private volatile boolean timedBody;
+    private volatile long pulledNanos;
+    private volatile long writtenNanos;
+    private volatile long firstByteNanos;
+    private volatile long readNanos;
+
+    public ExchangePhases(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    public long setupNanos() {
+        return pulledNanos == 0 ? -1 : pulledNanos - startNanos;
+    }
+
+    public long writeNanos() {
+        return pulledNanos == 0 ? -1 : Math.max(writtenNanos - pulledNanos, 0);
+    }
+
+    public long ttfbNanos() {
+        if (firstByteNanos == 0 || timedBody && pulledNanos == 0) {
+            return -1;
+        }
+        return firstByteNanos - (timedBody ? Math.max(writtenNanos, pulledNanos) : startNanos);
+    }
+
+    public long readNanos() {
+        return readNanos == 0 || firstByteNanos == 0 ? -1 : readNanos - firstByteNanos;
+    }
+
+    public boolean complete() {
+        return (!timedBody || pulledNanos != 0) && firstByteNanos != 0 && readNanos != 0;
+    }
+
+    // the same request with its body publisher timed; requests without a body
+    // are returned as they are
+    public HttpRequest wrap(HttpRequest request) {
+        HttpRequest.BodyPublisher body = request.bodyPublisher().orElse(null);
+        if (body == null || body.contentLength() == 0) {
+            return request;
+        }
+        timedBody = true;
+        return HttpRequest.newBuilder(request, (name, value) -> true)
+                .method(request.method(), new TimedPublisher(body))
+                .build();
+    }
+
+    public <T> HttpResponse.BodyHandler<T> wrap(HttpResponse.BodyHandler<T> handler) {
+        return info -> {
+            if (firstByteNanos == 0) {
+                firstByteNanos = System.nanoTime();
+            }
+            return new TimedSubscriber<>(handler.apply(info));
+        };
+    }
+
+    @Override
+    public String toString() {
+        return String.format("setup %.3f ms, write %.3f ms, ttfb %.3f ms, read %.3f ms",
+                setupNanos() / 1e6, writeNanos() / 1e6, ttfbNanos() / 1e6, readNanos() / 1e6);
+    }
+
+    private final class TimedPublisher implements HttpRequest.BodyPublisher {
+        private final HttpRequest.BodyPublisher delegate;
+
+        TimedPublisher(HttpRequest.BodyPublisher delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public long contentLength() {
+            // asked again on retries; the first connection is the one that counts
+            if (pulledNanos == 0) {
+                pulledNanos = System.nanoTime();
+            }
+            return delegate.contentLength();
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            delegate.subscribe(new Flow.Subscriber<ByteBuffer>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscriber.onSubscribe(subscription);
+                }
+
+                @Override
+                public void onNext(ByteBuffer item) {
+                    subscriber.onNext(item);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    subscriber.onError(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    writtenNanos = System.nanoTime();
+                    subscriber.onComplete();
+                }
+            });
+        }
+    }
+
+    private final class TimedSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+        private final HttpResponse.BodySubscriber<T> delegate;
+
+        TimedSubscriber(HttpResponse.BodySubscriber<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            delegate.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            delegate.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            readNanos = System.nanoTime();
+            delegate.onComplete();
+        }
+    }
+}
@@ -0,0 +1,263 @@
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Measures the relationship endpoints on high-fan-out graphs: one category
+// and one project that every created todo is linked to (category->todos and
+// project->tasks), grown step by step. The two hubs are also linked to each
+// other (project->categories), so /categories/{id}/projects is timed on a
+// category whose todos side is huge.
+//
+//   java FanOutBenchmark --fanouts 100,1000,10000,100000 --label thingifier-1.5.5
+//
+// Other options: --samples 20, --max-in-flight 64, --timeout 120s,
+// --out fanout.csv, --delete-hubs (time deleting the hubs at the end),
+// --target <name|url>.
+//
+// Per step it records the cost of the links added while growing (timed under
+// --max-in-flight concurrency, so they include server queueing), GET and HEAD
+// on both sides of each relationship (hub side and a member's side), and
+// unlinking (DELETE /categories/{id}/todos/{id}) then relinking sampled members.
+public final class FanOutBenchmark {
+    private final ApiTarget target;
+    private final AsyncPipeline pipeline;
+    private final int samples;
+    private final Duration timeout;
+    private final List<String> members = new ArrayList<>();
+    private String categoryId;
+    private String projectId;
+
+    public FanOutBenchmark(ApiTarget target, int maxInFlight, int samples, Duration timeout) {
+        this.target = target;
+        this.pipeline = new AsyncPipeline(target, maxInFlight);
+        this.samples = samples;
+        this.timeout = timeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        CliArgs options = CliArgs.parse(args);
+        ApiTarget target = options.has("target") ? ApiTargets.get(options.get("target", "")) : ApiTargets.current();
+        String label = options.get("label", target.name());
+        FanOutBenchmark benchmark = new FanOutBenchmark(target, options.getInt("max-in-flight", 64),
+                options.getInt("samples", 20), options.getDuration("timeout", Duration.ofSeconds(120)));
+        try (CsvReport csv = new CsvReport(Paths.get(options.get("out", "fanout.csv")), "label", "fanout", "operation",
+                "samples", "errors", "p50_ms", "p90_ms", "p99_ms", "max_ms", "bytes", "elements")) {
+            benchmark.createHubs();
+            for (String step : options.get("fanouts", "100,1000,10000,100000").split(",")) {
+                int fanout = Integer.parseInt(step.trim());
+                System.out.printf("== fan-out %d%n", fanout);
+                print(benchmark.step(fanout), csv, label, fanout);
+            }
+            if (options.getBoolean("delete-hubs")) {
+                print(benchmark.deleteHubs(), csv, label, benchmark.members.size());
+            }
+        } finally {
+            TodoManagerStub.stopShared();
+        }
+    }
+
+    public record Result(String operation, int samples, int errors, LatencyHistogram latency, long bytes, long elements) {
+    }
+
+    public void createHubs() throws IOException, InterruptedException {
+        categoryId = ResponseJson.id(expect(post("/categories", RequestShapes.CATEGORY), 201).body());
+        projectId = ResponseJson.id(expect(post("/projects", RequestShapes.PROJECT), 201).body());
+        expect(post("/projects/" + projectId + "/categories", RequestShapes.link(categoryId)), 201);
+    }
+
+    // grows both hubs to the fan-out, then measures reads, unlinks and relinks
+    public List<Result> step(int fanout) throws InterruptedException, IOException {
+        List<Result> results = new ArrayList<>();
+        results.add(grow(fanout));
+        String member;
+        synchronized (members) {
+            member = members.isEmpty() ? null : members.get(ThreadLocalRandom.current().nextInt(members.size()));
+        }
+        results.add(read("GET /categories/{id}/todos", "/categories/" + categoryId + "/todos", "todos", "GET"));
+        results.add(read("HEAD /categories/{id}/todos", "/categories/" + categoryId + "/todos", "todos", "HEAD"));
+        results.add(read("GET /categories/{id}/projects", "/categories/" + categoryId + "/projects", "projects", "GET"));
+        results.add(read("HEAD /categories/{id}/projects", "/categories/" + categoryId + "/projects", "projects", "HEAD"));
+        results.add(read("GET /projects/{id}/tasks", "/projects/" + projectId + "/tasks", "todos", "GET"));
+        results.add(read("HEAD /projects/{id}/tasks", "/projects/" + projectId + "/tasks", "todos", "HEAD"));
+        // with every create or link failed there is no member to read from
+        if (member != null) {
+            results.add(read("GET /todos/{id}/categories", "/todos/" + member + "/categories", "categories", "GET"));
+            results.add(read("GET /todos/{id}/tasksof", "/todos/" + member + "/tasksof", "projects", "GET"));
+        } else {
+            System.out.println("no members, skipping the member-side reads");
+        }
+        results.add(read("GET /categories/{id}", "/categories/" + categoryId, "categories", "GET"));
+        results.addAll(unlinkAndRelink());
+        return results;
+    }
+
+    // what deleting an entity with a huge relationship set costs (once, destructive)
+    public List<Result> deleteHubs() throws InterruptedException {
+        List<Result> results = new ArrayList<>();
+        results.add(once("DELETE /categories/{id} (hub)", HttpRequest.newBuilder()
+                .uri(target.uri("/categories/" + categoryId)).timeout(timeout).DELETE().build()));
+        results.add(once("DELETE /projects/{id} (hub)", HttpRequest.newBuilder()
+                .uri(target.uri("/projects/" + projectId)).timeout(timeout).DELETE().build()));
+        return results;
+    }
+
+    // creates todos until the hubs have the fan-out, timing every link made on
+    // the way. A todo that didn't get both links is deleted again rather than
+    // left on one hub (or neither), where it would skew the other side's reads.
+    private Result grow(int fanout) throws InterruptedException {
+        LatencyHistogram links = new LatencyHistogram();
+        AtomicInteger errors = new AtomicInteger();
+        int before = members.size();
+        for (int i = before; i < fanout; i++) {
+            pipeline.submit(() -> pipeline.create("/todos", RequestShapes.TODO).thenCompose(todoId -> {
+                CompletableFuture<String> category = timed(links, errors,
+                        pipeline.link("/categories/" + categoryId + "/todos", todoId));
+                CompletableFuture<String> task = timed(links, errors,
+                        pipeline.link("/projects/" + projectId + "/tasks", todoId));
+                return category.thenCombine(task, (a, b) -> todoId)
+                        .exceptionallyCompose(failure -> pipeline.delete("/todos/" + todoId)
+                                .handle((deleted, e) -> null)
+                                .thenCompose(ignored -> CompletableFuture.<String>failedFuture(failure)));
+            }).whenComplete((todoId, failure) -> {
+                if (todoId != null) {
+                    synchronized (members) {
+                        members.add(todoId);
+                    }
+                }
+            }));
+        }
+        pipeline.awaitIdle(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        return new Result("POST link (growing)", (fanout - before) * 2, errors.get(), links, 0, 0);
+    }
+
+    private static CompletableFuture<String> timed(LatencyHistogram histogram, AtomicInteger errors, CompletableFuture<String> link) {
+        long start = System.nanoTime();
+        return link.whenComplete((id, failure) -> {
+            if (failure == null) {
+                histogram.recordNanos(System.nanoTime() - start);
+            } else {
+                errors.incrementAndGet();
+            }
+        });
+    }
+
+    private Result read(String operation, String path, String array, String method) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder().uri(target.uri(path)).timeout(timeout)
+                .method(method, HttpRequest.BodyPublishers.noBody()).build();
+        JsonArrayHandler handler = JsonArrayHandler.of(array);
+        LatencyHistogram latency = new LatencyHistogram();
+        int errors = 0;
+        long bytes = 0;
+        long elements = 0;
+        send(request, handler);
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            HttpResponse<JsonArrayHandler.Summary> response = send(request, handler);
+            long elapsed = System.nanoTime() - start;
+            if (response == null || response.statusCode() != 200) {
+                errors++;
+                continue;
+            }
+            latency.recordNanos(elapsed);
+            bytes = response.body().bytes();
+            elements = response.body().count();
+        }
+        return new Result(operation, samples, errors, latency, bytes, elements);
+    }
+
+    // removes sampled members from the category and links them back, timing both
+    private List<Result> unlinkAndRelink() throws InterruptedException {
+        List<String> sample;
+        synchronized (members) {
+            sample = new ArrayList<>(members);
+        }
+        Collections.shuffle(sample);
+        sample = sample.subList(0, Math.min(samples, sample.size()));
+        LatencyHistogram unlink = new LatencyHistogram();
+        LatencyHistogram relink = new LatencyHistogram();
+        int unlinkErrors = 0;
+        int relinkErrors = 0;
+        for (String todoId : sample) {
+            long start = System.nanoTime();
+            HttpResponse<Void> deleted = sendDiscarding(HttpRequest.newBuilder()
+                    .uri(target.uri("/categories/" + categoryId + "/todos/" + todoId)).timeout(timeout).DELETE().build());
+            if (deleted != null && deleted.statusCode() == 200) {
+                unlink.recordNanos(System.nanoTime() - start);
+            } else {
+                unlinkErrors++;
+            }
+            start = System.nanoTime();
+            HttpResponse<Void> linked = sendDiscarding(post("/categories/" + categoryId + "/todos", RequestShapes.link(todoId)));
+            if (linked != null && linked.statusCode() == 201) {
+                relink.recordNanos(System.nanoTime() - start);
+            } else {
+                relinkErrors++;
+            }
+        }
+        return List.of(new Result("DELETE /categories/{id}/todos/{id}", sample.size(), unlinkErrors, unlink, 0, 0),
+                new Result("POST /categories/{id}/todos (relink)", sample.size(), relinkErrors, relink, 0, 0));
+    }
+
+    private Result once(String operation, HttpRequest request) throws InterruptedException {
+        LatencyHistogram latency = new LatencyHistogram();
+        long start = System.nanoTime();
+        HttpResponse<Void> response = sendDiscarding(request);
+        boolean ok = response != null && response.statusCode() == 200;
+        if (ok) {
+            latency.recordNanos(System.nanoTime() - start);
+        }
+        return new Result(operation, 1, ok ? 0 : 1, latency, 0, 0);
+    }
+
+    private static void print(List<Result> results, CsvReport csv, String label, int fanout) throws IOException {
+        System.out.printf("%-40s %7s %7s %9s %9s %9s %9s %12s %9s%n",
+                "operation", "samples", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms", "bytes", "elements");
+        for (Result result : results) {
+            LatencyHistogram latency = result.latency();
+            System.out.printf("%-40s %7d %7d %9.2f %9.2f %9.2f %9.2f %12d %9d%n", result.operation(), result.samples(),
+                    result.errors(), latency.valueAtPercentile(50) / 1000.0, latency.valueAtPercentile(90) / 1000.0,
+                    latency.valueAtPercentile(99) / 1000.0, latency.maxMicros() / 1000.0, result.bytes(), result.elements());
+            csv.row(label, fanout, result.operation(), result.samples(), result.errors(),
+                    latency.valueAtPercentile(50) / 1000.0, latency.valueAtPercentile(90) / 1000.0,
+                    latency.valueAtPercentile(99) / 1000.0, latency.maxMicros() / 1000.0, result.bytes(), result.elements());
+        }
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder()
+                .uri(target.uri(path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static HttpResponse<String> expect(HttpRequest request, int status) throws IOException, InterruptedException {
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != status) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " returned " + response.statusCode());
+        }
+        return response;
+    }
+
+    private static <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws InterruptedException {
+        try {
+            return HttpTransport.send(request, handler);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static HttpResponse<Void> sendDiscarding(HttpRequest request) throws InterruptedException {
+        return send(request, HttpResponse.BodyHandlers.discarding());
+    }
+}
@@ -0,0 +1,125 @@
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Keeps a stock of ready-made fixtures so tests don't pay the create round
+// trips in @BeforeEach. Fixtures are provisioned in parallel on background
+// threads, handed out once, and deleted in the background when released;
+// tests mutate them, so they are never handed out twice.
+//
+// Stock size and worker count come from -Dfixtures.poolSize (default 8) and
+// -Dfixtures.threads (default 4).
+public final class FixturePool<T> {
+    public static final int DEFAULT_SIZE = Integer.getInteger("fixtures.poolSize", 8);
+    public static final int DEFAULT_THREADS = Integer.getInteger("fixtures.threads", 4);
+
+    public interface Provisioner<T> {
+        T provision() throws IOException, InterruptedException;
+    }
+
+    public interface Disposer<T> {
+        void dispose(T fixture) throws IOException, InterruptedException;
+    }
+
+    private final String name;
+    private final Provisioner<T> provisioner;
+    private final Disposer<T> disposer;
+    private final BlockingQueue<T> ready = new LinkedBlockingQueue<>();
+    private final ExecutorService executor;
+    private final AtomicInteger handedOut = new AtomicInteger();
+    private final AtomicInteger provisionedOnDemand = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile boolean closed;
+
+    private FixturePool(String name, int size, int threads, Provisioner<T> provisioner, Disposer<T> disposer) {
+        this.name = name;
+        this.provisioner = provisioner;
+        this.disposer = disposer;
+        this.executor = Executors.newFixedThreadPool(threads, HttpTransport.daemonThreads("fixtures-" + name));
+        for (int i = 0; i < size; i++) {
+            executor.execute(this::refill);
+        }
+    }
+
+    public static <T> FixturePool<T> start(String name, Provisioner<T> provisioner, Disposer<T> disposer) {
+        return new FixturePool<>(name, DEFAULT_SIZE, DEFAULT_THREADS, provisioner, disposer);
+    }
+
+    public static <T> FixturePool<T> start(String name, int size, int threads, Provisioner<T> provisioner, Disposer<T> disposer) {
+        return new FixturePool<>(name, size, threads, provisioner, disposer);
+    }
+
+    // Takes a ready fixture, or builds one on the caller's thread when the
+    // stock has run dry; either way a replacement is queued.
+    public T acquire() throws IOException, InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Fixture pool " + name + " is closed");
+        }
+        handedOut.incrementAndGet();
+        T fixture = ready.poll();
+        executor.execute(this::refill);
+        if (fixture == null) {
+            provisionedOnDemand.incrementAndGet();
+            fixture = provisioner.provision();
+        }
+        return fixture;
+    }
+
+    public void release(T fixture) {
+        if (fixture == null) {
+            return;
+        }
+        if (closed) {
+            dispose(fixture);
+        } else {
+            executor.execute(() -> dispose(fixture));
+        }
+    }
+
+    // Deletes unused stock and waits for outstanding deletes, so a run
+    // leaves nothing behind on the server.
+    public void close() throws InterruptedException {
+        closed = true;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        T fixture;
+        while ((fixture = ready.poll()) != null) {
+            dispose(fixture);
+        }
+        System.out.printf("Fixture pool %s: %d handed out, %d provisioned on demand, %d failures%n",
+                name, handedOut.get(), provisionedOnDemand.get(), failures.get());
+    }
+
+    private void refill() {
+        if (closed) {
+            return;
+        }
+        T fixture;
+        try {
+            fixture = provisioner.provision();
+        } catch (Exception | AssertionError e) {
+            // acquire() falls back to provisioning inline, where the failure is reported to the test
+            failures.incrementAndGet();
+            System.err.println("Fixture pool " + name + " could not provision: " + e);
+            return;
+        }
+        if (closed) {
+            dispose(fixture);
+        } else {
+            ready.add(fixture);
+        }
+    }
+
+    private void dispose(T fixture) {
+        try {
+            disposer.dispose(fixture);
+        } catch (Exception | AssertionError e) {
+            failures.incrementAndGet();
+            System.err.println("Fixture pool " + name + " could not dispose " + fixture + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.StringWriter;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Benchmarks of what the suite pays on the client side for every call:
+// building requests, producing JSON bodies, parsing ids out of responses and
+// full round trips.
+//
+//   java HarnessBenchmarks [--filter regex] [--warmup 5] [--iterations 10] [--time 1s] [--forks 1] [--target embedded]
+//
+// With --forks 1 (the default) every benchmark runs in a fresh JVM so the
+// JIT profile of one does not colour the next; --forks 0 runs in-process.
+//
+// B/op is the benchmark thread's own allocation (see MicroBenchmark). The
+// round trips run against the in-process stub by default, whose allocation
+// shows up separately as stub B/op; for numbers with no server in the JVM
+// at all, start one outside (java TodoManagerStub 4567) and pass
+// --target http://localhost:4567. The transport's recorders are switched off,
+// so B/op is the client's request path and not the harness's bookkeeping.
+public final class HarnessBenchmarks {
+    private static final String CREATED_TODO = "{\"id\":\"17\",\"title\":\"s aute irure dolor i\",\"doneStatus\":\"false\","
+            + "\"description\":\"sse cillum dolore eu\",\"tasksof\":[{\"id\":\"1\"}],\"categories\":[{\"id\":\"3\"}]}";
+
+    private final ApiTarget target;
+    private final RequestTemplate getTodo;
+    private final RequestTemplate createTodo;
+    private final RequestTemplate linkCategory;
+
+    private HarnessBenchmarks(ApiTarget target) {
+        this.target = target;
+        this.getTodo = RequestTemplate.of(target, "GET", "/todos/{id}", null);
+        this.createTodo = RequestTemplate.of(target, "POST", "/todos", RequestShapes.TODO);
+        this.linkCategory = RequestTemplate.of(target, "POST", "/todos/{id}/categories", RequestShapes.LINK);
+    }
+
+    public static void main(String[] args) throws Exception {
+        CliArgs options = CliArgs.parse(args);
+        Pattern filter = Pattern.compile(options.get("filter", ".*"));
+        int forks = options.getInt("forks", 1);
+        MicroBenchmark harness = new MicroBenchmark(options.getInt("warmup", 5), options.getInt("iterations", 10),
+                options.getDuration("time", Duration.ofSeconds(1)));
+        try {
+            HarnessBenchmarks benchmarks = new HarnessBenchmarks(ApiTargets.get(options.get("target", ApiTargets.EMBEDDED)));
+            // in a fork -Dlatency.record=false keeps them from being registered at all
+            HttpTransport.removeListener(LatencyRecorder.global());
+            HttpTransport.removeListener(PhaseRecorder.global());
+            if (!options.has("child")) {
+                MicroBenchmark.Result.printHeader(System.out);
+            }
+            for (Map.Entry<String, MicroBenchmark.Operation> entry : benchmarks.operations().entrySet()) {
+                if (!filter.matcher(entry.getKey()).find()) {
+                    continue;
+                }
+                if (forks > 0) {
+                    List<String> childArgs = new ArrayList<>(List.of(args));
+                    childArgs.addAll(List.of("--forks", "0", "--child", "--filter", "^" + Pattern.quote(entry.getKey()) + "$"));
+                    MicroBenchmark.fork(HarnessBenchmarks.class, List.of("-Dlatency.record=false"), childArgs);
+                } else {
+                    harness.run(entry.getKey(), entry.getValue()).print(System.out);
+                }
+            }
+        } finally {
+            TodoManagerStub.stopShared();
+        }
+    }
+
+    private Map<String, MicroBenchmark.Operation> operations() {
+        Map<String, MicroBenchmark.Operation> operations = new LinkedHashMap<>();
+        operations.put("request.build.get", () -> HttpRequest.newBuilder()
+                .uri(target.uri("/todos/1"))
+                .GET().build());
+        operations.put("request.build.postJson", () -> HttpRequest.newBuilder()
+                .uri(target.uri("/todos"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(RequestShapes.TODO))
+                .build());
+        // the same shapes from pre-built templates, as the load tools send them
+        operations.put("request.template.get", () -> getTodo.request("1"));
+        operations.put("request.template.postJson", () -> createTodo.request());
+        operations.put("request.template.link", () -> linkCategory.request("1", "3"));
+        operations.put("body.concat", () -> "{ \"title\": \"" + "Category Title" + "\", \"description\": \""
+                + "Category Description" + "\" }");
+        operations.put("body.jsonGenerator", () -> {
+            StringWriter writer = new StringWriter(64);
+            try (JsonGenerator json = ResponseJson.MAPPER.getFactory().createGenerator(writer)) {
+                json.writeStartObject();
+                json.writeStringField("title", "Category Title");
+                json.writeStringField("description", "Category Description");
+                json.writeEndObject();
+            }
+            return writer.toString();
+        });
+        // what TodosTest and friends do today for every created entity
+        operations.put("parse.id.newObjectMapper", () -> new ObjectMapper().readTree(CREATED_TODO).get("id").asText());
+        operations.put("parse.id.sharedObjectMapper", () -> ResponseJson.MAPPER.readTree(CREATED_TODO).get("id").asText());
+        operations.put("parse.id.streaming", () -> ResponseJson.id(CREATED_TODO));
+        operations.put("parse.fields.streaming", () -> ResponseJson.fields(CREATED_TODO, "id", "doneStatus"));
+        operations.put("roundTrip.getTodo", () -> HttpTransport.send(HttpRequest.newBuilder()
+                .uri(target.uri("/todos/1"))
+                .GET().build(), HttpResponse.BodyHandlers.ofString()).body());
+        operations.put("roundTrip.headTodos", () -> HttpTransport.send(HttpRequest.newBuilder()
+                .uri(target.uri("/todos"))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+        return operations;
+    }
+}
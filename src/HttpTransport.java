@@ -0,0 +1,182 @@
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Single HttpClient shared by every test class and helper, so connections are
+// pooled and kept alive instead of a new client (selector thread + socket) per call.
+//
+// Tuning is read once from system properties:
+//   transport.connectTimeoutMs  (default 2000)
+//   transport.requestTimeoutMs  (default 10000)
+//   transport.threads           (default 4)
+//   transport.keepAliveSeconds  (default 30)
+//
+// Every exchange is reported to the registered listeners once it completes;
+// LatencyRecorder.global() is registered by default, PhaseRecorder.global()
+// when -Dphases.record=true, a TrafficCapture when -Dcapture.file=<path> is
+// set, and the live metrics when -Dmetrics.port or -Dmetrics.snapshotFile is
+// (MetricsExporter).
+public final class HttpTransport {
+    public static final Duration CONNECT_TIMEOUT = Duration.ofMillis(Long.getLong("transport.connectTimeoutMs", 2000));
+    public static final Duration REQUEST_TIMEOUT = Duration.ofMillis(Long.getLong("transport.requestTimeoutMs", 10000));
+    public static final int THREADS = Integer.getInteger("transport.threads", 4);
+    public static final int KEEP_ALIVE_SECONDS = Integer.getInteger("transport.keepAliveSeconds", 30);
+
+    private static final AtomicInteger clientsCreated = new AtomicInteger();
+    private static final AtomicLong requestsSent = new AtomicLong();
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private static final ExecutorService executor;
+    private static final HttpClient client;
+
+    static {
+        // the JDK client only reads this when its first instance is created
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(KEEP_ALIVE_SECONDS));
+        }
+        executor = Executors.newFixedThreadPool(THREADS, daemonThreads("http-transport"));
+        client = newClient(HttpClient.Version.HTTP_1_1);
+        if (LatencyRecorder.ENABLED) {
+            addListener(LatencyRecorder.global());
+            LatencyRecorder.installShutdownHook();
+        }
+        if (PhaseRecorder.ENABLED) {
+            addListener(PhaseRecorder.global());
+            PhaseRecorder.installShutdownHook();
+        }
+        if (TrafficCapture.FILE != null) {
+            TrafficCapture.installFromProperty();
+        }
+        if (MetricsExporter.PORT >= 0 || MetricsExporter.SNAPSHOT_FILE != null) {
+            MetricsExporter.installFromProperties();
+        }
+    }
+
+    // Called on the thread that completed the exchange, so implementations
+    // must be cheap and must not block.
+    public interface Listener {
+        void onExchange(Exchange exchange);
+    }
+
+    private HttpTransport() {
+    }
+
+    public static HttpClient client() {
+        return client;
+    }
+
+    // Builds a client with the shared tuning; only use this when a second
+    // client is genuinely needed (e.g. to compare protocol versions).
+    public static HttpClient newClient(HttpClient.Version version) {
+        clientsCreated.incrementAndGet();
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(executor)
+                .build();
+    }
+
+    public static <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        requestsSent.incrementAndGet();
+        HttpRequest timed = withTimeout(request);
+        long start = System.nanoTime();
+        ExchangePhases phases = PhaseRecorder.ENABLED ? new ExchangePhases(start) : null;
+        HttpResponse<T> response = null;
+        Throwable failure = null;
+        inFlight.incrementAndGet();
+        try {
+            response = phases == null ? client.send(timed, handler) : client.send(phases.wrap(timed), phases.wrap(handler));
+            return response;
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            inFlight.decrementAndGet();
+            // an interrupted wait is not a failed exchange, so nothing is reported for it
+            if ((response != null || failure != null) && !listeners.isEmpty()) {
+                publish(new Exchange(timed, response, failure, start, System.nanoTime() - start, phases));
+            }
+        }
+    }
+
+    public static <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        requestsSent.incrementAndGet();
+        HttpRequest timed = withTimeout(request);
+        long start = System.nanoTime();
+        ExchangePhases phases = PhaseRecorder.ENABLED ? new ExchangePhases(start) : null;
+        inFlight.incrementAndGet();
+        CompletableFuture<HttpResponse<T>> future = phases == null ? client.sendAsync(timed, handler)
+                : client.sendAsync(phases.wrap(timed), phases.wrap(handler));
+        return future.whenComplete((response, failure) -> {
+            inFlight.decrementAndGet();
+            if (!listeners.isEmpty()) {
+                publish(new Exchange(timed, response, failure, start, System.nanoTime() - start, phases));
+            }
+        });
+    }
+
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Every HttpClient owns its own connection pool, so this is the number of
+    // pools opened by the harness; it stays at 1 while all calls go through here.
+    public static int clientsCreated() {
+        return clientsCreated.get();
+    }
+
+    public static long requestsSent() {
+        return requestsSent.get();
+    }
+
+    // sent and not yet completed, by send and sendAsync alike
+    public static int inFlight() {
+        return inFlight.get();
+    }
+
+    private static void publish(Exchange exchange) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onExchange(exchange);
+            } catch (RuntimeException e) {
+                // a broken listener must not fail the request it is observing
+                System.err.println("Transport listener failed: " + e);
+            }
+        }
+    }
+
+    private static HttpRequest withTimeout(HttpRequest request) {
+        if (request.timeout().isPresent()) {
+            return request;
+        }
+        return HttpRequest.newBuilder(request, (name, value) -> true)
+                .timeout(REQUEST_TIMEOUT)
+                .build();
+    }
+
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
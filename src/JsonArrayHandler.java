@@ -0,0 +1,198 @@
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+// BodyHandler for collection responses such as GET /todos ({"todos":[...]}).
+// The body is fed chunk by chunk into Jackson's non-blocking parser as it
+// arrives, so neither the whole body nor a tree of it is ever held in memory;
+// only the top-level scalar fields of the element being read are kept.
+//
+//   JsonArrayHandler.of("todos").require("id", "title").expect("doneStatus", "false")
+//
+// counts the elements, checks each has an id and a title and that every one
+// has doneStatus "false" (i.e. that a ?doneStatus=false filter held).
+public final class JsonArrayHandler implements HttpResponse.BodyHandler<JsonArrayHandler.Summary> {
+    private static final int MAX_VIOLATIONS = 20;
+
+    private final String arrayField;
+    private final List<String> required = new ArrayList<>();
+    private final Map<String, String> expected = new LinkedHashMap<>();
+
+    private JsonArrayHandler(String arrayField) {
+        this.arrayField = arrayField;
+    }
+
+    // arrayField is the top-level field holding the array, e.g. "todos"
+    public static JsonArrayHandler of(String arrayField) {
+        return new JsonArrayHandler(arrayField);
+    }
+
+    public JsonArrayHandler require(String... fields) {
+        Collections.addAll(required, fields);
+        return this;
+    }
+
+    public JsonArrayHandler expect(String field, String value) {
+        expected.put(field, value);
+        return this;
+    }
+
+    // what was found in the array; violations holds the first few failed checks
+    public record Summary(long count, long bytes, long violationCount, List<String> violations) {
+        public boolean valid() {
+            return violationCount == 0;
+        }
+    }
+
+    @Override
+    public HttpResponse.BodySubscriber<Summary> apply(HttpResponse.ResponseInfo responseInfo) {
+        return new Subscriber();
+    }
+
+    private final class Subscriber implements HttpResponse.BodySubscriber<Summary> {
+        private final CompletableFuture<Summary> result = new CompletableFuture<>();
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+        private final Map<String, String> element = new HashMap<>();
+        private final List<String> violations = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private int depth;
+        private boolean arrayNext;
+        private int arrayDepth = -1;
+        private long count;
+        private long bytes;
+        private long violationCount;
+
+        Subscriber() {
+            try {
+                parser = ResponseJson.MAPPER.getFactory().createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new IllegalStateException("Jackson cannot create a non-blocking parser", e);
+            }
+            feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        @Override
+        public CompletionStage<Summary> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            try {
+                for (ByteBuffer buffer : buffers) {
+                    int length = buffer.remaining();
+                    bytes += length;
+                    if (buffer.hasArray()) {
+                        int start = buffer.arrayOffset() + buffer.position();
+                        feeder.feedInput(buffer.array(), start, start + length);
+                    } else {
+                        byte[] copy = new byte[length];
+                        buffer.get(copy);
+                        feeder.feedInput(copy, 0, length);
+                    }
+                    drain();
+                }
+                subscription.request(1);
+            } catch (IOException | RuntimeException e) {
+                subscription.cancel();
+                result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                feeder.endOfInput();
+                drain();
+                parser.close();
+                result.complete(new Summary(count, bytes, violationCount, List.copyOf(violations)));
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        // consumes every token the parser can produce from the input so far
+        private void drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                switch (token) {
+                    case START_OBJECT:
+                    case START_ARRAY:
+                        depth++;
+                        if (token == JsonToken.START_ARRAY && arrayNext) {
+                            arrayDepth = depth;
+                        } else if (token == JsonToken.START_OBJECT && depth == arrayDepth + 1) {
+                            element.clear();
+                        }
+                        arrayNext = false;
+                        break;
+                    case END_OBJECT:
+                    case END_ARRAY:
+                        if (token == JsonToken.END_OBJECT && depth == arrayDepth + 1) {
+                            check();
+                        } else if (depth == arrayDepth) {
+                            arrayDepth = -1;
+                        }
+                        depth--;
+                        break;
+                    case FIELD_NAME:
+                        arrayNext = depth == 1 && arrayDepth < 0 && parser.currentName().equals(arrayField);
+                        break;
+                    default:
+                        if (arrayDepth > 0 && depth == arrayDepth + 1) {
+                            element.put(parser.currentName(), parser.getValueAsString());
+                        }
+                        arrayNext = false;
+                }
+            }
+        }
+
+        private void check() {
+            count++;
+            for (String field : required) {
+                if (element.get(field) == null) {
+                    violation("element " + count + " has no '" + field + "'");
+                }
+            }
+            for (Map.Entry<String, String> entry : expected.entrySet()) {
+                String actual = element.get(entry.getKey());
+                if (!entry.getValue().equals(actual)) {
+                    violation("element " + count + " (id " + element.get("id") + ") has " + entry.getKey()
+                            + "=" + actual + ", expected " + entry.getValue());
+                }
+            }
+        }
+
+        private void violation(String message) {
+            violationCount++;
+            if (violations.size() < MAX_VIOLATIONS) {
+                violations.add(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+import org.junit.jupiter.api.*;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonArrayHandlerTest {
+    private static final String TODOS = "{\"todos\":[{\"id\":\"1\",\"title\":\"scan paperwork\",\"doneStatus\":\"false\","
+            + "\"tasksof\":[{\"id\":\"1\"}],\"categories\":[{\"id\":\"1\"}]},"
+            + "{\"id\":\"2\",\"title\":\"file paperwork\",\"doneStatus\":false,\"tasksof\":[{\"id\":\"1\"}]}]}";
+
+    @Test
+    public void shouldCountElementsAcrossChunkBoundaries() {
+        for (int chunk = 1; chunk <= TODOS.length(); chunk += 7) {
+            JsonArrayHandler.Summary summary = feed(JsonArrayHandler.of("todos").require("id", "title"), TODOS, chunk);
+            assertEquals(2, summary.count());
+            assertTrue(summary.valid(), summary.violations().toString());
+            assertEquals(TODOS.length(), summary.bytes());
+        }
+    }
+
+    @Test
+    public void shouldReportElementsFailingFilter() {
+        JsonArrayHandler.Summary summary = feed(JsonArrayHandler.of("todos").expect("doneStatus", "true"), TODOS, 16);
+        assertEquals(2, summary.count());
+        assertEquals(2, summary.violationCount());
+        assertTrue(summary.violations().get(0).contains("id 1"));
+    }
+
+    @Test
+    public void shouldIgnoreNestedArraysWithSameName() {
+        String body = "{\"projects\":[{\"id\":\"1\",\"todos\":[{\"id\":\"9\"}]}],\"todos\":[]}";
+        assertEquals(0, feed(JsonArrayHandler.of("todos"), body, 5).count());
+        assertEquals(1, feed(JsonArrayHandler.of("projects"), body, 5).count());
+    }
+
+    @Test
+    public void shouldFailOnMalformedJson() {
+        HttpResponse.BodySubscriber<JsonArrayHandler.Summary> subscriber = JsonArrayHandler.of("todos").apply(null);
+        subscriber.onSubscribe(new NoopSubscription());
+        subscriber.onNext(List.of(ByteBuffer.wrap("{\"todos\":[{\"id\":}".getBytes(StandardCharsets.UTF_8))));
+        subscriber.onComplete();
+        assertTrue(subscriber.getBody().toCompletableFuture().isCompletedExceptionally());
+    }
+
+    private static JsonArrayHandler.Summary feed(JsonArrayHandler handler, String body, int chunk) {
+        HttpResponse.BodySubscriber<JsonArrayHandler.Summary> subscriber = handler.apply(null);
+        subscriber.onSubscribe(new NoopSubscription());
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i += chunk) {
+            subscriber.onNext(List.of(ByteBuffer.wrap(bytes, i, Math.min(chunk, bytes.length - i))));
+        }
+        subscriber.onComplete();
+        return subscriber.getBody().toCompletableFuture().join();
+    }
+
+    private static final class NoopSubscription implements Flow.Subscription {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
@@ -0,0 +1,165 @@
+import java.time.Duration;
+import java.util.Arrays;
+
+// A latency SLO for one route, checked by timing a call many times:
+//
+//   LatencyBudget.route("GET /todos/{id}").percentile(99).under(Duration.ofMillis(20))
+//           .iterations(1000).check(() -> { ...send, assert status... });
+//
+// The call is first run for the warm-up count, then `repeats` rounds of
+// `iterations` are timed and pooled. The estimate is the percentile of the
+// pooled samples (nearest rank), and its 95% confidence interval is the
+// distribution-free order-statistic one around the same rank: the samples at
+// ranks n*q -/+ 1.96*sqrt(n*q*(1-q)). The check fails when the estimate is
+// over the budget; an estimate under it whose upper bound is over passes with
+// an "at risk" warning on stderr. Fewer samples than minSamples(percentile)
+// are rejected, since the upper bound would just be the maximum. Failing
+// calls (exceptions, wrong status) fail the check straight away.
+//
+// Budgets can also be attached to test classes with @RouteBudget, which
+// checks the requests the class's tests send themselves instead of a
+// dedicated loop; the same minimum applies.
+//
+// -Dslo.scale=<factor> multiplies every budget, for slower CI machines or
+// remote targets.
+public final class LatencyBudget {
+    public static final double SCALE = Double.parseDouble(System.getProperty("slo.scale", "1"));
+    private static final double Z_95 = 1.96;
+
+    private final String route;
+    private double percentile = 99;
+    private Duration budget = Duration.ofMillis(100);
+    private int iterations = 1000;
+    private int repeats = 5;
+    private int warmup = 200;
+
+    private LatencyBudget(String route) {
+        this.route = route;
+    }
+
+    public interface Call {
+        void run() throws Exception;
+    }
+
+    public record Report(String route, double percentile, double budgetMillis, double estimateMillis,
+                         double lowerMillis, double upperMillis, long samples) {
+        public boolean passed() {
+            return estimateMillis <= budgetMillis;
+        }
+
+        // passed, but the interval reaches over the budget
+        public boolean atRisk() {
+            return passed() && upperMillis > budgetMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s p%s = %.2f ms (95%% CI %.2f..%.2f, %d samples), budget %.2f ms%s",
+                    route, trim(percentile), estimateMillis, lowerMillis, upperMillis, samples, budgetMillis,
+                    atRisk() ? ", at risk" : "");
+        }
+    }
+
+    public static LatencyBudget route(String route) {
+        return new LatencyBudget(route);
+    }
+
+    public LatencyBudget percentile(double percentile) {
+        this.percentile = percentile;
+        return this;
+    }
+
+    public LatencyBudget under(Duration budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    // calls per round
+    public LatencyBudget iterations(int iterations) {
+        this.iterations = iterations;
+        return this;
+    }
+
+    // rounds of iterations, pooled into one sample
+    public LatencyBudget repeats(int repeats) {
+        this.repeats = Math.max(1, repeats);
+        return this;
+    }
+
+    public LatencyBudget warmup(int warmup) {
+        this.warmup = warmup;
+        return this;
+    }
+
+    // measures the call and throws AssertionError when the budget is exceeded
+    public Report check(Call call) throws Exception {
+        return enforce(measure(call));
+    }
+
+    // throws when the report failed, warns when it is at risk
+    static Report enforce(Report report) {
+        if (!report.passed()) {
+            throw new AssertionError("Latency budget exceeded: " + report);
+        }
+        if (report.atRisk()) {
+            System.err.println("Latency budget at risk (upper bound over budget): " + report);
+        }
+        return report;
+    }
+
+    public Report measure(Call call) throws Exception {
+        int samples = iterations * repeats;
+        if (samples < minSamples(percentile)) {
+            throw new IllegalArgumentException(route + ": p" + trim(percentile) + " needs at least "
+                    + minSamples(percentile) + " samples, iterations x repeats is " + samples);
+        }
+        for (int i = 0; i < warmup; i++) {
+            call.run();
+        }
+        long[] nanos = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            call.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        return report(route, percentile, budget, nanos);
+    }
+
+    // the pooled percentile and the order-statistic interval around it
+    static Report report(String route, double percentile, Duration budget, long[] nanos) {
+        int n = nanos.length;
+        if (n < minSamples(percentile)) {
+            throw new IllegalArgumentException(route + ": p" + trim(percentile) + " needs at least "
+                    + minSamples(percentile) + " samples, got " + n);
+        }
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double q = percentile / 100;
+        int rank = (int) Math.max(1, Math.ceil(n * q));
+        return new Report(route, percentile, budget.toNanos() / 1e6 * SCALE, sorted[rank - 1] / 1e6,
+                sorted[lowerRank(n, q) - 1] / 1e6, sorted[upperRank(n, q) - 1] / 1e6, n);
+    }
+
+    // fewest samples whose interval's upper bound is not simply the maximum
+    public static int minSamples(double percentile) {
+        double q = percentile / 100;
+        int n = 2;
+        while (upperRank(n, q) >= n) {
+            n++;
+        }
+        return n;
+    }
+
+    // 1-based ranks bounding the 95% interval of the q quantile
+    private static int lowerRank(int n, double q) {
+        return (int) Math.max(1, Math.floor(n * q - Z_95 * Math.sqrt(n * q * (1 - q))));
+    }
+
+    private static int upperRank(int n, double q) {
+        return (int) Math.min(n, Math.ceil(n * q + Z_95 * Math.sqrt(n * q * (1 - q))) + 1);
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
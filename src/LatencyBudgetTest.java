@@ -0,0 +1,72 @@
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyBudgetTest {
+
+    @Test
+    public void shouldPassFastCalls() throws Exception {
+        LatencyBudget.Report report = LatencyBudget.route("noop").percentile(99).under(Duration.ofMillis(50))
+                .warmup(10).iterations(250).repeats(3)
+                .check(() -> { });
+        assertTrue(report.passed());
+        assertEquals(750, report.samples());
+    }
+
+    @Test
+    public void shouldFailWhenClearlyOverBudget() {
+        AssertionError error = assertThrows(AssertionError.class, () ->
+                LatencyBudget.route("sleepy").percentile(50).under(Duration.ofNanos(100_000))
+                        .warmup(0).iterations(5).repeats(3)
+                        .check(() -> Thread.sleep(3)));
+        assertTrue(error.getMessage().contains("sleepy p50"));
+    }
+
+    @Test
+    public void shouldGateOnThePooledEstimateAndWarnOnTheUpperBound() {
+        long ms = 1_000_000;
+        // 20 samples: 1..20 ms, so p50 is 10 ms and its interval spans ranks 5..16
+        long[] nanos = new long[20];
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = (i + 1) * ms;
+        }
+        LatencyBudget.Report report = LatencyBudget.report("spread", 50, Duration.ofMillis(12), nanos);
+        assertEquals(10, report.estimateMillis(), 1e-9);
+        assertTrue(report.lowerMillis() <= report.estimateMillis() && report.estimateMillis() <= report.upperMillis());
+        assertTrue(report.passed());
+        assertTrue(report.atRisk(), report.toString());
+        assertSame(report, LatencyBudget.enforce(report));
+
+        // the estimate itself over the budget fails, however wide the interval
+        LatencyBudget.Report over = LatencyBudget.report("spread", 50, Duration.ofMillis(9), nanos);
+        assertFalse(over.passed());
+        assertThrows(AssertionError.class, () -> LatencyBudget.enforce(over));
+    }
+
+    @Test
+    public void shouldRejectTooFewSamplesForThePercentile() {
+        assertEquals(726, LatencyBudget.minSamples(99));
+        assertThrows(IllegalArgumentException.class, () ->
+                LatencyBudget.report("few", 99, Duration.ofMillis(10), new long[100]));
+        assertThrows(IllegalArgumentException.class, () ->
+                LatencyBudget.route("few").percentile(99).iterations(100).repeats(2).measure(() -> { }));
+    }
+
+    @Test
+    public void shouldRunWarmupBeforeMeasuring() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        LatencyBudget.route("count").percentile(50).warmup(7).iterations(6).repeats(2).measure(calls::incrementAndGet);
+        assertEquals(7 + 6 * 2, calls.get());
+    }
+
+    @Test
+    public void shouldPropagateCallFailures() {
+        assertThrows(IllegalStateException.class, () -> LatencyBudget.route("broken").warmup(0)
+                .check(() -> {
+                    throw new IllegalStateException("404");
+                }));
+    }
+}
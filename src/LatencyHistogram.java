@@ -0,0 +1,302 @@
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+// Log-linear latency histogram with the same bucket layout as HdrHistogram:
+// every value up to the highest trackable one is kept to a fixed number of
+// significant digits, in constant memory, and recording is lock-free so it can
+// sit on the request path of concurrent tests and load runs.
+//
+// Values are microseconds; anything above the highest trackable value is
+// clamped to it.
+public final class LatencyHistogram {
+    public static final long DEFAULT_HIGHEST_MICROS = 3_600_000_000L;
+    public static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+
+    // HdrHistogram's V2 cookies, with the word-size bits it sets for them
+    private static final int ENCODING_COOKIE = 0x1c849303 | 0x10;
+    private static final int COMPRESSED_ENCODING_COOKIE = 0x1c849304 | 0x10;
+
+    private final long highestTrackable;
+    private final int significantDigits;
+    private final int subBucketHalfCountMagnitude;
+    private final int subBucketHalfCount;
+    private final long subBucketMask;
+    private final int leadingZeroCountBase;
+    private final int bucketCount;
+    private final AtomicLongArray counts;
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final AtomicLong startTimeMillis = new AtomicLong(System.currentTimeMillis());
+
+    public LatencyHistogram() {
+        this(DEFAULT_HIGHEST_MICROS, DEFAULT_SIGNIFICANT_DIGITS);
+    }
+
+    public LatencyHistogram(long highestTrackableMicros, int significantDigits) {
+        if (significantDigits < 1 || significantDigits > 5) {
+            throw new IllegalArgumentException("significantDigits must be 1..5");
+        }
+        this.highestTrackable = highestTrackableMicros;
+        this.significantDigits = significantDigits;
+        long largestSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+        int subBucketCountMagnitude = (int) Math.ceil(Math.log(largestSingleUnitResolution) / Math.log(2));
+        subBucketHalfCountMagnitude = Math.max(subBucketCountMagnitude, 1) - 1;
+        int subBucketCount = 1 << (subBucketHalfCountMagnitude + 1);
+        subBucketHalfCount = subBucketCount / 2;
+        subBucketMask = subBucketCount - 1;
+        leadingZeroCountBase = 64 - subBucketHalfCountMagnitude - 1;
+
+        long smallestUntrackable = subBucketCount;
+        int buckets = 1;
+        while (smallestUntrackable <= highestTrackableMicros) {
+            if (smallestUntrackable > Long.MAX_VALUE / 2) {
+                buckets++;
+                break;
+            }
+            smallestUntrackable <<= 1;
+            buckets++;
+        }
+        bucketCount = buckets;
+        counts = new AtomicLongArray((bucketCount + 1) * subBucketHalfCount);
+    }
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    public void record(long micros) {
+        long value = Math.min(Math.max(micros, 0), highestTrackable);
+        counts.incrementAndGet(countsIndex(value));
+        totalCount.increment();
+        totalMicros.add(value);
+        max.accumulate(value);
+        min.accumulate(value);
+    }
+
+    public long count() {
+        return totalCount.sum();
+    }
+
+    public long maxMicros() {
+        return count() == 0 ? 0 : highestEquivalentValue(max.get());
+    }
+
+    public long minMicros() {
+        return count() == 0 ? 0 : min.get();
+    }
+
+    public double meanMicros() {
+        long count = count();
+        return count == 0 ? 0 : totalMicros.sum() / (double) count;
+    }
+
+    public long startTimeMillis() {
+        return startTimeMillis.get();
+    }
+
+    // highest value (to the histogram's precision) at or below which the given percentage of samples fall
+    public long valueAtPercentile(double percentile) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        double requested = Math.min(Math.max(percentile, 0), 100);
+        long countAtPercentile = Math.max(1, (long) (requested / 100.0 * total + 0.5));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(valueFromIndex(i)), maxMicros());
+            }
+        }
+        return maxMicros();
+    }
+
+    public double stdDeviationMicros() {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        double mean = meanMicros();
+        double squares = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            long count = counts.get(i);
+            if (count > 0) {
+                double deviation = medianEquivalentValue(valueFromIndex(i)) - mean;
+                squares += deviation * deviation * count;
+            }
+        }
+        return Math.sqrt(squares / total);
+    }
+
+    // adds every sample of the other histogram (same layout) to this one
+    public void add(LatencyHistogram other) {
+        if (other.counts.length() != counts.length()) {
+            throw new IllegalArgumentException("Histograms have different layouts");
+        }
+        for (int i = 0; i < other.counts.length(); i++) {
+            long count = other.counts.get(i);
+            if (count > 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.add(other.totalCount.sum());
+        totalMicros.add(other.totalMicros.sum());
+        if (other.count() > 0) {
+            max.accumulate(other.max.get());
+            min.accumulate(other.min.get());
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalMicros.reset();
+        max.reset();
+        min.reset();
+        startTimeMillis.set(System.currentTimeMillis());
+    }
+
+    // Writes the distribution in HdrHistogram's percentile-distribution text
+    // format (as printed by Histogram.outputPercentileDistribution), which the
+    // HdrHistogram plotter and its tooling read; values are in milliseconds.
+    public void outputPercentileDistribution(PrintStream out, int ticksPerHalfDistance) {
+        out.println("       Value     Percentile TotalCount 1/(1-Percentile)");
+        out.println();
+        long total = count();
+        if (total > 0) {
+            double level = 0;
+            double halfDistance = 50;
+            while (true) {
+                long value = valueAtPercentile(level);
+                long countAtValue = countAtOrBelow(value);
+                double percentileAtValue = countAtValue * 100.0 / total;
+                if (percentileAtValue >= 100 || level >= 100) {
+                    out.printf("%12.3f %2.12f %10d%n", maxMicros() / 1000.0, 1.0, total);
+                    break;
+                }
+                out.printf("%12.3f %2.12f %10d %14.2f%n", value / 1000.0, level / 100, countAtValue,
+                        1 / (1 - level / 100));
+                level += halfDistance / ticksPerHalfDistance;
+                if (level >= 100 - halfDistance) {
+                    halfDistance /= 2;
+                }
+            }
+        }
+        out.printf("#[Mean    = %12.3f, StdDeviation   = %12.3f]%n", meanMicros() / 1000.0, stdDeviationMicros() / 1000.0);
+        out.printf("#[Max     = %12.3f, Total count    = %12d]%n", maxMicros() / 1000.0, total);
+        out.printf("#[Buckets = %12d, SubBuckets     = %12d]%n", bucketCount, subBucketHalfCount * 2);
+    }
+
+    // HdrHistogram's V2 compressed encoding, as Histogram.encodeIntoCompressedByteBuffer
+    // writes it and HistogramLogReader reads it. The counts array already has
+    // HdrHistogram's layout for a lowest discernible value of 1, so it is
+    // written as it is: zigzag LEB128 counts with runs of zeros as negative
+    // lengths, behind a 40-byte header, deflated behind an 8-byte header.
+    public byte[] encodeCompressed() {
+        int countsLimit = (count() == 0 ? 0 : countsIndex(max.get())) + 1;
+        ByteBuffer buffer = ByteBuffer.allocate(40 + 9 * countsLimit);
+        buffer.putInt(ENCODING_COOKIE);
+        buffer.putInt(0);
+        buffer.putInt(0);
+        buffer.putInt(significantDigits);
+        buffer.putLong(1);
+        buffer.putLong(highestTrackable);
+        buffer.putDouble(1.0);
+        int index = 0;
+        while (index < countsLimit) {
+            long count = counts.get(index++);
+            int zeros = 0;
+            if (count == 0) {
+                zeros = 1;
+                while (index < countsLimit && counts.get(index) == 0) {
+                    zeros++;
+                    index++;
+                }
+            }
+            putZigZag(buffer, zeros > 1 ? -zeros : count);
+        }
+        buffer.putInt(4, buffer.position() - 40);
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        deflater.setInput(buffer.array(), 0, buffer.position());
+        deflater.finish();
+        // zlib's deflateBound, so one call always finishes
+        int size = buffer.position();
+        byte[] compressed = new byte[8 + size + (size >> 12) + (size >> 14) + 64];
+        int length = deflater.deflate(compressed, 8, compressed.length - 8);
+        deflater.end();
+        ByteBuffer.wrap(compressed).putInt(COMPRESSED_ENCODING_COOKIE).putInt(length);
+        return Arrays.copyOf(compressed, 8 + length);
+    }
+
+    private static void putZigZag(ByteBuffer buffer, long value) {
+        long bits = (value << 1) ^ (value >> 63);
+        // 7 bits a byte, except the ninth, which takes the last 8
+        for (int i = 0; i < 8 && (bits >>> 7) != 0; i++) {
+            buffer.put((byte) ((bits & 0x7F) | 0x80));
+            bits >>>= 7;
+        }
+        buffer.put((byte) bits);
+    }
+
+    int significantDigits() {
+        return significantDigits;
+    }
+
+    private long countAtOrBelow(long value) {
+        long cumulative = 0;
+        int last = countsIndex(Math.min(value, highestTrackable));
+        for (int i = 0; i <= last; i++) {
+            cumulative += counts.get(i);
+        }
+        return cumulative;
+    }
+
+    private int countsIndex(long value) {
+        int bucketIndex = leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + (subBucketIndex - subBucketHalfCount);
+    }
+
+    private long valueFromIndex(int index) {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        if (bucketIndex < 0) {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        return ((long) subBucketIndex) << bucketIndex;
+    }
+
+    private long sizeOfEquivalentRange(long value) {
+        int bucketIndex = leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        int adjustedBucket = subBucketIndex >= subBucketHalfCount * 2 ? bucketIndex + 1 : bucketIndex;
+        return 1L << adjustedBucket;
+    }
+
+    private long lowestEquivalentValue(long value) {
+        int bucketIndex = leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((long) subBucketIndex) << bucketIndex;
+    }
+
+    private long highestEquivalentValue(long value) {
+        return lowestEquivalentValue(value) + sizeOfEquivalentRange(value) - 1;
+    }
+
+    private double medianEquivalentValue(long value) {
+        return lowestEquivalentValue(value) + sizeOfEquivalentRange(value) / 2.0;
+    }
+}
@@ -0,0 +1,103 @@
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldReportPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros);
+        }
+        assertEquals(10_000, histogram.count());
+        assertEquals(5_000, histogram.valueAtPercentile(50), 5);
+        assertEquals(9_900, histogram.valueAtPercentile(99), 10);
+        assertEquals(9_990, histogram.valueAtPercentile(99.9), 10);
+        assertEquals(10_000, histogram.maxMicros(), 10);
+        assertEquals(5_000.5, histogram.meanMicros(), 0.001);
+    }
+
+    @Test
+    public void shouldKeepOutliersVisibleInTail() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 999; i++) {
+            histogram.recordNanos(1_000_000);
+        }
+        histogram.recordNanos(2_000_000_000L);
+        assertEquals(1_000, histogram.valueAtPercentile(99), 1);
+        assertEquals(2_000_000, histogram.maxMicros(), 2_000);
+    }
+
+    @Test
+    public void shouldExportHdrPercentileDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 100; micros <= 1_000; micros++) {
+            histogram.record(micros);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        histogram.outputPercentileDistribution(new PrintStream(bytes), 5);
+        String text = bytes.toString();
+        assertTrue(text.startsWith("       Value     Percentile TotalCount 1/(1-Percentile)"));
+        assertTrue(text.contains("#[Max     =        1.000, Total count    =          901]"));
+    }
+
+    @Test
+    public void shouldEncodeInHdrHistogramsCompressedFormat() throws DataFormatException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1_000; micros++) {
+            histogram.record(micros);
+        }
+        ByteBuffer compressed = ByteBuffer.wrap(histogram.encodeCompressed());
+        assertEquals(0x1c849314, compressed.getInt());
+        int length = compressed.getInt();
+        assertEquals(compressed.remaining(), length);
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressed.array(), 8, length);
+        byte[] plain = new byte[64 * 1024];
+        ByteBuffer buffer = ByteBuffer.wrap(plain, 0, inflater.inflate(plain));
+        assertEquals(0x1c849313, buffer.getInt());
+        assertEquals(buffer.limit() - 40, buffer.getInt());
+        assertEquals(0, buffer.getInt());
+        assertEquals(3, buffer.getInt());
+        assertEquals(1, buffer.getLong());
+        assertEquals(LatencyHistogram.DEFAULT_HIGHEST_MICROS, buffer.getLong());
+        assertEquals(1.0, buffer.getDouble());
+        // values below 2048 have an index each: nothing at 0, then one each up to 1000
+        List<Long> counts = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            long bits = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get();
+                bits |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            counts.add((bits >>> 1) ^ -(bits & 1));
+        }
+        assertEquals(1_001, counts.size());
+        assertEquals(0, counts.get(0));
+        assertTrue(counts.subList(1, counts.size()).stream().allMatch(count -> count == 1));
+    }
+
+    @Test
+    public void shouldTemplateIdsInRoutes() {
+        assertEquals("GET /todos/{id}", Routes.template("GET", URI.create("http://localhost:4567/todos/17")));
+        assertEquals("DELETE /todos/{id}/categories/{id}",
+                Routes.template("DELETE", URI.create("http://localhost:4567/todos/3/categories/-1")));
+        assertEquals("GET /todos?doneStatus={value}",
+                Routes.template("GET", URI.create("http://localhost:4567/todos?doneStatus=false")));
+        assertEquals("GET /", Routes.template("GET", URI.create("http://localhost:4567/")));
+    }
+}
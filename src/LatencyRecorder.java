@@ -0,0 +1,138 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-route latency histograms for every request sent through HttpTransport.
+//
+// The global recorder is registered with HttpTransport and prints a summary
+// table when the JVM exits. Set -Dlatency.exportDir=<dir> to also write two
+// files per route there: an HdrHistogram log (.hlog, one interval covering
+// the run, readable by HistogramLogReader and HistogramLogProcessor) and its
+// percentile distribution (.hgrm, for the plotter). Values are microseconds,
+// so the log's Interval_Max column is in milliseconds. Set
+// -Dlatency.record=false to turn recording off.
+public final class LatencyRecorder implements HttpTransport.Listener {
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("latency.record", "true"));
+    public static final String EXPORT_DIR = System.getProperty("latency.exportDir");
+
+    private static final LatencyRecorder global = new LatencyRecorder();
+    private static volatile boolean hookInstalled;
+
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+    public static LatencyRecorder global() {
+        return global;
+    }
+
+    // prints (and exports, if configured) the global recorder at JVM exit
+    static synchronized void installShutdownHook() {
+        if (hookInstalled) {
+            return;
+        }
+        hookInstalled = true;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (global.routes.isEmpty()) {
+                return;
+            }
+            // the summaries of the recorders' hooks run concurrently; don't interleave them
+            synchronized (System.out) {
+                global.printSummary(System.out);
+            }
+            if (EXPORT_DIR != null) {
+                try {
+                    global.export(Paths.get(EXPORT_DIR));
+                } catch (IOException e) {
+                    System.err.println("Could not export latency histograms: " + e.getMessage());
+                }
+            }
+        }, "latency-summary"));
+    }
+
+    @Override
+    public void onExchange(Exchange exchange) {
+        record(exchange.route(), exchange.latencyNanos(), exchange.failure() != null);
+    }
+
+    public void record(String route, long latencyNanos, boolean failed) {
+        Route entry = routes.computeIfAbsent(route, r -> new Route());
+        entry.histogram.recordNanos(latencyNanos);
+        if (failed) {
+            entry.failures.increment();
+        }
+    }
+
+    public LatencyHistogram histogram(String route) {
+        Route entry = routes.get(route);
+        return entry == null ? null : entry.histogram;
+    }
+
+    public Map<String, LatencyHistogram> histograms() {
+        Map<String, LatencyHistogram> histograms = new TreeMap<>();
+        routes.forEach((route, entry) -> histograms.put(route, entry.histogram));
+        return histograms;
+    }
+
+    public void reset() {
+        routes.clear();
+    }
+
+    public void printSummary(PrintStream out) {
+        out.printf("%-44s %8s %6s %9s %9s %9s %9s %9s%n",
+                "route", "count", "fail", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Route> entry : new TreeMap<>(routes).entrySet()) {
+            LatencyHistogram histogram = entry.getValue().histogram;
+            out.printf("%-44s %8d %6d %9.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), histogram.count(),
+                    entry.getValue().failures.sum(),
+                    histogram.valueAtPercentile(50) / 1000.0, histogram.valueAtPercentile(90) / 1000.0,
+                    histogram.valueAtPercentile(99) / 1000.0, histogram.valueAtPercentile(99.9) / 1000.0,
+                    histogram.maxMicros() / 1000.0);
+        }
+    }
+
+    // <METHOD>_<path>.hlog and .hgrm per route, e.g. POST_todos_{id}_categories.hlog
+    public void export(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, LatencyHistogram> entry : histograms().entrySet()) {
+            String name = fileName(entry.getKey());
+            LatencyHistogram histogram = entry.getValue();
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hlog")), false, "UTF-8")) {
+                writeLog(out, entry.getKey(), histogram, now);
+            }
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hgrm")), false, "UTF-8")) {
+                out.println("# " + entry.getKey());
+                histogram.outputPercentileDistribution(out, 5);
+            }
+        }
+    }
+
+    // the layout HistogramLogWriter writes, with the whole run as one interval
+    static void writeLog(PrintStream out, String route, LatencyHistogram histogram, long endMillis) {
+        long start = histogram.startTimeMillis();
+        out.println("#[Histogram log format version 1.3]");
+        out.println("# " + route + ", values in microseconds");
+        out.printf(Locale.US, "#[StartTime: %.3f (seconds since epoch), %s]%n", start / 1000.0, new Date(start));
+        out.println("\"StartTimestamp\",\"Interval_Length\",\"Interval_Max\",\"Interval_Compressed_Histogram\"");
+        out.printf(Locale.US, "%.3f,%.3f,%.3f,%s%n", 0.0, (endMillis - start) / 1000.0, histogram.maxMicros() / 1000.0,
+                Base64.getEncoder().encodeToString(histogram.encodeCompressed()));
+    }
+
+    static String fileName(String route) {
+        String name = route.replace(' ', '_').replace('/', '_').replace('?', '_').replace('&', '_').replace('=', '_');
+        return name.replaceAll("_+", "_").replaceAll("_$", "");
+    }
+
+    private static final class Route {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final LongAdder failures = new LongAdder();
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Ids of entities a load run created and has not deleted yet, kept in a
+// fixed ring so picking a random one is lock-free. pick() and take() scan
+// from a random slot to the next id: one step while the ring is full, up to
+// the whole capacity once deletes have emptied most of it. When the ring is
+// full the oldest ids are forgotten (they stay on the server).
+//
+// The last `capacity` ids handed out by take() are remembered too, so a 404
+// on an id picked just before a concurrent delete took it can be recognised.
+public final class LiveIds {
+    private final AtomicReferenceArray<String> slots;
+    private final AtomicLong next = new AtomicLong();
+    private final AtomicReferenceArray<String> takenSlots;
+    private final AtomicLong nextTaken = new AtomicLong();
+    private final Set<String> taken = ConcurrentHashMap.newKeySet();
+
+    public LiveIds(int capacity) {
+        slots = new AtomicReferenceArray<>(capacity);
+        takenSlots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(String id) {
+        slots.set((int) (next.getAndIncrement() % slots.length()), id);
+    }
+
+    // a random live id, or null when none is known
+    public String pick() {
+        int length = slots.length();
+        int start = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; i++) {
+            String id = slots.get((start + i) % length);
+            if (id != null) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    // removes and returns a random live id, for deletes
+    public String take() {
+        int length = slots.length();
+        int start = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; i++) {
+            int slot = (start + i) % length;
+            String id = slots.get(slot);
+            if (id != null && slots.compareAndSet(slot, id, null)) {
+                remember(id);
+                return id;
+            }
+        }
+        return null;
+    }
+
+    // whether take() handed this id out recently
+    public boolean wasTaken(String id) {
+        return taken.contains(id);
+    }
+
+    private void remember(String id) {
+        taken.add(id);
+        String forgotten = takenSlots.getAndSet((int) (nextTaken.getAndIncrement() % takenSlots.length()), id);
+        if (forgotten != null) {
+            taken.remove(forgotten);
+        }
+    }
+}
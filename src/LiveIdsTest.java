@@ -0,0 +1,53 @@
+import org.junit.jupiter.api.*;
+
+import java.net.URI;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LiveIdsTest {
+
+    @Test
+    public void shouldRememberRecentlyTakenIds() {
+        LiveIds ids = new LiveIds(2);
+        ids.add("1");
+        ids.add("2");
+        String first = ids.take();
+        String second = ids.take();
+        assertNull(ids.take());
+        assertTrue(ids.wasTaken(first));
+        assertTrue(ids.wasTaken(second));
+        assertFalse(ids.wasTaken("3"));
+
+        // only the last `capacity` takes are remembered
+        ids.add("3");
+        assertEquals("3", ids.take());
+        assertFalse(ids.wasTaken(first));
+        assertTrue(ids.wasTaken("3"));
+    }
+
+    @Test
+    public void shouldTreatA404OnATakenIdAsALostRace() {
+        ApiTarget target = new ApiTarget("ids", URI.create("http://localhost:1"));
+        Map<String, LiveIds> ids = Map.of("todos", new LiveIds(4), "projects", new LiveIds(4),
+                "categories", new LiveIds(4));
+        ids.get("todos").add("7");
+        ids.get("categories").add("3");
+
+        LoadOperation.Call get = LoadOperation.GET_TODO.call(target, ids);
+        LoadOperation.Call link = LoadOperation.LINK_TODO_CATEGORY.call(target, ids);
+        assertEquals("7", get.id());
+        assertEquals("3", link.linkedId());
+        assertFalse(LoadOperation.GET_TODO.lostRace(get, 404, ids));
+
+        // a delete takes both ids after they were picked
+        LoadOperation.Call delete = LoadOperation.DELETE_TODO.call(target, ids);
+        assertEquals("7", delete.id());
+        assertEquals("3", LoadOperation.DELETE_CATEGORY.call(target, ids).id());
+        assertTrue(LoadOperation.GET_TODO.lostRace(get, 404, ids));
+        assertFalse(LoadOperation.GET_TODO.lostRace(get, 500, ids));
+        assertTrue(LoadOperation.LINK_TODO_CATEGORY.lostRace(link, 404, ids));
+        // the delete owned its id, so its own 404 is still an error
+        assertFalse(LoadOperation.DELETE_TODO.lostRace(delete, 404, ids));
+    }
+}
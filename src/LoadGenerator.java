@@ -0,0 +1,216 @@
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Drives the todo manager with the suite's request shapes for a fixed duration.
+//
+//   java LoadGenerator --rps 500 --duration 60s        open model, constant arrival rate
+//   java LoadGenerator --users 32 --duration 60s       closed model, N looping users
+//
+// Other options: --target <name|url>, --mix "route=weight,...", --max-in-flight N,
+// --warmup auto (replay the mix until latency is steady before measuring),
+// --results <file> (append every request to a ResultStore for soak runs; read
+// it back with ResultReader), --metrics-port N (serve live Prometheus metrics),
+// --snapshots <file> with --snapshot-every 10s (append JSON metric snapshots;
+// see MetricsExporter).
+//
+// In the open model every request has an intended start time on a fixed
+// schedule and latency is measured from that time, not from when the client
+// got round to sending it, so a stalled server shows up as latency instead of
+// quietly lowering the request rate (coordinated omission).
+public final class LoadGenerator {
+    private static final int PRIMED_IDS = 20;
+
+    private final ApiTarget target;
+    private final LoadMix mix;
+    private final Map<String, LiveIds> ids = new LinkedHashMap<>();
+    private volatile LoadStats stats = new LoadStats();
+    private ResultStore results;
+
+    public LoadGenerator(ApiTarget target, LoadMix mix) {
+        this.target = target;
+        this.mix = mix;
+        ids.put("todos", new LiveIds(4096));
+        ids.put("projects", new LiveIds(4096));
+        ids.put("categories", new LiveIds(4096));
+    }
+
+    public static void main(String[] args) throws Exception {
+        CliArgs options = CliArgs.parse(args);
+        ApiTarget target = options.has("target") ? ApiTargets.get(options.get("target", "")) : ApiTargets.current();
+        LoadMix mix = LoadMix.parse(options.get("mix", LoadMix.DEFAULT));
+        Duration duration = options.getDuration("duration", Duration.ofSeconds(30));
+        MetricsExporter metrics = MetricsExporter.fromOptions(options);
+        try {
+            if (options.get("warmup", "off").equalsIgnoreCase("auto")) {
+                System.out.println("warm-up: " + new WarmUp(target).run());
+                LatencyRecorder.global().reset();
+            }
+            LoadGenerator generator = new LoadGenerator(target, mix);
+            if (options.has("results")) {
+                generator.recordTo(new ResultStore(Paths.get(options.get("results", ""))));
+            }
+            generator.prime();
+            long start = System.nanoTime();
+            if (options.has("users")) {
+                int users = options.getInt("users", 1);
+                System.out.printf("Closed model: %d users for %s against %s%n", users, duration, target);
+                generator.runClosed(users, duration);
+            } else {
+                double rps = options.getDouble("rps", 100);
+                System.out.printf("Open model: %.0f req/s for %s against %s%n", rps, duration, target);
+                generator.runOpen(rps, duration, options.getInt("max-in-flight", 1000));
+            }
+            generator.stats().print(System.out, (System.nanoTime() - start) / 1e9);
+            if (generator.results != null) {
+                generator.results.close();
+                System.out.printf("%d results in %s%n", generator.results.size(), generator.results.file());
+            }
+        } finally {
+            if (metrics != null) {
+                metrics.close();
+            }
+            TodoManagerStub.stopShared();
+        }
+    }
+
+    public LoadStats stats() {
+        return stats;
+    }
+
+    // starts counting afresh, e.g. between the steps of a ramp; returns what was counted so far
+    public LoadStats resetStats() {
+        LoadStats previous = stats;
+        stats = new LoadStats();
+        return previous;
+    }
+
+    // also appends every measured request to the store; the caller closes it
+    public void recordTo(ResultStore store) {
+        this.results = store;
+    }
+
+    // creates a few of each entity so id-based operations have something to work on
+    public void prime() throws IOException, InterruptedException {
+        for (int i = 0; i < PRIMED_IDS; i++) {
+            for (String resource : ids.keySet()) {
+                LoadOperation create = LoadOperation.forRoute("POST /" + resource);
+                HttpResponse<String> response = HttpTransport.send(create.call(target, ids).request(),
+                        HttpResponse.BodyHandlers.ofString());
+                create.onResponse(response, ids);
+            }
+        }
+    }
+
+    public void runOpen(double requestsPerSecond, Duration duration, int maxInFlight) throws InterruptedException {
+        long interval = (long) (1_000_000_000L / requestsPerSecond);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        AtomicInteger inFlight = new AtomicInteger();
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= maxInFlight) {
+                stats.dropped();
+                continue;
+            }
+            LoadOperation operation = mix.next();
+            LoadOperation.Call call = operation.call(target, ids);
+            if (call == null) {
+                operation = operation.fallback();
+                call = operation.call(target, ids);
+            }
+            LoadOperation issued = operation;
+            LoadOperation.Call sent = call;
+            CountingBodyHandler body = new CountingBodyHandler();
+            inFlight.incrementAndGet();
+            HttpTransport.sendAsync(call.request(), body)
+                    .whenComplete((response, failure) -> {
+                        inFlight.decrementAndGet();
+                        complete(issued, sent, response, body.bytes(), failure, System.nanoTime() - intended);
+                    });
+        }
+        long drainDeadline = System.nanoTime() + HttpTransport.REQUEST_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    public void runClosed(int users, Duration duration) throws InterruptedException {
+        long end = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(users, HttpTransport.daemonThreads("load-user"));
+        CountDownLatch done = new CountDownLatch(users);
+        for (int u = 0; u < users; u++) {
+            executor.execute(() -> {
+                try {
+                    while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                        sendNext();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        executor.shutdownNow();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    // sends one request from the mix and waits for it; returns its latency in nanoseconds
+    public long sendNext() throws InterruptedException {
+        LoadOperation operation = mix.next();
+        LoadOperation.Call call = operation.call(target, ids);
+        if (call == null) {
+            operation = operation.fallback();
+            call = operation.call(target, ids);
+        }
+        CountingBodyHandler body = new CountingBodyHandler();
+        long start = System.nanoTime();
+        HttpResponse<String> response = null;
+        Throwable failure = null;
+        try {
+            response = HttpTransport.send(call.request(), body);
+        } catch (IOException e) {
+            failure = e;
+        }
+        long latency = System.nanoTime() - start;
+        complete(operation, call, response, body.bytes(), failure, latency);
+        return latency;
+    }
+
+    private void complete(LoadOperation operation, LoadOperation.Call call, HttpResponse<String> response, long bytes,
+                          Throwable failure, long latencyNanos) {
+        // a 404 from racing the run's own deletes is expected under a mix with deletes
+        boolean error = failure != null || response.statusCode() != operation.expectedStatus
+                && !operation.lostRace(call, response.statusCode(), ids);
+        stats.record(operation.route, latencyNanos, error);
+        if (results != null) {
+            results.append(operation.route, response == null ? -1 : response.statusCode(), latencyNanos,
+                    response == null ? 0 : bytes, error);
+        }
+        if (response != null) {
+            try {
+                operation.onResponse(response, ids);
+            } catch (IOException e) {
+                // the request is already recorded; the run just loses track of this id
+            }
+        }
+    }
+}
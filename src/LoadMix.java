@@ -0,0 +1,67 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Weighted choice of operations, written as "route=weight,..." e.g.
+//   "GET /todos/{id}=70,POST /todos=20,POST /todos/{id}/categories=10"
+public final class LoadMix {
+    // covers every shape the suite sends, read-heavy like a typical client
+    public static final String DEFAULT = "GET /todos=10,GET /todos/{id}=20,POST /todos=10,PUT /todos/{id}=5,"
+            + "POST /todos/{id}/categories=5,DELETE /todos/{id}=5,GET /projects=5,GET /projects/{id}=5,"
+            + "POST /projects=5,PUT /projects/{id}=3,POST /projects/{id}/tasks=3,DELETE /projects/{id}=3,"
+            + "GET /categories=5,GET /categories/{id}=5,POST /categories=5,PUT /categories/{id}=3,"
+            + "DELETE /categories/{id}=3";
+
+    private final List<LoadOperation> operations = new ArrayList<>();
+    private final List<Integer> cumulative = new ArrayList<>();
+    private int total;
+
+    public static LoadMix parse(String spec) {
+        LoadMix mix = new LoadMix();
+        for (String entry : spec.split(",")) {
+            int eq = entry.lastIndexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected route=weight, got '" + entry + "'");
+            }
+            mix.add(LoadOperation.forRoute(entry.substring(0, eq)), Integer.parseInt(entry.substring(eq + 1).trim()));
+        }
+        return mix;
+    }
+
+    public LoadMix add(LoadOperation operation, int weight) {
+        if (weight > 0) {
+            total += weight;
+            operations.add(operation);
+            cumulative.add(total);
+        }
+        return this;
+    }
+
+    public List<LoadOperation> operations() {
+        return operations;
+    }
+
+    public LoadOperation next() {
+        int ticket = ThreadLocalRandom.current().nextInt(total);
+        for (int i = 0; i < cumulative.size(); i++) {
+            if (ticket < cumulative.get(i)) {
+                return operations.get(i);
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        int previous = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(operations.get(i).route).append('=').append(cumulative.get(i) - previous);
+            previous = cumulative.get(i);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,129 @@
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// One request shape from the suite, as used by the load tools. Operations on
+// a single entity work on ids the run created itself (see LiveIds). Another
+// request of the run may delete an id between it being picked and the
+// request reaching the server; the 404 that follows is a lost race, not an
+// error (see lostRace()).
+public enum LoadOperation {
+    GET_TODOS("GET /todos", "todos", 200, null),
+    GET_TODO("GET /todos/{id}", "todos", 200, null),
+    CREATE_TODO("POST /todos", "todos", 201, RequestShapes.TODO),
+    UPDATE_TODO("PUT /todos/{id}", "todos", 200, RequestShapes.TODO_UPDATE),
+    LINK_TODO_CATEGORY("POST /todos/{id}/categories", "todos", 201, RequestShapes.LINK),
+    DELETE_TODO("DELETE /todos/{id}", "todos", 200, null),
+    GET_PROJECTS("GET /projects", "projects", 200, null),
+    GET_PROJECT("GET /projects/{id}", "projects", 200, null),
+    CREATE_PROJECT("POST /projects", "projects", 201, RequestShapes.PROJECT),
+    UPDATE_PROJECT("PUT /projects/{id}", "projects", 200, RequestShapes.PROJECT_UPDATE),
+    LINK_PROJECT_TASK("POST /projects/{id}/tasks", "projects", 201, RequestShapes.LINK),
+    DELETE_PROJECT("DELETE /projects/{id}", "projects", 200, null),
+    GET_CATEGORIES("GET /categories", "categories", 200, null),
+    GET_CATEGORY("GET /categories/{id}", "categories", 200, null),
+    CREATE_CATEGORY("POST /categories", "categories", 201, RequestShapes.CATEGORY),
+    UPDATE_CATEGORY("PUT /categories/{id}", "categories", 200, RequestShapes.CATEGORY_UPDATE),
+    DELETE_CATEGORY("DELETE /categories/{id}", "categories", 200, null);
+
+    // per target, one template per operation (indexed by ordinal)
+    private static final Map<ApiTarget, RequestTemplate[]> templates = new ConcurrentHashMap<>();
+
+    public final String route;
+    public final String resource;
+    public final int expectedStatus;
+    private final String body;
+
+    LoadOperation(String route, String resource, int expectedStatus, String body) {
+        this.route = route;
+        this.resource = resource;
+        this.expectedStatus = expectedStatus;
+        this.body = body;
+    }
+
+    // a built request and the live ids it refers to (null when it has none)
+    public record Call(HttpRequest request, String id, String linkedId) {
+    }
+
+    public static LoadOperation forRoute(String route) {
+        for (LoadOperation operation : values()) {
+            if (operation.route.equalsIgnoreCase(route.trim())) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown route '" + route + "'");
+    }
+
+    public boolean creates() {
+        return route.startsWith("POST") && !route.contains("{id}");
+    }
+
+    // what to send instead when request() has no id to work with: create one
+    public LoadOperation fallback() {
+        return forRoute("POST /" + resource);
+    }
+
+    // Builds the request, or returns null when it needs an id the run does
+    // not have yet; ids maps "todos"/"projects"/"categories" to live ids.
+    // Requests come from pre-built templates, so sending the same shape again
+    // allocates little beyond what the id demands (see RequestTemplate).
+    public Call call(ApiTarget target, Map<String, LiveIds> ids) {
+        RequestTemplate template = templates.computeIfAbsent(target, LoadOperation::templates)[ordinal()];
+        if (!route.contains("{id}")) {
+            return new Call(template.request(), null, null);
+        }
+        String id = route.startsWith("DELETE") ? ids.get(resource).take() : ids.get(resource).pick();
+        if (id == null) {
+            return null;
+        }
+        String linkedResource = linkedResource();
+        if (linkedResource == null) {
+            return new Call(template.request(id), id, null);
+        }
+        String linkedId = ids.get(linkedResource).pick();
+        return linkedId == null ? null : new Call(template.request(id, linkedId), id, linkedId);
+    }
+
+    // A 404 on an id that a delete of this run has taken since: the entity
+    // was picked while live and deleted before this request got to it.
+    // A DELETE's own id is exclusive to it, so its 404s stay errors.
+    public boolean lostRace(Call call, int status, Map<String, LiveIds> ids) {
+        if (status != 404 || call.id() == null || route.startsWith("DELETE")) {
+            return false;
+        }
+        return ids.get(resource).wasTaken(call.id())
+                || call.linkedId() != null && ids.get(linkedResource()).wasTaken(call.linkedId());
+    }
+
+    // the resource whose id a link posts in its body
+    private String linkedResource() {
+        switch (this) {
+            case LINK_TODO_CATEGORY:
+                return "categories";
+            case LINK_PROJECT_TASK:
+                return "todos";
+            default:
+                return null;
+        }
+    }
+
+    // remembers the id of anything this operation created
+    public void onResponse(HttpResponse<String> response, Map<String, LiveIds> ids) throws IOException {
+        if (creates() && response.statusCode() == expectedStatus) {
+            ids.get(resource).add(ResponseJson.id(response.body()));
+        }
+    }
+
+    private static RequestTemplate[] templates(ApiTarget target) {
+        LoadOperation[] operations = values();
+        RequestTemplate[] templates = new RequestTemplate[operations.length];
+        for (LoadOperation operation : operations) {
+            int space = operation.route.indexOf(' ');
+            templates[operation.ordinal()] = RequestTemplate.of(target, operation.route.substring(0, space),
+                    operation.route.substring(space + 1), operation.body);
+        }
+        return templates;
+    }
+}
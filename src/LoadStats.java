@@ -0,0 +1,86 @@
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-route throughput, error counts and latency distribution for a load run.
+// Latencies here are the generator's own (from the intended start time in the
+// open model), so they can differ from what LatencyRecorder sees at the transport.
+public final class LoadStats {
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    public void record(String route, long latencyNanos, boolean error) {
+        Endpoint endpoint = endpoints.computeIfAbsent(route, r -> new Endpoint());
+        endpoint.requests.increment();
+        endpoint.latency.recordNanos(latencyNanos);
+        if (error) {
+            endpoint.errors.increment();
+        }
+    }
+
+    // arrivals the generator skipped because the in-flight cap was reached
+    public void dropped() {
+        dropped.increment();
+    }
+
+    public long droppedArrivals() {
+        return dropped.sum();
+    }
+
+    public long requests() {
+        long total = 0;
+        for (Endpoint endpoint : endpoints.values()) {
+            total += endpoint.requests.sum();
+        }
+        return total;
+    }
+
+    public long errors() {
+        long total = 0;
+        for (Endpoint endpoint : endpoints.values()) {
+            total += endpoint.errors.sum();
+        }
+        return total;
+    }
+
+    public LatencyHistogram latency(String route) {
+        Endpoint endpoint = endpoints.get(route);
+        return endpoint == null ? null : endpoint.latency;
+    }
+
+    // every route merged, e.g. for a run-wide p99
+    public LatencyHistogram overallLatency() {
+        LatencyHistogram overall = new LatencyHistogram();
+        for (Endpoint endpoint : endpoints.values()) {
+            overall.add(endpoint.latency);
+        }
+        return overall;
+    }
+
+    public void print(PrintStream out, double seconds) {
+        out.printf("%-32s %10s %8s %10s %9s %9s %9s %9s %9s%n", "route", "requests", "errors", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+            Endpoint endpoint = entry.getValue();
+            long requests = endpoint.requests.sum();
+            LatencyHistogram latency = endpoint.latency;
+            out.printf("%-32s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), requests,
+                    endpoint.errors.sum(), requests / seconds,
+                    latency.valueAtPercentile(50) / 1000.0, latency.valueAtPercentile(90) / 1000.0,
+                    latency.valueAtPercentile(99) / 1000.0, latency.valueAtPercentile(99.9) / 1000.0,
+                    latency.maxMicros() / 1000.0);
+        }
+        out.printf("%-32s %10d %8d %10.1f%n", "total", requests(), errors(), requests() / seconds);
+        if (dropped.sum() > 0) {
+            out.printf("dropped %d arrivals at the in-flight cap (client saturated)%n", dropped.sum());
+        }
+    }
+
+    private static final class Endpoint {
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+    }
+}
@@ -0,0 +1,146 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Serves TransportMetrics while a run is going and/or appends a JSON
+// snapshot of them to a file every N seconds (one object per line).
+//
+//   GET http://localhost:<port>/metrics    Prometheus text format
+//
+// For the test suite it is switched on with system properties, which make
+// HttpTransport register it for the whole JVM:
+//   -Dmetrics.port=9464                (0 for an ephemeral port; printed at start)
+//   -Dmetrics.snapshotFile=metrics.jsonl
+//   -Dmetrics.snapshotSeconds=10
+// The load tools take --metrics-port, --snapshots and --snapshot-every instead.
+public final class MetricsExporter implements AutoCloseable {
+    public static final int PORT = Integer.getInteger("metrics.port", -1);
+    public static final String SNAPSHOT_FILE = System.getProperty("metrics.snapshotFile");
+    public static final Duration SNAPSHOT_INTERVAL = Duration.ofSeconds(Long.getLong("metrics.snapshotSeconds", 10));
+
+    private final TransportMetrics metrics;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ScheduledExecutorService scheduler;
+    private BufferedWriter snapshots;
+
+    public MetricsExporter(TransportMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // A registered exporter for a load tool's options, or null when none are given.
+    public static MetricsExporter fromOptions(CliArgs options) throws IOException {
+        if (!options.has("metrics-port") && !options.has("snapshots")) {
+            return null;
+        }
+        TransportMetrics metrics = new TransportMetrics();
+        HttpTransport.addListener(metrics);
+        MetricsExporter exporter = new MetricsExporter(metrics);
+        if (options.has("metrics-port")) {
+            exporter.serve(options.getInt("metrics-port", 0));
+            System.out.println("Metrics on http://localhost:" + exporter.port() + "/metrics");
+        }
+        if (options.has("snapshots")) {
+            exporter.snapshotTo(Path.of(options.get("snapshots", "")), options.getDuration("snapshot-every", SNAPSHOT_INTERVAL));
+        }
+        return exporter;
+    }
+
+    // registers an exporter for -Dmetrics.* with HttpTransport, closed at JVM exit
+    static void installFromProperties() {
+        TransportMetrics metrics = new TransportMetrics();
+        HttpTransport.addListener(metrics);
+        MetricsExporter exporter = new MetricsExporter(metrics);
+        try {
+            if (PORT >= 0) {
+                exporter.serve(PORT);
+                System.out.println("Metrics on http://localhost:" + exporter.port() + "/metrics");
+            }
+            if (SNAPSHOT_FILE != null) {
+                exporter.snapshotTo(Path.of(SNAPSHOT_FILE), SNAPSHOT_INTERVAL);
+            }
+        } catch (IOException e) {
+            System.err.println("Metrics export disabled: " + e.getMessage());
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(exporter::close, "metrics-exporter"));
+    }
+
+    public TransportMetrics metrics() {
+        return metrics;
+    }
+
+    // loopback only; dashboards scrape from the same machine
+    public synchronized void serve(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 16);
+        serverExecutor = Executors.newSingleThreadExecutor(HttpTransport.daemonThreads("metrics-server"));
+        server.setExecutor(serverExecutor);
+        server.createContext("/metrics", exchange -> respond(exchange, "text/plain; version=0.0.4; charset=utf-8",
+                metrics.prometheus()));
+        server.start();
+    }
+
+    public int port() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    public synchronized void snapshotTo(Path file, Duration every) throws IOException {
+        snapshots = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        scheduler = Executors.newSingleThreadScheduledExecutor(HttpTransport.daemonThreads("metrics-snapshots"));
+        long millis = every.toMillis();
+        scheduler.scheduleAtFixedRate(this::writeSnapshot, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    // stops serving and writes a last snapshot covering the end of the run
+    @Override
+    public synchronized void close() {
+        HttpTransport.removeListener(metrics);
+        if (server != null) {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+            server = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            writeSnapshot();
+            try {
+                snapshots.close();
+            } catch (IOException e) {
+                System.err.println("Could not close metrics snapshots: " + e.getMessage());
+            }
+            scheduler = null;
+        }
+    }
+
+    private synchronized void writeSnapshot() {
+        try {
+            metrics.snapshot(snapshots);
+            snapshots.newLine();
+            snapshots.flush();
+        } catch (IOException e) {
+            System.err.println("Could not write metrics snapshot: " + e.getMessage());
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+import java.io.File;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Minimal JMH-style harness: warm-up iterations, timed measurement iterations,
+// results consumed through a sink so the JIT cannot drop the work, and
+// allocation per operation from the JVM's per-thread allocation counters
+// (the same source JMH's gc profiler reads). Used by HarnessBenchmarks.
+//
+// B/op counts only the thread running the benchmark, which is all there is
+// to in-thread work like building a request or parsing a body. Allocation on
+// other threads is reported apart: "other B/op" for the rest of the client
+// (HttpClient's selector and executor threads) and "stub B/op" for threads
+// of an in-process TodoManagerStub, which is server work and not part of the
+// client's hot path. The split is only as accurate as "nothing else is
+// running", which is why benchmarks normally run in a forked JVM each.
+public final class MicroBenchmark {
+    // thread name prefix of the in-process server (see TodoManagerStub)
+    private static final String STUB_THREADS = "todo-stub";
+
+    private static final long BATCH_TARGET_NANOS = 10_000;
+    private static final double[] T_999 = {
+            636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+            4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850,
+            3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646};
+    private static volatile Object sink;
+
+    private final int warmupIterations;
+    private final int measureIterations;
+    private final Duration iterationTime;
+
+    public MicroBenchmark(int warmupIterations, int measureIterations, Duration iterationTime) {
+        this.warmupIterations = warmupIterations;
+        this.measureIterations = measureIterations;
+        this.iterationTime = iterationTime;
+    }
+
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    // bytesPerOp: the benchmark thread; otherBytesPerOp: other client threads; stubBytesPerOp: the in-process server
+    public record Result(String name, double opsPerSecond, double error, double bytesPerOp, double otherBytesPerOp,
+                         double stubBytesPerOp, long gcCount, long gcMillis) {
+        public static void printHeader(PrintStream out) {
+            out.printf("%-36s %14s %12s %12s %12s %12s %8s %8s%n", "benchmark", "ops/s", "error", "B/op", "other B/op",
+                    "stub B/op", "gc", "gc ms");
+        }
+
+        public void print(PrintStream out) {
+            out.printf("%-36s %14.1f %12.1f %12.1f %12.1f %12.1f %8d %8d%n", name, opsPerSecond, error, bytesPerOp,
+                    otherBytesPerOp, stubBytesPerOp, gcCount, gcMillis);
+        }
+    }
+
+    // keeps a result reachable so the work producing it is not optimised away
+    public static void consume(Object value) {
+        sink = value;
+    }
+
+    public Result run(String name, Operation operation) throws Exception {
+        long batch = calibrate(operation);
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(operation, batch);
+        }
+        double[] throughput = new double[measureIterations];
+        long totalOps = 0;
+        Map<Long, Allocation> allocatedBefore = allocatedBytes();
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        for (int i = 0; i < measureIterations; i++) {
+            long start = System.nanoTime();
+            long ops = iteration(operation, batch);
+            throughput[i] = ops / ((System.nanoTime() - start) / 1e9);
+            totalOps += ops;
+        }
+        long[] allocated = allocatedSince(allocatedBefore, Thread.currentThread().getId());
+        double ops = Math.max(totalOps, 1);
+        return new Result(name, mean(throughput), error(throughput), allocated[0] / ops, allocated[1] / ops,
+                allocated[2] / ops, gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+    }
+
+    // Runs "java <jvmOptions> <mainClass> <args>" with this JVM's classpath and
+    // options (jvmOptions come after them, so they win) and waits for it; the
+    // child prints its own results.
+    public static int fork(Class<?> mainClass, List<String> jvmOptions, List<String> args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass.getName());
+        command.addAll(args);
+        return new ProcessBuilder(command).inheritIO().start().waitFor();
+    }
+
+    private long iteration(Operation operation, long batch) throws Exception {
+        long end = System.nanoTime() + iterationTime.toNanos();
+        long ops = 0;
+        do {
+            for (long i = 0; i < batch; i++) {
+                consume(operation.run());
+            }
+            ops += batch;
+        } while (System.nanoTime() < end);
+        return ops;
+    }
+
+    // how many calls make up roughly 10 microseconds, so the clock is not read around every fast call
+    private static long calibrate(Operation operation) throws Exception {
+        long calls = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            consume(operation.run());
+            calls++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < 100_000_000L && calls < 10_000);
+        double nanosPerCall = elapsed / (double) calls;
+        return Math.max(1, (long) (BATCH_TARGET_NANOS / nanosPerCall));
+    }
+
+    private record Allocation(long bytes, boolean stub) {
+    }
+
+    private static Map<Long, Allocation> allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] ids = threads.getAllThreadIds();
+        long[] bytes = threads.getThreadAllocatedBytes(ids);
+        ThreadInfo[] infos = threads.getThreadInfo(ids);
+        Map<Long, Allocation> allocated = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0 && infos[i] != null) {
+                allocated.put(ids[i], new Allocation(bytes[i], infos[i].getThreadName().startsWith(STUB_THREADS)));
+            }
+        }
+        return allocated;
+    }
+
+    // {benchmark thread, other client threads, stub threads}; threads that
+    // died in between are lost, threads that started count in full
+    private static long[] allocatedSince(Map<Long, Allocation> before, long benchmarkThread) {
+        long[] totals = new long[3];
+        for (Map.Entry<Long, Allocation> entry : allocatedBytes().entrySet()) {
+            Allocation previous = before.get(entry.getKey());
+            long bytes = entry.getValue().bytes() - (previous == null ? 0 : previous.bytes());
+            int slot = entry.getKey() == benchmarkThread ? 0 : entry.getValue().stub() ? 2 : 1;
+            totals[slot] += bytes;
+        }
+        return totals;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(gc.getCollectionTime(), 0);
+        }
+        return millis;
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    // half-width of the 99.9% interval, from Student's t like JMH's summary
+    private static double error(double[] values) {
+        if (values.length < 2) {
+            return Double.NaN;
+        }
+        double mean = mean(values);
+        double squares = 0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        double deviation = Math.sqrt(squares / (values.length - 1));
+        return t999(values.length - 1) * deviation / Math.sqrt(values.length);
+    }
+
+    // two-sided 99.9% quantile of Student's t: tabled up to 30 degrees of
+    // freedom, then the Cornish-Fisher expansion around the normal's 3.2905,
+    // which is within 0.001 of it from there on
+    private static double t999(int degreesOfFreedom) {
+        if (degreesOfFreedom <= T_999.length) {
+            return T_999[degreesOfFreedom - 1];
+        }
+        double z = 3.2905;
+        double n = degreesOfFreedom;
+        return z + (Math.pow(z, 3) + z) / (4 * n)
+                + (5 * Math.pow(z, 5) + 16 * Math.pow(z, 3) + 3 * z) / (96 * n * n)
+                + (3 * Math.pow(z, 7) + 19 * Math.pow(z, 5) + 17 * Math.pow(z, 3) - 15 * z) / (384 * n * n * n);
+    }
+}
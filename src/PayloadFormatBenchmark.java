@@ -0,0 +1,256 @@
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// Compares what JSON and XML payloads cost per endpoint: create, update, get
+// and list on todos, projects and categories, once with application/json and
+// once with application/xml for both the request body and the response.
+//
+//   java PayloadFormatBenchmark --samples 200 --entities 100 --label thingifier-1.5.5
+//
+// Other options: --out payload-formats.csv, --target <name|url>.
+//
+// Per endpoint and format it reports the mean request and response body
+// sizes, the client's mean time to parse the response the way the suite does
+// (the id of a single entity, the item count of a list; ResponseJson against
+// ResponseXml, both streaming) and the round-trip latency percentiles. The
+// --entities seeded per resource set the size of the list responses. Everything
+// the run creates is deleted again.
+public final class PayloadFormatBenchmark {
+    // parses per response, so sub-microsecond parse times are measurable
+    private static final int PARSE_REPEATS = 50;
+
+    private final ApiTarget target;
+    private final int samples;
+
+    public PayloadFormatBenchmark(ApiTarget target, int samples) {
+        this.target = target;
+        this.samples = samples;
+    }
+
+    public static void main(String[] args) throws Exception {
+        CliArgs options = CliArgs.parse(args);
+        ApiTarget target = options.has("target") ? ApiTargets.get(options.get("target", "")) : ApiTargets.current();
+        String label = options.get("label", target.name());
+        PayloadFormatBenchmark benchmark = new PayloadFormatBenchmark(target, options.getInt("samples", 200));
+        int entities = options.getInt("entities", 100);
+        try (CsvReport csv = new CsvReport(Paths.get(options.get("out", "payload-formats.csv")), "label", "entities",
+                "operation", "format", "samples", "errors", "request_bytes", "response_bytes", "parse_ns",
+                "p50_ms", "p90_ms", "p99_ms", "max_ms")) {
+            System.out.printf("%-24s %6s %7s %7s %9s %9s %9s %9s %9s %9s%n", "operation", "format", "samples",
+                    "errors", "req B", "resp B", "parse ns", "p50 ms", "p99 ms", "max ms");
+            for (Resource resource : Resource.values()) {
+                List<String> seeded = benchmark.seed(resource, entities);
+                try {
+                    for (Result result : benchmark.run(resource)) {
+                        print(result, csv, label, entities);
+                    }
+                } finally {
+                    benchmark.delete(resource, seeded);
+                }
+            }
+        } finally {
+            TodoManagerStub.stopShared();
+        }
+    }
+
+    public enum Format {
+        JSON("application/json"),
+        XML("application/xml");
+
+        final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        String id(String body) throws IOException {
+            return this == JSON ? ResponseJson.id(body) : ResponseXml.id(body);
+        }
+
+        int count(String body) throws IOException {
+            return this == JSON ? ResponseJson.count(body) : ResponseXml.count(body);
+        }
+    }
+
+    public enum Resource {
+        TODOS("todos", RequestShapes.TODO, RequestShapes.TODO_UPDATE, RequestShapes.TODO_XML, RequestShapes.TODO_UPDATE_XML),
+        PROJECTS("projects", RequestShapes.PROJECT, RequestShapes.PROJECT_UPDATE, RequestShapes.PROJECT_XML,
+                RequestShapes.PROJECT_UPDATE_XML),
+        CATEGORIES("categories", RequestShapes.CATEGORY, RequestShapes.CATEGORY_UPDATE, RequestShapes.CATEGORY_XML,
+                RequestShapes.CATEGORY_UPDATE_XML);
+
+        final String path;
+        private final String json;
+        private final String jsonUpdate;
+        private final String xml;
+        private final String xmlUpdate;
+
+        Resource(String path, String json, String jsonUpdate, String xml, String xmlUpdate) {
+            this.path = path;
+            this.json = json;
+            this.jsonUpdate = jsonUpdate;
+            this.xml = xml;
+            this.xmlUpdate = xmlUpdate;
+        }
+
+        String body(Format format, boolean update) {
+            if (format == Format.JSON) {
+                return update ? jsonUpdate : json;
+            }
+            return update ? xmlUpdate : xml;
+        }
+    }
+
+    public record Result(String operation, Format format, int samples, int errors, long requestBytes,
+                         long responseBytes, long parseNanos, LatencyHistogram latency) {
+        double meanRequestBytes() {
+            return samples == 0 ? 0 : (double) requestBytes / samples;
+        }
+
+        double meanResponseBytes() {
+            return samples == 0 ? 0 : (double) responseBytes / samples;
+        }
+
+        double meanParseNanos() {
+            return samples == 0 ? 0 : (double) parseNanos / samples;
+        }
+    }
+
+    // creates the entities the list responses will carry; returns their ids
+    public List<String> seed(Resource resource, int count) throws IOException, InterruptedException {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            HttpResponse<String> response = HttpTransport.send(request("POST", "/" + resource.path, Format.JSON,
+                    resource.body(Format.JSON, false)), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("POST /" + resource.path + " returned " + response.statusCode());
+            }
+            ids.add(ResponseJson.id(response.body()));
+        }
+        return ids;
+    }
+
+    public void delete(Resource resource, List<String> ids) throws IOException, InterruptedException {
+        for (String id : ids) {
+            HttpTransport.send(request("DELETE", "/" + resource.path + "/" + id, Format.JSON, null),
+                    HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    // The formats take turns sample by sample, so drift in the target (JIT,
+    // GC, growing data) lands on both alike.
+    public List<Result> run(Resource resource) throws IOException, InterruptedException {
+        String collection = "/" + resource.path;
+        String[] operations = {"POST " + collection, "PUT " + collection + "/{id}", "GET " + collection + "/{id}",
+                "GET " + collection};
+        Format[] formats = Format.values();
+        Accumulator[][] results = new Accumulator[operations.length][formats.length];
+        for (int o = 0; o < operations.length; o++) {
+            for (Format format : formats) {
+                results[o][format.ordinal()] = new Accumulator();
+            }
+        }
+        List<String> created = new ArrayList<>();
+        try {
+            for (int i = 0; i < samples; i++) {
+                for (Format format : formats) {
+                    Accumulator[] row = new Accumulator[operations.length];
+                    for (int o = 0; o < operations.length; o++) {
+                        row[o] = results[o][format.ordinal()];
+                    }
+                    String body = resource.body(format, false);
+                    String id = row[0].measure(request("POST", collection, format, body), body, 201, format, false);
+                    if (id == null) {
+                        continue;
+                    }
+                    created.add(id);
+                    String update = resource.body(format, true);
+                    row[1].measure(request("PUT", collection + "/" + id, format, update), update, 200, format, false);
+                    row[2].measure(request("GET", collection + "/" + id, format, null), null, 200, format, false);
+                    row[3].measure(request("GET", collection, format, null), null, 200, format, true);
+                }
+            }
+        } finally {
+            delete(resource, created);
+        }
+        List<Result> list = new ArrayList<>();
+        for (int o = 0; o < operations.length; o++) {
+            for (Format format : formats) {
+                list.add(results[o][format.ordinal()].result(operations[o], format));
+            }
+        }
+        return list;
+    }
+
+    private HttpRequest request(String method, String path, Format format, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(target.uri(path))
+                .timeout(HttpTransport.REQUEST_TIMEOUT)
+                .header("Accept", format.mediaType);
+        if (body == null) {
+            return builder.method(method, HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", format.mediaType)
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static void print(Result result, CsvReport csv, String label, int entities) throws IOException {
+        LatencyHistogram latency = result.latency();
+        System.out.printf("%-24s %6s %7d %7d %9.0f %9.0f %9.0f %9.2f %9.2f %9.2f%n", result.operation(),
+                result.format(), result.samples(), result.errors(), result.meanRequestBytes(), result.meanResponseBytes(),
+                result.meanParseNanos(), latency.valueAtPercentile(50) / 1000.0, latency.valueAtPercentile(99) / 1000.0,
+                latency.maxMicros() / 1000.0);
+        csv.row(label, entities, result.operation(), result.format(), result.samples(), result.errors(),
+                result.meanRequestBytes(), result.meanResponseBytes(), result.meanParseNanos(),
+                latency.valueAtPercentile(50) / 1000.0, latency.valueAtPercentile(90) / 1000.0,
+                latency.valueAtPercentile(99) / 1000.0, latency.maxMicros() / 1000.0);
+    }
+
+    private static final class Accumulator {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private int samples;
+        private int errors;
+        private long requestBytes;
+        private long responseBytes;
+        private long parseNanos;
+
+        // sends the request, times it and its parse; returns the parsed id (null for lists and errors)
+        String measure(HttpRequest request, String body, int expectedStatus, Format format, boolean list)
+                throws IOException, InterruptedException {
+            long start = System.nanoTime();
+            HttpResponse<byte[]> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            latency.recordNanos(System.nanoTime() - start);
+            samples++;
+            if (body != null) {
+                requestBytes += body.getBytes(StandardCharsets.UTF_8).length;
+            }
+            responseBytes += response.body().length;
+            if (response.statusCode() != expectedStatus) {
+                errors++;
+                return null;
+            }
+            String text = new String(response.body(), StandardCharsets.UTF_8);
+            String id = null;
+            long parseStart = System.nanoTime();
+            for (int i = 0; i < PARSE_REPEATS; i++) {
+                if (list) {
+                    format.count(text);
+                } else {
+                    id = format.id(text);
+                }
+            }
+            parseNanos += (System.nanoTime() - parseStart) / PARSE_REPEATS;
+            return id;
+        }
+
+        Result result(String operation, Format format) {
+            return new Result(operation, format, samples, errors, requestBytes, responseBytes, parseNanos, latency);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.parallel.Isolated;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Latency gates for the routes the suite relies on most. Runs in isolation so
+// the other (concurrent) test classes don't share the server with it; exclude
+// with --exclude-tag performance, or loosen with -Dslo.scale=<factor>.
+// The @RouteBudget gates split createAndDeleteTodo's combined budget into its
+// two routes, from the same requests.
+@Tag("performance")
+@Isolated
+@RouteBudget(route = "POST /todos", percentile = 99, millis = 100)
+@RouteBudget(route = "DELETE /todos/{id}", percentile = 99, millis = 100)
+public class PerformanceBudgetsTest {
+    private static ApiTarget target;
+    private static String todoId;
+
+    @BeforeAll
+    public static void selectTarget() throws IOException, InterruptedException {
+        target = ApiTargets.current();
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(target.uri("/todos"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(RequestShapes.TODO))
+                .build();
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, response.statusCode());
+        todoId = ResponseJson.id(response.body());
+    }
+
+    @AfterAll
+    public static void deleteTodo() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder().uri(target.uri("/todos/" + todoId)).DELETE().build();
+        HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    @Test
+    public void getTodoById() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder().uri(target.uri("/todos/" + todoId)).GET().build();
+        System.out.println(LatencyBudget.route("GET /todos/{id}").percentile(99).under(Duration.ofMillis(50))
+                .warmup(100).iterations(200).repeats(5)
+                .check(() -> assertEquals(200, HttpTransport.send(request, HttpResponse.BodyHandlers.discarding()).statusCode())));
+    }
+
+    @Test
+    public void headAllTodos() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder().uri(target.uri("/todos"))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()).build();
+        System.out.println(LatencyBudget.route("HEAD /todos").percentile(99).under(Duration.ofMillis(50))
+                .warmup(100).iterations(200).repeats(5)
+                .check(() -> assertEquals(200, HttpTransport.send(request, HttpResponse.BodyHandlers.discarding()).statusCode())));
+    }
+
+    @Test
+    public void filterCategoriesByTitle() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder().uri(target.uri("/categories?title=Home")).GET().build();
+        System.out.println(LatencyBudget.route("GET /categories?title={value}").percentile(99).under(Duration.ofMillis(50))
+                .warmup(100).iterations(200).repeats(5)
+                .check(() -> assertEquals(200, HttpTransport.send(request, HttpResponse.BodyHandlers.discarding()).statusCode())));
+    }
+
+    @Test
+    public void createAndDeleteTodo() throws Exception {
+        HttpRequest create = HttpRequest.newBuilder()
+                .uri(target.uri("/todos"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(RequestShapes.TODO))
+                .build();
+        System.out.println(LatencyBudget.route("POST /todos + DELETE /todos/{id}").percentile(99).under(Duration.ofMillis(100))
+                .warmup(50).iterations(150).repeats(5)
+                .check(() -> {
+                    HttpResponse<String> created = HttpTransport.send(create, HttpResponse.BodyHandlers.ofString());
+                    assertEquals(201, created.statusCode());
+                    HttpRequest delete = HttpRequest.newBuilder()
+                            .uri(target.uri("/todos/" + ResponseJson.id(created.body()))).DELETE().build();
+                    assertEquals(200, HttpTransport.send(delete, HttpResponse.BodyHandlers.discarding()).statusCode());
+                }));
+    }
+}
@@ -0,0 +1,129 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-route histograms of each phase of an exchange (see ExchangePhases), so
+// a slower route can be told apart as a slower server (ttfb) or a slower
+// client side (setup).
+//
+// Timing phases means HttpTransport sends a copy of every request with a body
+// and wraps every response handler, an allocation per request the load tools
+// shouldn't pay by default, so it is off unless -Dphases.record=true. Bodiless
+// requests only have ttfb and read, so a route's phases can have different
+// counts. The global recorder prints a table
+// when the JVM exits, and with -Dlatency.exportDir=<dir> appends its
+// percentiles to <dir>/phases.csv.
+public final class PhaseRecorder implements HttpTransport.Listener {
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("phases.record", "false"));
+
+    private static final String[] PHASES = {"setup", "write", "ttfb", "read"};
+    private static final PhaseRecorder global = new PhaseRecorder();
+    private static volatile boolean hookInstalled;
+
+    private final Map<String, LatencyHistogram[]> routes = new ConcurrentHashMap<>();
+
+    public static PhaseRecorder global() {
+        return global;
+    }
+
+    static synchronized void installShutdownHook() {
+        if (hookInstalled) {
+            return;
+        }
+        hookInstalled = true;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (global.routes.isEmpty()) {
+                return;
+            }
+            // the summaries of the recorders' hooks run concurrently; don't interleave them
+            synchronized (System.out) {
+                global.printSummary(System.out);
+            }
+            if (LatencyRecorder.EXPORT_DIR != null) {
+                try {
+                    global.export(Paths.get(LatencyRecorder.EXPORT_DIR).resolve("phases.csv"));
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Could not export phase timings: " + e.getMessage());
+                }
+            }
+        }, "phase-summary"));
+    }
+
+    @Override
+    public void onExchange(Exchange exchange) {
+        ExchangePhases phases = exchange.phases();
+        if (phases != null && phases.complete()) {
+            record(exchange.route(), phases);
+        }
+    }
+
+    public void record(String route, ExchangePhases phases) {
+        LatencyHistogram[] histograms = routes.computeIfAbsent(route, r -> newHistograms());
+        if (phases.setupNanos() >= 0) {
+            histograms[0].recordNanos(phases.setupNanos());
+            histograms[1].recordNanos(phases.writeNanos());
+        }
+        histograms[2].recordNanos(phases.ttfbNanos());
+        histograms[3].recordNanos(phases.readNanos());
+    }
+
+    // "setup", "write", "ttfb" or "read"; null when the route was never seen
+    public LatencyHistogram histogram(String route, String phase) {
+        LatencyHistogram[] histograms = routes.get(route);
+        if (histograms == null) {
+            return null;
+        }
+        for (int i = 0; i < PHASES.length; i++) {
+            if (PHASES[i].equals(phase)) {
+                return histograms[i];
+            }
+        }
+        throw new IllegalArgumentException("Unknown phase '" + phase + "'");
+    }
+
+    public void reset() {
+        routes.clear();
+    }
+
+    public void printSummary(PrintStream out) {
+        out.printf("%-44s %8s", "route (p50 / p99 ms)", "count");
+        for (String phase : PHASES) {
+            out.printf(" %17s", phase);
+        }
+        out.println();
+        for (Map.Entry<String, LatencyHistogram[]> entry : new TreeMap<>(routes).entrySet()) {
+            LatencyHistogram[] histograms = entry.getValue();
+            out.printf("%-44s %8d", entry.getKey(), histograms[2].count());
+            for (LatencyHistogram histogram : histograms) {
+                out.printf(" %8.2f /%7.2f", histogram.valueAtPercentile(50) / 1000.0, histogram.valueAtPercentile(99) / 1000.0);
+            }
+            out.println();
+        }
+    }
+
+    // one row per route and phase
+    public void export(Path file) throws IOException {
+        try (CsvReport csv = new CsvReport(file, "route", "phase", "count", "p50_ms", "p90_ms", "p99_ms", "max_ms")) {
+            for (Map.Entry<String, LatencyHistogram[]> entry : new TreeMap<>(routes).entrySet()) {
+                for (int i = 0; i < PHASES.length; i++) {
+                    LatencyHistogram histogram = entry.getValue()[i];
+                    csv.row(entry.getKey(), PHASES[i], histogram.count(), histogram.valueAtPercentile(50) / 1000.0,
+                            histogram.valueAtPercentile(90) / 1000.0, histogram.valueAtPercentile(99) / 1000.0,
+                            histogram.maxMicros() / 1000.0);
+                }
+            }
+        }
+    }
+
+    private static LatencyHistogram[] newHistograms() {
+        LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+}
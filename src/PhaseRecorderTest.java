@@ -0,0 +1,87 @@
+import org.junit.jupiter.api.*;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PhaseRecorderTest {
+
+    // through HttpTransport, which only times phases with -Dphases.record=true
+    @Test
+    public void shouldSplitExchangesIntoPhases() throws Exception {
+        Assumptions.assumeTrue(PhaseRecorder.ENABLED, "phase timing is off");
+        PhaseRecorder recorder = new PhaseRecorder();
+        List<Exchange> exchanges = new ArrayList<>();
+        try (StubTraffic stub = StubTraffic.start("phases", exchange -> {
+            recorder.onExchange(exchange);
+            synchronized (exchanges) {
+                exchanges.add(exchange);
+            }
+        })) {
+            ApiTarget target = stub.target();
+            for (int i = 0; i < 5; i++) {
+                assertEquals(201, HttpTransport.send(HttpRequest.newBuilder(target.uri("/todos"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(RequestShapes.TODO))
+                        .build(), HttpResponse.BodyHandlers.ofString()).statusCode());
+            }
+            assertEquals(200, HttpTransport.sendAsync(HttpRequest.newBuilder(target.uri("/todos")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()).get().statusCode());
+        }
+
+        assertEquals(5, recorder.histogram("POST /todos", "setup").count());
+        assertEquals(5, recorder.histogram("POST /todos", "ttfb").count());
+        assertEquals(0, recorder.histogram("GET /todos", "setup").count());
+        assertEquals(1, recorder.histogram("GET /todos", "read").count());
+        assertNull(recorder.histogram("GET /projects", "setup"));
+        synchronized (exchanges) {
+            assertEquals(6, exchanges.size());
+            for (Exchange exchange : exchanges) {
+                assertPhases(exchange.phases(), exchange.request().method().equals("POST"), exchange.latencyNanos());
+            }
+        }
+    }
+
+    // the same split without HttpTransport, so it runs whatever -Dphases.record says
+    @Test
+    public void shouldTimeTheBodyOnlyWhenThereIsOne() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        try (TodoManagerStub stub = TodoManagerStub.start(0)) {
+            HttpRequest post = HttpRequest.newBuilder(stub.baseUri().resolve("/todos"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(RequestShapes.TODO))
+                    .build();
+            HttpRequest get = HttpRequest.newBuilder(stub.baseUri().resolve("/todos")).GET().build();
+            for (HttpRequest request : List.of(post, get)) {
+                long start = System.nanoTime();
+                ExchangePhases phases = new ExchangePhases(start);
+                HttpRequest sent = phases.wrap(request);
+                assertEquals(request == get, sent == request);
+                client.send(sent, phases.wrap(HttpResponse.BodyHandlers.ofString()));
+                assertPhases(phases, request == post, System.nanoTime() - start);
+            }
+        }
+    }
+
+    @Test
+    public void shouldLeaveUnfinishedPhasesUnset() {
+        ExchangePhases phases = new ExchangePhases(System.nanoTime());
+        assertFalse(phases.complete());
+        assertEquals(-1, phases.setupNanos());
+        assertEquals(-1, phases.ttfbNanos());
+        assertEquals(-1, phases.readNanos());
+    }
+
+    private static void assertPhases(ExchangePhases phases, boolean withBody, long latencyNanos) {
+        assertTrue(phases.complete(), phases.toString());
+        assertEquals(withBody, phases.setupNanos() >= 0 && phases.writeNanos() >= 0, phases.toString());
+        assertTrue(phases.ttfbNanos() >= 0 && phases.readNanos() >= 0, phases.toString());
+        long total = Math.max(phases.setupNanos(), 0) + Math.max(phases.writeNanos(), 0) + phases.ttfbNanos()
+                + phases.readNanos();
+        assertTrue(total <= latencyNanos, phases + " vs " + latencyNanos + " ns");
+    }
+}
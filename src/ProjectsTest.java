@@ -1,9 +1,6 @@
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.*;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 
@@ -13,77 +10,111 @@ import static org.junit.jupiter.api.Assertions.*;
 
 public class ProjectsTest {
     
-    private HttpClient client;
-    private ObjectMapper objectMapper;
+    private static ApiTarget target;
 
     private String savedTasksState;  // Variable to store saved state
 
-    public static String categoryId = "0";
-    public static String taskId = "0";
+    private static FixturePool<Fixture> fixtures;
+    // per-instance, so concurrently running tests never see each other's fixtures
+    private Fixture fixture;
+    private String categoryId = "0";
+    private String taskId = "0";
 
-    public static String projectId = "0";
+    private String projectId = "0";
 
-    public static String createdProjectId = "0";
+    @BeforeAll
+    public static void selectTarget() {
+        target = ApiTargets.current();
+        fixtures = FixturePool.start("projects", ProjectsTest::createFixture, ProjectsTest::deleteFixture);
+    }
+
+    @AfterAll
+    public static void closeFixtures() throws InterruptedException {
+        fixtures.close();
+    }
 
     @BeforeEach
     public void setup() throws IOException, InterruptedException {
-        client = HttpClient.newHttpClient();
-        objectMapper = new ObjectMapper();
-        categoryId = createCategoryAndGetId();
-        taskId = createTaskAndReturnId();
-        projectId = createProjectAndReturnId();
+        fixture = fixtures.acquire();
+        projectId = fixture.projectId();
+        categoryId = fixture.categoryId();
+        taskId = fixture.taskId();
     }
 
     @AfterEach
-    public void restore() throws IOException, InterruptedException {
-        deleteProjectById(projectId);
+    public void restore() {
+        fixtures.release(fixture);
+    }
+
+    // a project with a category and a task todo of its own
+    private record Fixture(String projectId, String categoryId, String taskId) {
+    }
+
+    private static Fixture createFixture() throws IOException, InterruptedException {
+        String projectId = createProjectAndReturnId();
+        return new Fixture(projectId, createCategoryAndGetId(projectId), createTaskAndReturnId(projectId));
+    }
+
+    private static void deleteFixture(Fixture fixture) throws IOException, InterruptedException {
+        deleteById("/projects/" + fixture.projectId());
+        deleteById("/categories/" + fixture.categoryId());
+        deleteById("/todos/" + fixture.taskId());
     }
 
     //test to check if the system is ready to be tested
     @Test
     public void shouldRedirectToMainPage() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567"))
+                .uri(target.uri("/"))
                 .GET().build();
 
-        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
         assertEquals(302, response.statusCode(), "Expected redirect from main page");
     }
 
     private static void deleteProjectById(String projectId) throws IOException, InterruptedException {
-        String id = createProjectAndReturnId();
         HttpRequest deleteRequest = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/" + id))
+                .uri(target.uri("/projects/" + projectId))
                 .DELETE()
                 .build();
 
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<String> deleteResponse = client.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> deleteResponse = HttpTransport.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
 
         assertEquals(200, deleteResponse.statusCode(), "Failed to delete project with id: " + projectId);
     }
 
-    private static String createCategoryAndGetId() throws IOException, InterruptedException {
+    // fixture cleanup; the test itself may already have deleted it
+    private static void deleteById(String path) throws IOException, InterruptedException {
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(target.uri(path))
+                .DELETE()
+                .build();
+
+        HttpResponse<String> deleteResponse = HttpTransport.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        assertTrue(deleteResponse.statusCode() == 200 || deleteResponse.statusCode() == 404,
+                "Failed to delete " + path + ": " + deleteResponse.statusCode());
+    }
+
+    private static String createCategoryAndGetId(String projectId) throws IOException, InterruptedException {
         String categoryRequestBody = "{ \"title\": \"Category Title\", \"description\": \"Category Description\" }";
         HttpRequest categoryRequest = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories"))
+                .uri(target.uri("/categories"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(categoryRequestBody))
                 .build();
 
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<String> categoryResponse = client.send(categoryRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> categoryResponse = HttpTransport.send(categoryRequest, HttpResponse.BodyHandlers.ofString());
         assertEquals(201, categoryResponse.statusCode());
 
         String responseBody = categoryResponse.body();
-        String id = new ObjectMapper().readTree(responseBody).get("id").asText();
+        String id = ResponseJson.id(responseBody);
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/1/categories"))
+                .uri(target.uri("/projects/" + projectId + "/categories"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString("{ \"id\": \"" + id + "\" }"))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(201, response.statusCode());
         return id;
     }
@@ -91,66 +122,78 @@ public class ProjectsTest {
         String projectRequestBody = "{ \"title\": \"Project Title\", \"active\": false, \"completed\": false, \"description\": \"Project Description\" }";
 
         HttpRequest projectRequest = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects"))
+                .uri(target.uri("/projects"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(projectRequestBody))
                 .build();
 
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<String> projectResponse = client.send(projectRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> projectResponse = HttpTransport.send(projectRequest, HttpResponse.BodyHandlers.ofString());
 
         assertEquals(201, projectResponse.statusCode());
 
         String responseBody = projectResponse.body();
-        String id = new ObjectMapper().readTree(responseBody).get("id").asText();
+        String id = ResponseJson.id(responseBody);
 
         return id;
     }
 
 
-    private static String createTaskAndReturnId() throws IOException, InterruptedException {
-        String requestBody = "{ \"id\": \"2\" }";
+    // creates a todo of its own and makes it a task of the project
+    private static String createTaskAndReturnId(String projectId) throws IOException, InterruptedException {
+        String todoRequestBody = "{ \"title\": \"Task Title\", \"doneStatus\": false, \"description\": \"Task Description\" }";
+        HttpRequest todoRequest = HttpRequest.newBuilder()
+                .uri(target.uri("/todos"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(todoRequestBody))
+                .build();
+
+        HttpResponse<String> todoResponse = HttpTransport.send(todoRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, todoResponse.statusCode());
+        String id = ResponseJson.id(todoResponse.body());
+
+        String requestBody = "{ \"id\": \"" + id + "\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/1/tasks"))
+                .uri(target.uri("/projects/" + projectId + "/tasks"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(201, response.statusCode());
-        return "2";
+        return id;
     }
 
     @Test
     public void testGetAllProjects() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects"))
+                .uri(target.uri("/projects"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<JsonArrayHandler.Summary> response =
+                HttpTransport.send(request, JsonArrayHandler.of("projects").require("id"));
         assertEquals(200, response.statusCode());
-        System.out.println(response.body());
+        assertTrue(response.body().count() > 0);
+        assertTrue(response.body().valid(), response.body().violations().toString());
     }
 
     @Test
     public void testHeadAllProjects() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects"))
+                .uri(target.uri("/projects"))
                 .method("HEAD", HttpRequest.BodyPublishers.noBody())
                 .build();
 
-        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
         assertEquals(200, response.statusCode());
     }
 
     @Test
     public void testGetProjectById() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/1"))
+                .uri(target.uri("/projects/" + projectId))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -159,12 +202,12 @@ public class ProjectsTest {
     public void testCreateProjectWithInvalidCompletedAndActiveStatus() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"s aute irure dolor i\", \"completed\": \"true\", \"active\": \"false\", \"description\": \"sse cillum dolore eu\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects"))
+                .uri(target.uri("/projects"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         // Check for expected error response
         assertEquals(400, response.statusCode());
         System.out.println(response.body());
@@ -174,28 +217,27 @@ public class ProjectsTest {
     public void testCreateProject() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"s aute irure dolor i\", \"active\": false, \"completed\": false, \"description\": \"sse cillum dolore eu\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects"))
+                .uri(target.uri("/projects"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(201, response.statusCode());
         System.out.println(response.body());
 
         String responseBody = response.body();
-        ObjectMapper objectMapper = new ObjectMapper();
-        String id = objectMapper.readTree(responseBody).get("id").asText();
+        String id = ResponseJson.id(responseBody);
         deleteProjectById(id);
     }
 
     @Test
     public void testGetNonExistentProject() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/-1"))
+                .uri(target.uri("/projects/-1"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response.statusCode());
         System.out.println(response.body());
     }
@@ -203,23 +245,23 @@ public class ProjectsTest {
     @Test
     public void testHeadProjectById() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/1"))
+                .uri(target.uri("/projects/" + projectId))
                 .method("HEAD", HttpRequest.BodyPublishers.noBody())
                 .build();
 
-        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
         assertEquals(200, response.statusCode());
     }
 
     @Test
     public void testCreateProjectWithIncorrectId() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/-1"))
+                .uri(target.uri("/projects/-1"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString("")) // Empty body
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response.statusCode());
         System.out.println(response.body());
     }
@@ -227,12 +269,12 @@ public class ProjectsTest {
     public void testUpdateProject() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \" new title \", \"active\": false, \"completed\": false, \"description\": \"new description\"}";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/" + projectId))
+                .uri(target.uri("/projects/" + projectId))
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(requestBody)) // Empty body
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -241,12 +283,12 @@ public class ProjectsTest {
     public void testUpdateProjectCompletedOnly() throws IOException, InterruptedException {
         String requestBody = "{ \"Completed\": true }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/" + projectId))
+                .uri(target.uri("/projects/" + projectId))
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -255,12 +297,12 @@ public class ProjectsTest {
     public void testUpdateProjectWithAllFields() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"Updated Title\", \"active\": true, \"completed\": false, \"description\": \"Updated Description\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/" + projectId))
+                .uri(target.uri("/projects/" + projectId))
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -268,11 +310,11 @@ public class ProjectsTest {
     @Test
     public void testDeleteProject() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/"+ projectId))
+                .uri(target.uri("/projects/"+ projectId))
                 .DELETE()
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -281,12 +323,12 @@ public class ProjectsTest {
     public void testUpdateProjectTitle() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"New title\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/" + projectId))
+                .uri(target.uri("/projects/" + projectId))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -295,12 +337,12 @@ public class ProjectsTest {
     public void testUpdateNonExistentProject() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"Title\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/-1"))
+                .uri(target.uri("/projects/-1"))
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response.statusCode());
         System.out.println(response.body());
     }
@@ -308,10 +350,10 @@ public class ProjectsTest {
     @Test
     public void testGetCategoriesForProject() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/1/categories"))
+                .uri(target.uri("/projects/" + projectId + "/categories"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -319,11 +361,11 @@ public class ProjectsTest {
     @Test
     public void testHeadCategoriesForProject() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/1/categories"))
+                .uri(target.uri("/projects/" + projectId + "/categories"))
                 .method("HEAD", HttpRequest.BodyPublishers.noBody())
                 .build();
 
-        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
         assertEquals(200, response.statusCode());
     }
 
@@ -331,12 +373,12 @@ public class ProjectsTest {
     public void testCreateLinkBetweenProjectAndCategory() throws IOException, InterruptedException {
         String requestBody = "{ \"id\": \"" + categoryId + "\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/1/categories"))
+                .uri(target.uri("/projects/" + projectId + "/categories"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(201, response.statusCode());
         System.out.println(response.body());
     }
@@ -345,12 +387,12 @@ public class ProjectsTest {
     public void testCreateLinkBetweenProjectAndInvalidCategoryId() throws IOException, InterruptedException {
         String requestBody = "{ \"id\": \"999\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/1/categories"))
+                .uri(target.uri("/projects/" + projectId + "/categories"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response.statusCode());
         System.out.println(response.body());
     }
@@ -359,11 +401,11 @@ public class ProjectsTest {
     public void testDeleteLinkBetweenProjectAndCategory() throws IOException, InterruptedException {
         String requestBody = "{ \"id\": \"2\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/1/categories/" +categoryId ))
+                .uri(target.uri("/projects/" + projectId + "/categories/" + categoryId))
                 .DELETE()
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
 
@@ -373,11 +415,11 @@ public class ProjectsTest {
     @Test
     public void testDeleteNonExistentLinkBetweenProjectAndCategory() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/1/categories/999"))
+                .uri(target.uri("/projects/" + projectId + "/categories/999"))
                 .DELETE()
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response.statusCode());
         System.out.println(response.body());
     }
@@ -385,10 +427,10 @@ public class ProjectsTest {
     @Test
     public void testGetTasksProject() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/1/tasks"))
+                .uri(target.uri("/projects/" + projectId + "/tasks"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -396,24 +438,24 @@ public class ProjectsTest {
     @Test
     public void testHeadTasksProject() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/1/tasks"))
+                .uri(target.uri("/projects/" + projectId + "/tasks"))
                 .method("HEAD", HttpRequest.BodyPublishers.noBody())
                 .build();
 
-        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
         assertEquals(200, response.statusCode());
     }
 
     @Test
     public void testCreateNewTasksLinkWithProject() throws IOException, InterruptedException {
-        String requestBody = "{ \"id\": \"2\" }";
+        String requestBody = "{ \"id\": \"" + taskId + "\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/1/tasks"))
+                .uri(target.uri("/projects/" + projectId + "/tasks"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(201, response.statusCode());
         System.out.println(response.body());
     }
@@ -421,11 +463,11 @@ public class ProjectsTest {
     @Test
     public void testDeleteTaskLinkWithProject() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/1/tasks/2"))
+                .uri(target.uri("/projects/" + projectId + "/tasks/" + taskId))
                 .DELETE()
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -433,11 +475,11 @@ public class ProjectsTest {
     @Test
     public void testDeleteNonExistentProject() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects/999")) // Non-existent ID
+                .uri(target.uri("/projects/999")) // Non-existent ID
                 .DELETE()
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response.statusCode()); // Expecting 404 for non-existent ID
         System.out.println(response.body());
     }
@@ -445,10 +487,10 @@ public class ProjectsTest {
     @Test
     public void testGetProjectsByCompleted() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects?completed=false"))
+                .uri(target.uri("/projects?completed=false"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -456,10 +498,10 @@ public class ProjectsTest {
     @Test
     public void testGetProjectsByActive() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects?active=true"))
+                .uri(target.uri("/projects?active=true"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -467,10 +509,10 @@ public class ProjectsTest {
     @Test
     public void testGetProjectsByInvalidParameterFailing() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects?name="))
+                .uri(target.uri("/projects?name="))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertNotEquals(400, response.statusCode()); //expects to fail
         //expects to be 400 BAD REQUEST but, we know form the exploratory tests that it returns 200 Ok
         System.out.println(response.body());
@@ -479,10 +521,10 @@ public class ProjectsTest {
     @Test
     public void testGetProjectsByInvalidParameterPassing() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects?name="))
+                .uri(target.uri("/projects?name="))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode()); // SHOULD PASS
         //expects to be 400 BAD REQUEST but, we know form the exploratory tests that it is return 200 Ok
         System.out.println(response.body());
@@ -494,12 +536,12 @@ public class ProjectsTest {
         String malformedJson = "{ \"title\": \"Invalid Project, \"description\": \"This is malformed JSON\" }";
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects"))
+                .uri(target.uri("/projects"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(malformedJson))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
 
         // Assuming the server returns 400 for malformed JSON
         assertEquals(400, response.statusCode());
@@ -512,20 +554,51 @@ public class ProjectsTest {
         String malformedXml = "<project><title>Invalid Project<description>This is malformed XML</description></project>";
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/projects"))
+                .uri(target.uri("/projects"))
                 .header("Content-Type", "application/xml")
                 .POST(HttpRequest.BodyPublishers.ofString(malformedXml))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
 
         // Assuming the server returns 400 for malformed XML
         assertEquals(400, response.statusCode());
         System.out.println("Response body: " + response.body());
     }
 
+    @Test
+    public void testCreateUpdateAndListProjectAsXml() throws IOException, InterruptedException {
+        HttpRequest create = HttpRequest.newBuilder()
+                .uri(target.uri("/projects"))
+                .header("Content-Type", "application/xml")
+                .header("Accept", "application/xml")
+                .POST(HttpRequest.BodyPublishers.ofString(RequestShapes.PROJECT_XML))
+                .build();
+        HttpResponse<String> created = HttpTransport.send(create, HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, created.statusCode());
+        assertTrue(created.headers().firstValue("Content-Type").orElse("").contains("xml"));
+        String id = ResponseXml.id(created.body());
+        assertNotNull(id);
+
+        HttpRequest update = HttpRequest.newBuilder()
+                .uri(target.uri("/projects/" + id))
+                .header("Content-Type", "application/xml")
+                .header("Accept", "application/xml")
+                .PUT(HttpRequest.BodyPublishers.ofString(RequestShapes.PROJECT_UPDATE_XML))
+                .build();
+        HttpResponse<String> updated = HttpTransport.send(update, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, updated.statusCode());
+        assertEquals("true", ResponseXml.field(updated.body(), "active"));
 
+        HttpRequest list = HttpRequest.newBuilder()
+                .uri(target.uri("/projects"))
+                .header("Accept", "application/xml")
+                .GET().build();
+        HttpResponse<String> listed = HttpTransport.send(list, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, listed.statusCode());
+        assertTrue(ResponseXml.count(listed.body()) > 0);
 
-
+        HttpRequest delete = HttpRequest.newBuilder().uri(target.uri("/projects/" + id)).DELETE().build();
+        assertEquals(200, HttpTransport.send(delete, HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
 }
-
@@ -0,0 +1,32 @@
+import java.util.concurrent.locks.LockSupport;
+
+// Paces callers to a fixed number of permits per second. Permits are handed
+// out on a fixed schedule rather than from a bucket, so there are no bursts
+// after an idle spell; a rate of 0 or less means unlimited.
+public final class RateLimiter {
+    private final long nanosPerPermit;
+    private long nextFree = System.nanoTime();
+
+    public RateLimiter(double permitsPerSecond) {
+        this.nanosPerPermit = permitsPerSecond <= 0 ? 0 : (long) (1_000_000_000L / permitsPerSecond);
+    }
+
+    public void acquire(int permits) throws InterruptedException {
+        if (nanosPerPermit == 0) {
+            return;
+        }
+        long start;
+        synchronized (this) {
+            long now = System.nanoTime();
+            start = Math.max(nextFree, now);
+            nextFree = start + permits * nanosPerPermit;
+        }
+        long wait;
+        while ((wait = start - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+// The request bodies TodosTest, ProjectsTest and CategoriesTest send, so the
+// load tools exercise the server with exactly the payloads the suite checks.
+public final class RequestShapes {
+    public static final String TODO = "{ \"title\": \"s aute irure dolor i\", \"doneStatus\": false, \"description\": \"sse cillum dolore eu\" }";
+    public static final String TODO_UPDATE = "{ \"title\": \"Updated Title\", \"doneStatus\": false, \"description\": \"Updated Description\" }";
+    public static final String PROJECT = "{ \"title\": \"Project Title\", \"active\": false, \"completed\": false, \"description\": \"Project Description\" }";
+    public static final String PROJECT_UPDATE = "{ \"title\": \"Updated Title\", \"active\": true, \"completed\": false, \"description\": \"Updated Description\" }";
+    public static final String CATEGORY = "{ \"title\": \"Category Title\", \"description\": \"Category Description\" }";
+    public static final String CATEGORY_UPDATE = "{ \"title\": \" Chocolate\" }";
+    // the same shapes as application/xml
+    public static final String TODO_XML = ResponseXml.write("todo",
+            "title", "s aute irure dolor i", "doneStatus", "false", "description", "sse cillum dolore eu");
+    public static final String TODO_UPDATE_XML = ResponseXml.write("todo",
+            "title", "Updated Title", "doneStatus", "false", "description", "Updated Description");
+    public static final String PROJECT_XML = ResponseXml.write("project",
+            "title", "Project Title", "active", "false", "completed", "false", "description", "Project Description");
+    public static final String PROJECT_UPDATE_XML = ResponseXml.write("project",
+            "title", "Updated Title", "active", "true", "completed", "false", "description", "Updated Description");
+    public static final String CATEGORY_XML = ResponseXml.write("category",
+            "title", "Category Title", "description", "Category Description");
+    public static final String CATEGORY_UPDATE_XML = ResponseXml.write("category", "title", " Chocolate");
+    // link(id) as a RequestTemplate body
+    public static final String LINK = "{ \"id\": \"${id}\" }";
+
+    private RequestShapes() {
+    }
+
+    // body for POST /todos/{id}/categories, /todos/{id}/tasksof, /projects/{id}/tasks, ...
+    public static String link(String id) {
+        return "{ \"id\": \"" + id + "\" }";
+    }
+}
@@ -0,0 +1,216 @@
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// A request shape with its invariant parts prepared once, for the load tools:
+//
+//   RequestTemplate link = RequestTemplate.of(target, "POST", "/todos/{id}/categories", RequestShapes.LINK);
+//   HttpRequest request = link.request(todoId, categoryId);
+//
+// {id} in the path and ${name} in the body are slots, filled in order (path
+// first) by request(). The body is pre-encoded to UTF-8 with the slots cut
+// out, so filling it is one array copy per segment into an exactly-sized
+// byte[]. Depending on the slots, request() returns:
+//   - no slots at all: the same HttpRequest every time (HttpRequest is
+//     immutable and the byte[] publisher can be subscribed to repeatedly)
+//   - GET/HEAD with one path slot: a request cached per id
+//   - otherwise: a new request on a cached URI (single path slot) or on the
+//     pre-split base and path
+// Requests carry the transport's timeout, so HttpTransport does not have to
+// copy them to add one.
+public final class RequestTemplate {
+    private static final int MAX_CACHED = 4096;
+
+    private final String method;
+    private final String[] pathParts;
+    private final byte[][] bodyParts;
+    private final HttpRequest.BodyPublisher fixedBody;
+    private final HttpRequest fixed;
+    private final boolean cacheRequests;
+    private final Map<String, URI> uris = new ConcurrentHashMap<>();
+    private final Map<String, HttpRequest> requests = new ConcurrentHashMap<>();
+
+    private RequestTemplate(ApiTarget target, String method, String path, String body) {
+        this.method = method;
+        String base = target.baseUri().toString();
+        List<String> parts = split(path.startsWith("/") ? path.substring(1) : path, "{id}");
+        // the cached URI prefix: scheme, host and the path up to the first slot
+        parts.set(0, base + parts.get(0));
+        this.pathParts = parts.toArray(new String[0]);
+        if (body == null) {
+            this.bodyParts = null;
+        } else {
+            List<byte[]> encoded = new ArrayList<>();
+            for (String part : body.split("\\$\\{[^}]*}", -1)) {
+                encoded.add(part.getBytes(StandardCharsets.UTF_8));
+            }
+            this.bodyParts = encoded.toArray(new byte[0][]);
+        }
+        this.fixedBody = bodyParts == null ? HttpRequest.BodyPublishers.noBody()
+                : bodyParts.length == 1 ? HttpRequest.BodyPublishers.ofByteArray(bodyParts[0]) : null;
+        this.fixed = pathParts.length == 1 && fixedBody != null ? build(URI.create(pathParts[0]), fixedBody) : null;
+        this.cacheRequests = pathParts.length == 2 && fixedBody != null && (method.equals("GET") || method.equals("HEAD"));
+    }
+
+    // path is everything after the host, as for ApiTarget.uri; body may be null
+    public static RequestTemplate of(ApiTarget target, String method, String path, String body) {
+        return new RequestTemplate(target, method, path, body);
+    }
+
+    public int slots() {
+        return pathParts.length - 1 + (bodyParts == null ? 0 : bodyParts.length - 1);
+    }
+
+    public HttpRequest request() {
+        if (fixed == null) {
+            throw new IllegalArgumentException("Template has " + slots() + " slots, got no values");
+        }
+        return fixed;
+    }
+
+    public HttpRequest request(String value) {
+        if (slots() != 1) {
+            throw new IllegalArgumentException("Template has " + slots() + " slots, got 1 value");
+        }
+        if (pathParts.length == 1) {
+            return build(URI.create(pathParts[0]), fill(value));
+        }
+        if (cacheRequests) {
+            HttpRequest request = requests.get(value);
+            if (request == null) {
+                request = build(uri(value), fixedBody);
+                cache(requests, value, request);
+            }
+            return request;
+        }
+        return build(uri(value), fixedBody);
+    }
+
+    public HttpRequest request(String first, String second) {
+        if (slots() != 2) {
+            throw new IllegalArgumentException("Template has " + slots() + " slots, got 2 values");
+        }
+        switch (pathParts.length) {
+            case 1:
+                return build(URI.create(pathParts[0]), fill(first, second));
+            case 2:
+                return build(uri(first), fill(second));
+            default:
+                return build(URI.create(pathParts[0] + first + pathParts[1] + second + pathParts[2]), fixedBody);
+        }
+    }
+
+    private URI uri(String id) {
+        URI uri = uris.get(id);
+        if (uri == null) {
+            uri = URI.create(pathParts[0] + id + pathParts[1]);
+            cache(uris, id, uri);
+        }
+        return uri;
+    }
+
+    private HttpRequest.BodyPublisher fill(String value) {
+        return HttpRequest.BodyPublishers.ofByteArray(encode(value));
+    }
+
+    private HttpRequest.BodyPublisher fill(String first, String second) {
+        return HttpRequest.BodyPublishers.ofByteArray(encode(first, second));
+    }
+
+    private byte[] encode(String... values) {
+        int length = 0;
+        for (byte[] part : bodyParts) {
+            length += part.length;
+        }
+        for (String value : values) {
+            length += encodedLength(value);
+        }
+        byte[] body = new byte[length];
+        int position = 0;
+        for (int i = 0; i < bodyParts.length; i++) {
+            System.arraycopy(bodyParts[i], 0, body, position, bodyParts[i].length);
+            position += bodyParts[i].length;
+            if (i < values.length) {
+                position = write(values[i], body, position);
+            }
+        }
+        return body;
+    }
+
+    // ASCII without JSON escapes (ids, the suite's titles) is copied char by
+    // char; anything else goes through a JSON-escaped UTF-8 encoding
+    private static int encodedLength(String value) {
+        return plain(value) ? value.length() : escaped(value).length;
+    }
+
+    private static int write(String value, byte[] body, int position) {
+        if (plain(value)) {
+            for (int i = 0; i < value.length(); i++) {
+                body[position++] = (byte) value.charAt(i);
+            }
+            return position;
+        }
+        byte[] bytes = escaped(value);
+        System.arraycopy(bytes, 0, body, position, bytes.length);
+        return position + bytes.length;
+    }
+
+    private static boolean plain(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c >= 0x7F || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] escaped(String value) {
+        StringBuilder text = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                text.append('\\').append(c);
+            } else if (c < 0x20) {
+                text.append(String.format("\\u%04x", (int) c));
+            } else {
+                text.append(c);
+            }
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private HttpRequest build(URI uri, HttpRequest.BodyPublisher body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(HttpTransport.REQUEST_TIMEOUT)
+                .method(method, body);
+        if (bodyParts != null) {
+            builder.header("Content-Type", "application/json");
+        }
+        return builder.build();
+    }
+
+    private static <V> void cache(Map<String, V> cache, String key, V value) {
+        if (cache.size() >= MAX_CACHED) {
+            // ids keep changing during long runs, so start over
+            cache.clear();
+        }
+        cache.put(key, value);
+    }
+
+    private static List<String> split(String text, String separator) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        int at;
+        while ((at = text.indexOf(separator, start)) >= 0) {
+            parts.add(text.substring(start, at));
+            start = at + separator.length();
+        }
+        parts.add(text.substring(start));
+        return parts;
+    }
+}
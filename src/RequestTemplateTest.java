@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.*;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestTemplateTest {
+    private static final ApiTarget TARGET = new ApiTarget("template", URI.create("http://localhost:4567/"));
+
+    @Test
+    public void shouldReuseRequestsWithoutSlots() {
+        RequestTemplate create = RequestTemplate.of(TARGET, "POST", "/todos", RequestShapes.TODO);
+        HttpRequest request = create.request();
+        assertSame(request, create.request());
+        assertEquals("http://localhost:4567/todos", request.uri().toString());
+        assertEquals("application/json", request.headers().firstValue("Content-Type").orElse(null));
+        assertEquals(RequestShapes.TODO, body(request));
+        assertEquals(RequestShapes.TODO, body(request));
+        assertEquals(HttpTransport.REQUEST_TIMEOUT, request.timeout().orElse(null));
+    }
+
+    @Test
+    public void shouldCacheGetRequestsPerId() {
+        RequestTemplate get = RequestTemplate.of(TARGET, "GET", "/todos/{id}", null);
+        assertSame(get.request("7"), get.request("7"));
+        assertEquals("http://localhost:4567/todos/8", get.request("8").uri().toString());
+        assertTrue(get.request("8").bodyPublisher().map(p -> p.contentLength() == 0).orElse(true));
+
+        RequestTemplate delete = RequestTemplate.of(TARGET, "DELETE", "/todos/{id}", null);
+        assertNotSame(delete.request("7"), delete.request("7"));
+    }
+
+    @Test
+    public void shouldFillPathAndBodySlots() {
+        RequestTemplate link = RequestTemplate.of(TARGET, "POST", "/todos/{id}/categories", RequestShapes.LINK);
+        assertEquals(2, link.slots());
+        HttpRequest request = link.request("12", "3");
+        assertEquals("http://localhost:4567/todos/12/categories", request.uri().toString());
+        assertEquals(RequestShapes.link("3"), body(request));
+
+        RequestTemplate unlink = RequestTemplate.of(TARGET, "DELETE", "/todos/{id}/categories/{id}", null);
+        assertEquals("/todos/12/categories/3", unlink.request("12", "3").uri().getPath());
+    }
+
+    @Test
+    public void shouldEscapeValuesThatNeedIt() {
+        RequestTemplate category = RequestTemplate.of(TARGET, "POST", "/categories", "{ \"title\": \"${title}\" }");
+        assertEquals("{ \"title\": \"say \\\"hi\\\" caf\u00e9\" }", body(category.request("say \"hi\" caf\u00e9")));
+    }
+
+    @Test
+    public void shouldRejectWrongNumberOfValues() {
+        RequestTemplate get = RequestTemplate.of(TARGET, "GET", "/todos/{id}", null);
+        assertThrows(IllegalArgumentException.class, get::request);
+        assertThrows(IllegalArgumentException.class, () -> get.request("1", "2"));
+    }
+
+    private static String body(HttpRequest request) {
+        CompletableFuture<String> body = new CompletableFuture<>();
+        request.bodyPublisher().orElseThrow().subscribe(new Flow.Subscriber<>() {
+            private final StringBuilder text = new StringBuilder();
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                text.append(StandardCharsets.UTF_8.decode(item));
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                body.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                body.complete(text.toString());
+            }
+        });
+        return body.join();
+    }
+}
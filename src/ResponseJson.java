@@ -0,0 +1,131 @@
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Response parsing for the suite and the load tools.
+//
+// MAPPER is the one ObjectMapper everything shares (it is thread-safe once
+// configured, and expensive to build), warmed up when this class loads. For
+// the common case of reading a field or two out of a created entity, id() and
+// fields() stream over the top-level object with a JsonParser and stop as
+// soon as they have what they asked for, without building a JsonNode tree.
+public final class ResponseJson {
+    public static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory factory = MAPPER.getFactory();
+
+    static {
+        try {
+            MAPPER.readTree("{\"id\":\"1\",\"title\":\"warm-up\",\"todos\":[{\"id\":\"2\"}]}");
+            id("{\"id\":\"1\"}");
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private ResponseJson() {
+    }
+
+    // the top-level "id" of an entity body, e.g. the response to POST /todos;
+    // a body without one (an error message, say) is an IOException
+    public static String id(String body) throws IOException {
+        String id = field(body, "id");
+        if (id == null) {
+            throw new IOException("No top-level \"id\" in " + body);
+        }
+        return id;
+    }
+
+    // Top-level scalar field as text (numbers and booleans included), or null
+    // when absent or not a scalar. Nested objects and arrays are skipped, so
+    // the "id" of a linked category never answers for the entity's own.
+    public static String field(String body, String name) throws IOException {
+        try (JsonParser parser = factory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String current = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (current.equals(name)) {
+                    return value.isScalarValue() ? parser.getValueAsString() : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    // Several top-level scalar fields at once; stops once all are found.
+    // Missing fields are absent from the map.
+    public static Map<String, String> fields(String body, String... names) throws IOException {
+        Map<String, String> found = new LinkedHashMap<>();
+        try (JsonParser parser = factory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return found;
+            }
+            while (found.size() < names.length && parser.nextToken() == JsonToken.FIELD_NAME) {
+                String current = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value.isScalarValue() && contains(names, current)) {
+                    found.put(current, parser.getValueAsString());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return found;
+    }
+
+    // number of items in a list response such as {"todos":[...]}: the
+    // elements of the first top-level array, or 0 when there is none
+    public static int count(String body) throws IOException {
+        try (JsonParser parser = factory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return 0;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                if (parser.nextToken() == JsonToken.START_ARRAY) {
+                    int count = 0;
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        parser.skipChildren();
+                        count++;
+                    }
+                    return count;
+                }
+                parser.skipChildren();
+            }
+            return 0;
+        }
+    }
+
+    // for assertions that genuinely need the whole document
+    public static JsonNode tree(String body) throws IOException {
+        return MAPPER.readTree(body);
+    }
+
+    // id() for callers that cannot throw checked exceptions (CompletableFuture
+    // stages); null when the body has no id
+    public static String idUnchecked(String body) {
+        try {
+            return field(body, "id");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean contains(String[] names, String name) {
+        for (String candidate : names) {
+            if (candidate.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,48 @@
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseJsonTest {
+    private static final String TODO = "{\"tasksof\":[{\"id\":\"1\"}],\"id\":\"17\",\"title\":\"scan paperwork\","
+            + "\"doneStatus\":\"false\",\"categories\":[{\"id\":\"3\"}]}";
+
+    @Test
+    public void shouldReadTopLevelIdOnly() throws IOException {
+        assertEquals("17", ResponseJson.id(TODO));
+    }
+
+    @Test
+    public void shouldReadScalarFields() throws IOException {
+        Map<String, String> fields = ResponseJson.fields(TODO, "id", "doneStatus", "missing");
+        assertEquals("17", fields.get("id"));
+        assertEquals("false", fields.get("doneStatus"));
+        assertFalse(fields.containsKey("missing"));
+    }
+
+    @Test
+    public void shouldReturnNullWhenAbsent() throws IOException {
+        assertNull(ResponseJson.idUnchecked("{\"errorMessages\":[\"Could not find an instance with todos/-1\"]}"));
+        assertNull(ResponseJson.idUnchecked("[]"));
+        assertNull(ResponseJson.field(TODO, "tasksof"));
+    }
+
+    @Test
+    public void shouldThrowWhenIdIsAbsent() {
+        assertThrows(IOException.class,
+                () -> ResponseJson.id("{\"errorMessages\":[\"Could not find an instance with todos/-1\"]}"));
+        assertThrows(IOException.class, () -> ResponseJson.id("[]"));
+    }
+
+    @Test
+    public void shouldCountFirstArrayElements() throws IOException {
+        assertEquals(2, ResponseJson.count("{\"todos\":[{\"id\":\"1\",\"categories\":[{\"id\":\"3\"}]},{\"id\":\"2\"}]}"));
+        assertEquals(0, ResponseJson.count("{\"todos\":[]}"));
+        // no top-level array: nested objects are skipped, not searched
+        assertEquals(0, ResponseJson.count("{\"id\":\"17\",\"project\":{\"tasks\":[{\"id\":\"1\"}]}}"));
+        // not an object at all
+        assertEquals(0, ResponseJson.count("[{\"id\":\"1\"}]"));
+    }
+}
@@ -0,0 +1,111 @@
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+// The XML counterpart of ResponseJson, plus the writer for XML request
+// bodies. Everything streams with StAX; no DOM is ever built.
+//
+// The todo manager's XML has one element per field under the entity's
+// element, and one entity element per item under the collection's:
+//
+//   <todo><id>1</id><title>..</title><categories><category><id>3</id></category></categories></todo>
+//   <todos><todo>..</todo><todo>..</todo></todos>
+public final class ResponseXml {
+    private static final XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newFactory();
+
+    static {
+        // no DTDs or external entities from a server response
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private ResponseXml() {
+    }
+
+    // <root><name>value</name>...</root>, from alternating names and values
+    public static String write(String root, String... namesAndValues) {
+        if (namesAndValues.length % 2 != 0) {
+            throw new IllegalArgumentException("Expected name/value pairs, got " + namesAndValues.length + " strings");
+        }
+        StringWriter out = new StringWriter(64 + namesAndValues.length * 16);
+        try {
+            XMLStreamWriter xml = outputFactory.createXMLStreamWriter(out);
+            xml.writeStartElement(root);
+            for (int i = 0; i < namesAndValues.length; i += 2) {
+                xml.writeStartElement(namesAndValues[i]);
+                xml.writeCharacters(namesAndValues[i + 1]);
+                xml.writeEndElement();
+            }
+            xml.writeEndElement();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException(e);
+        }
+        return out.toString();
+    }
+
+    // the entity's own <id>, e.g. from the response to POST /todos
+    public static String id(String body) throws IOException {
+        return field(body, "id");
+    }
+
+    // Text of a direct child of the root element, or null when absent.
+    // Nested elements are skipped, so the <id> of a linked category never
+    // answers for the entity's own.
+    public static String field(String body, String name) throws IOException {
+        try {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader(body));
+            try {
+                int depth = 0;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamReader.START_ELEMENT) {
+                        depth++;
+                        if (depth == 2 && reader.getLocalName().equals(name)) {
+                            return reader.getElementText();
+                        }
+                    } else if (event == XMLStreamReader.END_ELEMENT) {
+                        depth--;
+                    }
+                }
+                return null;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid XML: " + e.getMessage(), e);
+        }
+    }
+
+    // number of elements directly under the root, i.e. the items of a list response
+    public static int count(String body) throws IOException {
+        try {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader(body));
+            try {
+                int depth = 0;
+                int count = 0;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamReader.START_ELEMENT) {
+                        if (++depth == 2) {
+                            count++;
+                        }
+                    } else if (event == XMLStreamReader.END_ELEMENT) {
+                        depth--;
+                    }
+                }
+                return count;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid XML: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseXmlTest {
+    private static final String TODO = "<todo><tasksof><project><id>1</id></project></tasksof><id>17</id>"
+            + "<title>scan paperwork</title><doneStatus>false</doneStatus><categories><category><id>3</id></category></categories></todo>";
+
+    @Test
+    public void shouldReadTopLevelIdOnly() throws IOException {
+        assertEquals("17", ResponseXml.id(TODO));
+        assertEquals("false", ResponseXml.field(TODO, "doneStatus"));
+        assertNull(ResponseXml.field(TODO, "description"));
+    }
+
+    @Test
+    public void shouldCountListItems() throws IOException {
+        assertEquals(2, ResponseXml.count("<todos>" + TODO + TODO + "</todos>"));
+        assertEquals(0, ResponseXml.count("<todos/>"));
+    }
+
+    @Test
+    public void shouldWriteEscapedElements() throws IOException {
+        String body = ResponseXml.write("category", "title", "Home & <Garden>", "description", "");
+        assertTrue(body.startsWith("<category><title>Home &amp; &lt;Garden"), body);
+        assertEquals("Home & <Garden>", ResponseXml.field(body, "title"));
+    }
+
+    @Test
+    public void shouldRejectMalformedXml() {
+        assertThrows(IOException.class, () -> ResponseXml.id("<project><title>Invalid Project<description>x</description></project>"));
+    }
+}
@@ -0,0 +1,218 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Offline analysis of a ResultStore file: per-route percentiles over the whole
+// run, and a time series of fixed windows (throughput, errors, p50/p99/max)
+// that shows drift over a soak.
+//
+//   java ResultReader --file results.bin [--window 60s] [--csv windows.csv]
+//
+// The file is scanned through read-only mappings a region at a time and
+// records are handed to a visitor as primitives, so reading a multi-gigabyte
+// run needs no more heap than writing it did.
+public final class ResultReader {
+    private static final long REGION_BYTES = 64L * 1024 * 1024;
+
+    private final Path file;
+    private final List<String> routes;
+    private final long startEpochMillis;
+
+    public interface Visitor {
+        void visit(long offsetNanos, int routeId, int status, long latencyNanos, int bytes, boolean error);
+    }
+
+    public record Window(long startNanos, long requests, long errors, long bytes, LatencyHistogram latency) {
+    }
+
+    public ResultReader(Path file) throws IOException {
+        this.file = file;
+        this.routes = ResultStore.readRoutes(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(ResultStore.HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading
+            }
+            header.flip();
+            if (header.remaining() < ResultStore.HEADER_BYTES || header.getInt(0) != ResultStore.MAGIC
+                    || header.getInt(4) != ResultStore.VERSION || header.getInt(8) != ResultStore.RECORD_BYTES) {
+                throw new IOException(file + " is not a version " + ResultStore.VERSION + " result store");
+            }
+            this.startEpochMillis = header.getLong(16);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        CliArgs options = CliArgs.parse(args);
+        ResultReader reader = new ResultReader(Paths.get(options.get("file", "results.bin")));
+        Duration window = options.getDuration("window", Duration.ofSeconds(60));
+        reader.printSummary(System.out);
+        System.out.println();
+        reader.printWindows(System.out, window);
+        if (options.has("csv")) {
+            try (CsvReport csv = new CsvReport(Paths.get(options.get("csv", "")),
+                    "start", "requests", "errors", "req_per_s", "mb", "p50_ms", "p99_ms", "max_ms")) {
+                reader.windows(window, w -> {
+                    try {
+                        csv.row(Instant.ofEpochMilli(reader.startEpochMillis + w.startNanos() / 1_000_000), w.requests(),
+                                w.errors(), w.requests() / (window.toNanos() / 1e9), w.bytes() / 1e6,
+                                w.latency().valueAtPercentile(50) / 1000.0, w.latency().valueAtPercentile(99) / 1000.0,
+                                w.latency().maxMicros() / 1000.0);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        }
+    }
+
+    public List<String> routes() {
+        return routes;
+    }
+
+    public String route(int routeId) {
+        return routeId < routes.size() ? routes.get(routeId) : "route#" + routeId;
+    }
+
+    // every complete record, in append order; returns how many there were
+    public long forEach(Visitor visitor) throws IOException {
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long regionBytes = REGION_BYTES - REGION_BYTES % ResultStore.RECORD_BYTES;
+            for (long position = ResultStore.HEADER_BYTES; position < size; position += regionBytes) {
+                long length = Math.min(regionBytes, size - position);
+                length -= length % ResultStore.RECORD_BYTES;
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                for (int at = 0; at < length; at += ResultStore.RECORD_BYTES) {
+                    short status = region.getShort(at + 22);
+                    if (status == 0) {
+                        // never finished; the run stopped while it was being written
+                        return count;
+                    }
+                    visitor.visit(region.getLong(at), region.getShort(at + 20), status, region.getLong(at + 8),
+                            region.getInt(at + 16), (region.getInt(at + 24) & ResultStore.ERROR) != 0);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // one latency histogram per route id
+    public LatencyHistogram[] histograms() throws IOException {
+        LatencyHistogram[] histograms = new LatencyHistogram[Math.max(routes.size(), 1)];
+        forEach((offset, routeId, status, latency, bytes, error) -> {
+            if (routeId >= histograms.length) {
+                return;
+            }
+            if (histograms[routeId] == null) {
+                histograms[routeId] = new LatencyHistogram();
+            }
+            histograms[routeId].recordNanos(latency);
+        });
+        return histograms;
+    }
+
+    // Consecutive windows of the given width from the start of the run, in
+    // order. Records are appended at completion, so a slow request can land
+    // after a record of the next window; it is still counted in its own
+    // window as long as that is the current or the previous one, and in the
+    // previous one otherwise.
+    public void windows(Duration width, Consumer<Window> consumer) throws IOException {
+        long widthNanos = width.toNanos();
+        Bucket[] open = {new Bucket(0), new Bucket(widthNanos)};
+        forEach((offset, routeId, status, latency, bytes, error) -> {
+            long index = Math.max(0, offset / widthNanos);
+            while (index * widthNanos > open[1].startNanos) {
+                consumer.accept(open[0].toWindow());
+                open[0] = open[1];
+                open[1] = new Bucket(open[0].startNanos + widthNanos);
+            }
+            (index * widthNanos == open[1].startNanos ? open[1] : open[0]).add(latency, bytes, error);
+        });
+        consumer.accept(open[0].toWindow());
+        if (open[1].requests > 0) {
+            consumer.accept(open[1].toWindow());
+        }
+    }
+
+    public void printSummary(PrintStream out) throws IOException {
+        long[] requests = new long[Math.max(routes.size(), 1)];
+        long[] errors = new long[requests.length];
+        long[] span = {0};
+        LatencyHistogram[] histograms = new LatencyHistogram[requests.length];
+        long total = forEach((offset, routeId, status, latency, bytes, error) -> {
+            if (routeId >= requests.length) {
+                return;
+            }
+            requests[routeId]++;
+            if (error) {
+                errors[routeId]++;
+            }
+            if (histograms[routeId] == null) {
+                histograms[routeId] = new LatencyHistogram();
+            }
+            histograms[routeId].recordNanos(latency);
+            span[0] = Math.max(span[0], offset + latency);
+        });
+        double seconds = Math.max(span[0] / 1e9, 1e-9);
+        out.printf("%s: %d requests over %.1fs from %s%n", file, total, seconds, Instant.ofEpochMilli(startEpochMillis));
+        out.printf("%-32s %10s %8s %10s %9s %9s %9s %9s %9s%n", "route", "requests", "errors", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (int id = 0; id < histograms.length; id++) {
+            LatencyHistogram latency = histograms[id];
+            if (latency == null) {
+                continue;
+            }
+            out.printf("%-32s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", route(id), requests[id], errors[id],
+                    requests[id] / seconds,
+                    latency.valueAtPercentile(50) / 1000.0, latency.valueAtPercentile(90) / 1000.0,
+                    latency.valueAtPercentile(99) / 1000.0, latency.valueAtPercentile(99.9) / 1000.0,
+                    latency.maxMicros() / 1000.0);
+        }
+    }
+
+    public void printWindows(PrintStream out, Duration width) throws IOException {
+        out.printf("%10s %10s %8s %10s %9s %9s %9s%n", "start s", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+        double seconds = width.toNanos() / 1e9;
+        windows(width, w -> out.printf("%10.0f %10d %8d %10.1f %9.2f %9.2f %9.2f%n", w.startNanos() / 1e9,
+                w.requests(), w.errors(), w.requests() / seconds, w.latency().valueAtPercentile(50) / 1000.0,
+                w.latency().valueAtPercentile(99) / 1000.0, w.latency().maxMicros() / 1000.0));
+    }
+
+    private static final class Bucket {
+        final long startNanos;
+        final LatencyHistogram latency = new LatencyHistogram();
+        long requests;
+        long errors;
+        long bytes;
+
+        Bucket(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        void add(long latencyNanos, int size, boolean error) {
+            latency.recordNanos(latencyNanos);
+            requests++;
+            bytes += size;
+            if (error) {
+                errors++;
+            }
+        }
+
+        Window toWindow() {
+            return new Window(startNanos, requests, errors, bytes, latency);
+        }
+    }
+}
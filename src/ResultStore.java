@@ -0,0 +1,208 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-request results of a soak run, appended to a memory-mapped file so the
+// client heap stays flat however long the run is. ResultReader analyses the
+// file afterwards.
+//
+// The file is a 32-byte header (magic "RSLT", version, record size, start
+// time in epoch millis) followed by fixed-width 32-byte records:
+//
+//   long   start, in nanos since the store was opened
+//   long   latency nanos
+//   int    response bytes
+//   short  route id
+//   short  status (-1 when the request failed)
+//   int    flags (bit 0: counted as an error)
+//   int    unused
+//
+// Route ids index the lines of the <file>.routes text file next to it, which
+// grows as new routes appear. Appends claim a slot with one atomic increment
+// and write it with absolute puts, so concurrent writers never contend on a
+// lock. The file is mapped REGION_BYTES at a time and only the two newest
+// regions stay referenced. A record whose status is still 0 was never
+// finished; the reader stops there, so a crashed run loses at most its last
+// few records. close() waits for appends already past its check before it
+// forces and trims the file, so no record lands after the trim.
+public final class ResultStore implements AutoCloseable {
+    static final int MAGIC = 0x52534C54;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 32;
+    static final int ERROR = 1;
+    private static final long REGION_BYTES = 64L * 1024 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long recordsPerRegion;
+    private final long originNanos = System.nanoTime();
+    private final AtomicLong next = new AtomicLong();
+    private final Map<Long, MappedByteBuffer> regions = new ConcurrentHashMap<>();
+    private volatile Region latest = new Region(-1, null);
+    private final Map<String, Integer> routeIds = new ConcurrentHashMap<>();
+    private final BufferedWriter routes;
+    // appends between their closed check and their last put
+    private final AtomicInteger appending = new AtomicInteger();
+    private volatile boolean closed;
+
+    public ResultStore(Path file) throws IOException {
+        this(file, REGION_BYTES / RECORD_BYTES);
+    }
+
+    // a small recordsPerRegion lets tests cross region boundaries cheaply
+    ResultStore(Path file, long recordsPerRegion) throws IOException {
+        this.file = file;
+        this.recordsPerRegion = recordsPerRegion;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC).putInt(VERSION).putInt(RECORD_BYTES).putInt(0)
+                .putLong(System.currentTimeMillis());
+        header.clear();
+        channel.write(header, 0);
+        this.routes = Files.newBufferedWriter(routesFile(file), StandardCharsets.UTF_8);
+    }
+
+    static Path routesFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".routes");
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    // records appended so far
+    public long size() {
+        return next.get();
+    }
+
+    public void append(String route, int status, long latencyNanos, long bytes, boolean error) {
+        append(System.nanoTime() - latencyNanos, route, status, latencyNanos, bytes, error);
+    }
+
+    // startNanos is a System.nanoTime() value, e.g. an open-model request's intended start
+    public void append(long startNanos, String route, int status, long latencyNanos, long bytes, boolean error) {
+        // counted before the check: close() either sees this append or this append sees it closed
+        appending.incrementAndGet();
+        try {
+            if (closed) {
+                return;
+            }
+            int routeId = routeId(route);
+            long index = next.getAndIncrement();
+            MappedByteBuffer region;
+            try {
+                region = region(index / recordsPerRegion);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            int at = (int) ((index % recordsPerRegion) * RECORD_BYTES);
+            region.putLong(at, startNanos - originNanos);
+            region.putLong(at + 8, latencyNanos);
+            region.putInt(at + 16, (int) Math.min(bytes, Integer.MAX_VALUE));
+            region.putShort(at + 20, (short) routeId);
+            region.putInt(at + 24, error ? ERROR : 0);
+            // written last: a non-zero status marks the record complete
+            region.putShort(at + 22, (short) (status == 0 ? -1 : status));
+        } finally {
+            appending.decrementAndGet();
+        }
+    }
+
+    private MappedByteBuffer region(long number) throws IOException {
+        Region newest = latest;
+        if (newest.number == number) {
+            return newest.buffer;
+        }
+        MappedByteBuffer region = regions.get(number);
+        if (region != null) {
+            return region;
+        }
+        synchronized (regions) {
+            region = regions.get(number);
+            if (region == null) {
+                long bytes = recordsPerRegion * RECORD_BYTES;
+                // mapping past the end grows the file
+                region = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + number * bytes, bytes);
+                regions.put(number, region);
+                // writers are at most a region behind the newest one
+                regions.remove(number - 2);
+                if (number > latest.number) {
+                    latest = new Region(number, region);
+                }
+            }
+            return region;
+        }
+    }
+
+    private int routeId(String route) {
+        Integer id = routeIds.get(route);
+        if (id != null) {
+            return id;
+        }
+        synchronized (routeIds) {
+            id = routeIds.get(route);
+            if (id == null) {
+                id = routeIds.size();
+                if (id > Short.MAX_VALUE) {
+                    throw new IllegalStateException("More than " + Short.MAX_VALUE + " routes in " + file);
+                }
+                try {
+                    routes.write(route);
+                    routes.newLine();
+                    routes.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                routeIds.put(route, id);
+            }
+            return id;
+        }
+    }
+
+    // Forces the mapped regions out and trims the file to the records written.
+    // Appends that start after close() are dropped; those already under way
+    // are waited for.
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        while (appending.get() > 0) {
+            Thread.onSpinWait();
+        }
+        try {
+            for (MappedByteBuffer region : new ArrayList<>(regions.values())) {
+                region.force();
+            }
+            regions.clear();
+            channel.truncate(HEADER_BYTES + next.get() * RECORD_BYTES);
+        } finally {
+            channel.close();
+            routes.close();
+        }
+    }
+
+    private record Region(long number, MappedByteBuffer buffer) {
+    }
+
+    static List<String> readRoutes(Path file) throws IOException {
+        Path routes = routesFile(file);
+        return Files.exists(routes) ? Files.readAllLines(routes, StandardCharsets.UTF_8) : List.of();
+    }
+}
@@ -0,0 +1,113 @@
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultStoreTest {
+
+    @Test
+    public void shouldReadBackConcurrentAppendsAcrossRegions(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("results.bin");
+        try (ResultStore store = new ResultStore(file, 100)) {
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                String route = t % 2 == 0 ? "GET /todos" : "POST /todos";
+                Thread writer = new Thread(() -> {
+                    for (int i = 1; i <= 1000; i++) {
+                        store.append(route, 200, i * 1000L, 42, i % 100 == 0);
+                    }
+                });
+                writers.add(writer);
+                writer.start();
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            assertEquals(4000, store.size());
+        }
+        assertEquals(ResultStore.HEADER_BYTES + 4000L * ResultStore.RECORD_BYTES, Files.size(file));
+
+        ResultReader reader = new ResultReader(file);
+        assertEquals(List.of("GET /todos", "POST /todos"), reader.routes().stream().sorted().toList());
+        AtomicLong errors = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        assertEquals(4000, reader.forEach((offset, routeId, status, latency, size, error) -> {
+            assertEquals(200, status);
+            bytes.addAndGet(size);
+            if (error) {
+                errors.incrementAndGet();
+            }
+        }));
+        assertEquals(40, errors.get());
+        assertEquals(4000 * 42, bytes.get());
+
+        LatencyHistogram[] histograms = reader.histograms();
+        for (LatencyHistogram histogram : histograms) {
+            assertEquals(2000, histogram.count());
+            // latencies run 1..1000 us per writer
+            assertEquals(500, histogram.valueAtPercentile(50), 5);
+            assertEquals(1000, histogram.maxMicros(), 1);
+        }
+    }
+
+    @Test
+    public void shouldSplitRunIntoWindows(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("windows.bin");
+        try (ResultStore store = new ResultStore(file)) {
+            long origin = System.nanoTime();
+            for (int second = 0; second < 3; second++) {
+                for (int i = 0; i < 10 * (second + 1); i++) {
+                    store.append(origin + second * 1_000_000_000L + 1_000_000L, "GET /todos", 200, 2_000_000L, 10, false);
+                }
+            }
+        }
+        List<ResultReader.Window> windows = new ArrayList<>();
+        new ResultReader(file).windows(Duration.ofSeconds(1), windows::add);
+        assertEquals(List.of(10L, 20L, 30L), windows.stream().map(ResultReader.Window::requests).toList());
+        assertEquals(2000, windows.get(2).latency().valueAtPercentile(99), 5);
+    }
+
+    @Test
+    public void shouldStopAtUnfinishedRecord(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("crashed.bin");
+        ResultStore store = new ResultStore(file, 100);
+        for (int i = 0; i < 5; i++) {
+            store.append("GET /todos", 200, 1000, 1, false);
+        }
+        // not closed: the rest of the mapped region is still zeros
+        assertEquals(5, new ResultReader(file).forEach((offset, routeId, status, latency, size, error) -> { }));
+        store.close();
+    }
+
+    @Test
+    public void shouldFinishRacingAppendsBeforeTrimming(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("racing.bin");
+        ResultStore store = new ResultStore(file, 64);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    store.append("GET /todos", 200, 1000, 1, false);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        Thread.sleep(20);
+        store.close();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        // every record claimed before the close is complete and inside the trimmed file
+        long records = store.size();
+        assertEquals(ResultStore.HEADER_BYTES + records * ResultStore.RECORD_BYTES, Files.size(file));
+        assertEquals(records, new ResultReader(file).forEach((offset, routeId, status, latency, size, error) -> { }));
+    }
+}
@@ -0,0 +1,35 @@
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// A latency budget for one route, checked against the requests a test class
+// sends anyway:
+//
+//   @RouteBudget(route = "GET /todos/{id}", percentile = 50, millis = 20)
+//   public class TodosTest { ... }
+//
+// RouteBudgetExtension records the exchanges on the route that the class's
+// test methods send themselves (synchronously, on the test's thread), so
+// neither other classes running in parallel nor fixture pools provisioning in
+// the background count. After the last test the pooled samples are judged
+// like LatencyBudget does (times -Dslo.scale). A class that sent fewer than
+// LatencyBudget.minSamples(percentile) fails: the budget asks for a
+// percentile its tests cannot measure.
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Repeatable(RouteBudget.List.class)
+public @interface RouteBudget {
+    String route();
+
+    double percentile() default 50;
+
+    long millis();
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    @interface List {
+        RouteBudget[] value();
+    }
+}
@@ -0,0 +1,107 @@
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Checks a test class's @RouteBudget annotations (see there). Registered for
+// every class through META-INF/services; classes without budgets are left
+// alone. While a test method of a budgeted class runs, its thread is tagged
+// with the class's samples, and the class's listener only records exchanges
+// published on a thread tagged with them, which for HttpTransport.send is the
+// thread that sent them.
+public class RouteBudgetExtension implements BeforeAllCallback, AfterAllCallback, BeforeTestExecutionCallback,
+        AfterTestExecutionCallback {
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(RouteBudgetExtension.class);
+    private static final ThreadLocal<Samples> current = new ThreadLocal<>();
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        List<RouteBudget> budgets = context.getTestClass()
+                .map(type -> AnnotationSupport.findRepeatableAnnotations(type, RouteBudget.class))
+                .orElse(List.of());
+        if (budgets.isEmpty()) {
+            return;
+        }
+        Samples samples = new Samples(budgets);
+        HttpTransport.addListener(samples);
+        context.getStore(NAMESPACE).put(Samples.class, samples);
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        current.set(context.getStore(NAMESPACE).get(Samples.class, Samples.class));
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        current.remove();
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        Samples samples = context.getStore(NAMESPACE).remove(Samples.class, Samples.class);
+        if (samples == null) {
+            return;
+        }
+        HttpTransport.removeListener(samples);
+        List<String> failed = new ArrayList<>();
+        for (int b = 0; b < samples.budgets.size(); b++) {
+            RouteBudget budget = samples.budgets.get(b);
+            long[] nanos = samples.take(b);
+            String name = context.getDisplayName() + ": " + budget.route();
+            int needed = LatencyBudget.minSamples(budget.percentile());
+            if (nanos.length < needed) {
+                failed.add("Latency budget rejected, " + name + " sent " + nanos.length + " requests and p"
+                        + budget.percentile() + " needs " + needed);
+                continue;
+            }
+            try {
+                System.out.println(LatencyBudget.enforce(LatencyBudget.report(budget.route(), budget.percentile(),
+                        Duration.ofMillis(budget.millis()), nanos)));
+            } catch (AssertionError e) {
+                failed.add(e.getMessage());
+            }
+        }
+        if (!failed.isEmpty()) {
+            throw new AssertionError(String.join("\n", failed));
+        }
+    }
+
+    private static final class Samples implements HttpTransport.Listener {
+        final List<RouteBudget> budgets;
+        private final List<List<Long>> nanos = new ArrayList<>();
+
+        Samples(List<RouteBudget> budgets) {
+            this.budgets = budgets;
+            for (int b = 0; b < budgets.size(); b++) {
+                nanos.add(new ArrayList<>());
+            }
+        }
+
+        // failed exchanges are the tests' business, not a latency
+        @Override
+        public void onExchange(Exchange exchange) {
+            if (current.get() != this || exchange.failure() != null) {
+                return;
+            }
+            String route = exchange.route();
+            for (int b = 0; b < budgets.size(); b++) {
+                if (budgets.get(b).route().equals(route)) {
+                    synchronized (this) {
+                        nanos.get(b).add(exchange.latencyNanos());
+                    }
+                }
+            }
+        }
+
+        synchronized long[] take(int budget) {
+            return nanos.get(budget).stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Finds the highest request rate a target sustains for a route mix: ramps
+// the open-model LoadGenerator up step by step until p99 latency or the
+// error rate crosses its threshold, then narrows down between the last good
+// and the first bad rate.
+//
+//   java SaturationFinder --p99 250ms --max-error-rate 0.01 --demand 5000 --label thingifier-1.5.5
+//
+// Other options: --mix "route=weight,..." (default 70% GET /todos/{id}, 20%
+// POST /todos, 10% POST /todos/{id}/categories), --start 50 (req/s),
+// --factor 1.5, --max 100000, --step 10s, --refine 3, --max-in-flight 1000,
+// --warmup auto, --out saturation.csv, --target <name|url>.
+//
+// A step passes when p99 and the error rate are within their thresholds and
+// the generator really sent what it was asked to (at least 95% of the offered
+// rate, nothing dropped at the in-flight cap). Latency is measured from each
+// request's intended start, so a server falling behind shows up as queueing
+// latency at the step where it saturates. --demand N also reports how many
+// instances of the target N req/s of this mix would take. POSTs create data
+// as the ramp goes, so later steps run against a somewhat larger dataset.
+public final class SaturationFinder {
+    static final String DEFAULT_MIX = "GET /todos/{id}=70,POST /todos=20,POST /todos/{id}/categories=10";
+    // below this share of the offered rate the client, not the server, set the pace
+    private static final double MIN_ACHIEVED = 0.95;
+
+    private final Duration p99Threshold;
+    private final double maxErrorRate;
+    private double start = 50;
+    private double factor = 1.5;
+    private double max = 100_000;
+    private int refineSteps = 3;
+
+    public SaturationFinder(Duration p99Threshold, double maxErrorRate) {
+        this.p99Threshold = p99Threshold;
+        this.maxErrorRate = maxErrorRate;
+    }
+
+    // one measured rate
+    public record Step(double offeredRps, double achievedRps, long requests, long errors, long dropped,
+                       double p50Millis, double p99Millis) {
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+    }
+
+    public record Result(List<Step> steps, Step sustainable, Step firstFailure) {
+        // the highest offered rate that passed, 0 when even the first step failed
+        public double maxSustainableRps() {
+            return sustainable == null ? 0 : sustainable.offeredRps();
+        }
+
+        // instances of the target needed to serve demand req/s of this mix
+        public int instancesFor(double demandRps) {
+            return sustainable == null ? -1 : (int) Math.ceil(demandRps / sustainable.achievedRps());
+        }
+    }
+
+    // measures the target at a given rate
+    public interface Probe {
+        Step run(double requestsPerSecond) throws InterruptedException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        CliArgs options = CliArgs.parse(args);
+        ApiTarget target = options.has("target") ? ApiTargets.get(options.get("target", "")) : ApiTargets.current();
+        String label = options.get("label", target.name());
+        LoadMix mix = LoadMix.parse(options.get("mix", DEFAULT_MIX));
+        Duration stepDuration = options.getDuration("step", Duration.ofSeconds(10));
+        int maxInFlight = options.getInt("max-in-flight", 1000);
+        SaturationFinder finder = new SaturationFinder(options.getDuration("p99", Duration.ofMillis(250)),
+                options.getDouble("max-error-rate", 0.01))
+                .start(options.getDouble("start", 50)).factor(options.getDouble("factor", 1.5))
+                .max(options.getDouble("max", 100_000)).refineSteps(options.getInt("refine", 3));
+        try (CsvReport csv = new CsvReport(Paths.get(options.get("out", "saturation.csv")), "label", "mix",
+                "offered_rps", "achieved_rps", "requests", "errors", "dropped", "p50_ms", "p99_ms", "passed")) {
+            if (options.get("warmup", "off").equalsIgnoreCase("auto")) {
+                System.out.println("warm-up: " + new WarmUp(target).run());
+            }
+            LoadGenerator generator = new LoadGenerator(target, mix);
+            generator.prime();
+            System.out.printf("Ramping %s against %s: p99 <= %d ms, errors <= %.2f%%, %s per step%n", mix, target,
+                    finder.p99Threshold.toMillis(), finder.maxErrorRate * 100, stepDuration);
+            System.out.printf("%12s %12s %9s %7s %8s %9s %9s  %s%n", "offered/s", "achieved/s", "requests", "errors",
+                    "dropped", "p50 ms", "p99 ms", "verdict");
+            Result result = finder.find(rate -> {
+                generator.resetStats();
+                long begin = System.nanoTime();
+                generator.runOpen(rate, stepDuration, maxInFlight);
+                Step step = step(rate, generator.stats(), (System.nanoTime() - begin) / 1e9);
+                boolean passed = finder.passes(step);
+                System.out.printf("%12.0f %12.1f %9d %7d %8d %9.2f %9.2f  %s%n", step.offeredRps(), step.achievedRps(),
+                        step.requests(), step.errors(), step.dropped(), step.p50Millis(), step.p99Millis(),
+                        passed ? "ok" : finder.reason(step));
+                try {
+                    csv.row(label, mix, step.offeredRps(), step.achievedRps(), step.requests(), step.errors(),
+                            step.dropped(), step.p50Millis(), step.p99Millis(), passed);
+                } catch (IOException e) {
+                    System.err.println("Could not write " + options.get("out", "saturation.csv") + ": " + e.getMessage());
+                }
+                return step;
+            });
+            if (result.sustainable() == null) {
+                System.out.printf("Not sustainable even at %.0f req/s%n", finder.start);
+            } else {
+                Step best = result.sustainable();
+                System.out.printf("Max sustainable: %.0f req/s offered (%.1f achieved, p99 %.2f ms)%s%n",
+                        best.offeredRps(), best.achievedRps(), best.p99Millis(),
+                        result.firstFailure() == null ? ", the --max rate; the target did not saturate" : "");
+                if (options.has("demand")) {
+                    double demand = options.getDouble("demand", 0);
+                    System.out.printf("%.0f req/s of this mix needs %d instance(s)%n", demand, result.instancesFor(demand));
+                }
+            }
+        } finally {
+            TodoManagerStub.stopShared();
+        }
+    }
+
+    public SaturationFinder start(double requestsPerSecond) {
+        this.start = requestsPerSecond;
+        return this;
+    }
+
+    public SaturationFinder factor(double factor) {
+        if (factor <= 1) {
+            throw new IllegalArgumentException("Ramp factor must be above 1, got " + factor);
+        }
+        this.factor = factor;
+        return this;
+    }
+
+    public SaturationFinder max(double requestsPerSecond) {
+        this.max = requestsPerSecond;
+        return this;
+    }
+
+    public SaturationFinder refineSteps(int steps) {
+        this.refineSteps = steps;
+        return this;
+    }
+
+    // Multiplies the rate by the factor until a step fails (or max is
+    // reached), then bisects between the last passing and the failing rate.
+    public Result find(Probe probe) throws InterruptedException {
+        List<Step> steps = new ArrayList<>();
+        Step good = null;
+        Step bad = null;
+        for (double rate = start; ; rate = Math.min(rate * factor, max)) {
+            Step step = probe.run(rate);
+            steps.add(step);
+            if (!passes(step)) {
+                bad = step;
+                break;
+            }
+            good = step;
+            if (rate >= max) {
+                break;
+            }
+        }
+        for (int i = 0; i < refineSteps && good != null && bad != null; i++) {
+            Step step = probe.run((good.offeredRps() + bad.offeredRps()) / 2);
+            steps.add(step);
+            if (passes(step)) {
+                good = step;
+            } else {
+                bad = step;
+            }
+        }
+        return new Result(steps, good, bad);
+    }
+
+    public boolean passes(Step step) {
+        return reason(step) == null;
+    }
+
+    // why a step failed, or null when it passed
+    String reason(Step step) {
+        if (step.requests() == 0) {
+            return "no requests completed";
+        }
+        if (step.p99Millis() > p99Threshold.toNanos() / 1e6) {
+            return "p99 over " + p99Threshold.toMillis() + " ms";
+        }
+        if (step.errorRate() > maxErrorRate) {
+            return String.format("%.2f%% errors", step.errorRate() * 100);
+        }
+        if (step.dropped() > 0 || step.achievedRps() < step.offeredRps() * MIN_ACHIEVED) {
+            return "could not send the offered rate";
+        }
+        return null;
+    }
+
+    static Step step(double offeredRps, LoadStats stats, double seconds) {
+        LatencyHistogram latency = stats.overallLatency();
+        return new Step(offeredRps, stats.requests() / seconds, stats.requests(), stats.errors(), stats.droppedArrivals(),
+                latency.valueAtPercentile(50) / 1000.0, latency.valueAtPercentile(99) / 1000.0);
+    }
+}
@@ -0,0 +1,48 @@
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SaturationFinderTest {
+
+    // a target that keeps p99 at 5 ms up to 730 req/s and then falls over
+    private static SaturationFinder.Step simulated(double rate) {
+        double p99 = rate <= 730 ? 5 : 900;
+        long requests = (long) (rate * 10);
+        return new SaturationFinder.Step(rate, rate, requests, 0, 0, 1, p99);
+    }
+
+    @Test
+    public void shouldRampThenBisectTowardsSaturation() throws InterruptedException {
+        SaturationFinder.Result result = new SaturationFinder(Duration.ofMillis(250), 0.01)
+                .start(100).factor(2).refineSteps(4)
+                .find(SaturationFinderTest::simulated);
+        // 100, 200, 400, 800 (fails), then 600, 700, 750 (fails), 725
+        assertEquals(8, result.steps().size());
+        assertEquals(725, result.maxSustainableRps(), 1e-9);
+        assertEquals(750, result.firstFailure().offeredRps(), 1e-9);
+        assertEquals(7, result.instancesFor(5000));
+    }
+
+    @Test
+    public void shouldFailStepsOnErrorsAndClientShortfall() {
+        SaturationFinder finder = new SaturationFinder(Duration.ofMillis(250), 0.01);
+        assertTrue(finder.passes(new SaturationFinder.Step(100, 99, 990, 9, 0, 1, 10)));
+        assertFalse(finder.passes(new SaturationFinder.Step(100, 99, 990, 20, 0, 1, 10)));
+        assertFalse(finder.passes(new SaturationFinder.Step(100, 80, 800, 0, 0, 1, 10)));
+        assertFalse(finder.passes(new SaturationFinder.Step(100, 99, 990, 0, 3, 1, 10)));
+        assertFalse(finder.passes(new SaturationFinder.Step(100, 99, 990, 0, 0, 1, 251)));
+    }
+
+    @Test
+    public void shouldStopAtMaxWhenTargetNeverSaturates() throws InterruptedException {
+        SaturationFinder.Result result = new SaturationFinder(Duration.ofMillis(250), 0.01)
+                .start(100).factor(3).max(500)
+                .find(SaturationFinderTest::simulated);
+        // 100, 300, 500
+        assertEquals(3, result.steps().size());
+        assertEquals(500, result.maxSustainableRps(), 1e-9);
+        assertNull(result.firstFailure());
+    }
+}
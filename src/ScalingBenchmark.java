@@ -0,0 +1,142 @@
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs the suite's filtered list queries at growing dataset sizes and reports
+// latency and response size per step, to show whether filtering stays linear
+// and where the server falls over.
+//
+//   java ScalingBenchmark --sizes 1000,10000,100000,1000000 --label thingifier-1.5.5
+//
+// Other options: --samples 20, --warmup 5, --timeout 120s, --out scaling.csv,
+// --categories-per-todo 0, --checkpoint scaling-checkpoint, --target <name|url>.
+//
+// Each size is the number of todos, projects and categories. The dataset is
+// grown between steps with DatasetSeeder on one checkpoint, so every step
+// only adds the difference. A step whose seeding did not complete is not
+// measured and the run stops there, so every row's size was really seeded.
+// Responses are read with JsonArrayHandler, so the client never holds a
+// million-entity body in memory. Rows are appended to the CSV (one per size
+// and query) together with --label, so runs against different server
+// releases can be plotted side by side.
+public final class ScalingBenchmark {
+    // the filters TodosTest, ProjectsTest and CategoriesTest check, plus the unfiltered lists
+    static final String[][] QUERIES = {
+            {"/todos", "todos"},
+            {"/todos?doneStatus=true", "todos"},
+            {"/todos?doneStatus=false", "todos"},
+            {"/projects", "projects"},
+            {"/projects?completed=false", "projects"},
+            {"/projects?active=true", "projects"},
+            {"/categories", "categories"},
+            {"/categories?title=Home", "categories"},
+    };
+
+    private final ApiTarget target;
+    private final int warmup;
+    private final int samples;
+    private final Duration timeout;
+
+    public ScalingBenchmark(ApiTarget target, int warmup, int samples, Duration timeout) {
+        this.target = target;
+        this.warmup = warmup;
+        this.samples = samples;
+        this.timeout = timeout;
+    }
+
+    public record Step(String query, int samples, int errors, LatencyHistogram latency, long bytes, long elements) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CliArgs options = CliArgs.parse(args);
+        ApiTarget target = options.has("target") ? ApiTargets.get(options.get("target", "")) : ApiTargets.current();
+        List<Integer> sizes = new ArrayList<>();
+        for (String size : options.get("sizes", "1000,10000,100000,1000000").split(",")) {
+            sizes.add(Integer.parseInt(size.trim()));
+        }
+        String label = options.get("label", target.name());
+        Path checkpoint = Paths.get(options.get("checkpoint", "scaling-checkpoint"));
+        int linksPerTodo = options.getInt("categories-per-todo", 0);
+        ScalingBenchmark benchmark = new ScalingBenchmark(target, options.getInt("warmup", 5),
+                options.getInt("samples", 20), options.getDuration("timeout", Duration.ofSeconds(120)));
+        try (CsvReport csv = new CsvReport(Paths.get(options.get("out", "scaling.csv")), "label", "size", "query",
+                "samples", "errors", "p50_ms", "p90_ms", "p99_ms", "max_ms", "mean_ms", "bytes", "elements", "p50_us_per_1k")) {
+            for (int size : sizes) {
+                DatasetSeeder.Plan plan = new DatasetSeeder.Plan(size, size, size, linksPerTodo, 0.3, 0.5, 0.2);
+                System.out.printf("== size %d: seeding%n", size);
+                long failed = new DatasetSeeder(target, plan, checkpoint, options.getInt("max-in-flight", 64), 0)
+                        .run(Duration.ofSeconds(10));
+                if (failed > 0) {
+                    // the dataset is short of the size the rows would be labelled with
+                    System.err.printf("%d entities or links failed to seed at size %d, stopping; rerun with the same"
+                            + " --checkpoint to fill them in%n", failed, size);
+                    break;
+                }
+                System.out.printf("%-28s %7s %7s %9s %9s %9s %9s %12s %9s%n",
+                        "query", "samples", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms", "bytes", "elements");
+                int failedQueries = 0;
+                for (String[] query : QUERIES) {
+                    Step step = benchmark.measure(query[0], query[1]);
+                    LatencyHistogram latency = step.latency();
+                    System.out.printf("%-28s %7d %7d %9.2f %9.2f %9.2f %9.2f %12d %9d%n", step.query(), step.samples(),
+                            step.errors(), latency.valueAtPercentile(50) / 1000.0, latency.valueAtPercentile(90) / 1000.0,
+                            latency.valueAtPercentile(99) / 1000.0, latency.maxMicros() / 1000.0, step.bytes(), step.elements());
+                    csv.row(label, size, step.query(), step.samples(), step.errors(),
+                            latency.valueAtPercentile(50) / 1000.0, latency.valueAtPercentile(90) / 1000.0,
+                            latency.valueAtPercentile(99) / 1000.0, latency.maxMicros() / 1000.0,
+                            latency.meanMicros() / 1000.0, step.bytes(), step.elements(),
+                            latency.valueAtPercentile(50) * 1000.0 / size);
+                    if (step.errors() == step.samples()) {
+                        failedQueries++;
+                    }
+                }
+                if (failedQueries == QUERIES.length) {
+                    System.out.printf("every query failed at size %d, not growing further%n", size);
+                    break;
+                }
+            }
+        } finally {
+            TodoManagerStub.stopShared();
+        }
+    }
+
+    // warm-up requests first, then samples timed one after another
+    public Step measure(String path, String array) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder().uri(target.uri(path)).timeout(timeout).GET().build();
+        JsonArrayHandler handler = JsonArrayHandler.of(array).require("id");
+        for (int i = 0; i < warmup; i++) {
+            send(request, handler);
+        }
+        LatencyHistogram latency = new LatencyHistogram();
+        int errors = 0;
+        long bytes = 0;
+        long elements = 0;
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            HttpResponse<JsonArrayHandler.Summary> response = send(request, handler);
+            long elapsed = System.nanoTime() - start;
+            if (response == null || response.statusCode() != 200 || !response.body().valid()) {
+                errors++;
+                continue;
+            }
+            latency.recordNanos(elapsed);
+            bytes = response.body().bytes();
+            elements = response.body().count();
+        }
+        return new Step(path, samples, errors, latency, bytes, elements);
+    }
+
+    private static HttpResponse<JsonArrayHandler.Summary> send(HttpRequest request, JsonArrayHandler handler)
+            throws InterruptedException {
+        try {
+            return HttpTransport.send(request, handler);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Runs many simulated users, each looping a scenario (see Scenarios) with
+// blocking sends on a thread of its own.
+//
+//   java ScenarioRunner --users 10000 --duration 60s --ramp-up 10s --scenario setup_foreach
+//
+// Other options: --target <name|url>, --platform (force platform threads).
+//
+// Users run on virtual threads when the JVM has them (Java 21+), so tens of
+// thousands of sequential users cost little more than their sockets. On older
+// JVMs it falls back to platform threads with small stacks, which still reach
+// a few thousand users; the report says which one was used.
+//
+// However many users there are, their blocking sends all complete on
+// HttpTransport's one client executor (-Dtransport.threads, 4 by default),
+// which parses every response and hands it back to the waiting user. With
+// thousands of users 4 threads become the bottleneck and queueing shows up as
+// latency, so unless the property is given main sizes it to two threads per
+// core; the executor is non-blocking, so more threads than that don't help.
+public final class ScenarioRunner {
+    private static final long PLATFORM_STACK_BYTES = 256 * 1024;
+
+    private final ApiTarget target;
+    private final Scenarios.Scenario scenario;
+    private final boolean virtual;
+    private final LatencyHistogram flowLatency = new LatencyHistogram();
+    private final LongAdder completed = new LongAdder();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+    private final AtomicInteger activeUsers = new AtomicInteger();
+    private final AtomicInteger peakUsers = new AtomicInteger();
+
+    public ScenarioRunner(ApiTarget target, Scenarios.Scenario scenario, boolean preferVirtual) {
+        this.target = target;
+        this.scenario = scenario;
+        this.virtual = preferVirtual && virtualThreadsAvailable();
+    }
+
+    public static void main(String[] args) throws Exception {
+        // before anything touches HttpTransport, which reads it once
+        if (System.getProperty("transport.threads") == null) {
+            System.setProperty("transport.threads",
+                    String.valueOf(Math.max(4, 2 * Runtime.getRuntime().availableProcessors())));
+        }
+        CliArgs options = CliArgs.parse(args);
+        ApiTarget target = options.has("target") ? ApiTargets.get(options.get("target", "")) : ApiTargets.current();
+        String name = options.get("scenario", "setup_foreach");
+        int users = options.getInt("users", 100);
+        Duration duration = options.getDuration("duration", Duration.ofSeconds(30));
+        Duration rampUp = options.getDuration("ramp-up", Duration.ZERO);
+        try {
+            ScenarioRunner runner = new ScenarioRunner(target, Scenarios.forName(name), !options.getBoolean("platform"));
+            System.out.printf("%s: %d users on %s threads (%d transport threads) for %s against %s%n", name, users,
+                    runner.isVirtual() ? "virtual" : "platform", HttpTransport.THREADS, duration, target);
+            long start = System.nanoTime();
+            runner.run(users, duration, rampUp);
+            runner.print(System.out, (System.nanoTime() - start) / 1e9);
+        } finally {
+            TodoManagerStub.stopShared();
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    // Starts users evenly over rampUp, lets each loop its scenario until the
+    // duration is over, and waits for the last flows to finish.
+    public void run(int users, Duration duration, Duration rampUp) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long stagger = users > 1 ? rampUp.toNanos() / users : 0;
+        CountDownLatch done = new CountDownLatch(users);
+        ExecutorService executor = newUserExecutor();
+        try {
+            for (int u = 0; u < users; u++) {
+                long startAt = start + u * stagger;
+                long wait = startAt - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                executor.execute(() -> {
+                    userStarted();
+                    try {
+                        while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                            runOnce();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        activeUsers.decrementAndGet();
+                        done.countDown();
+                    }
+                });
+            }
+            long remaining = end - System.nanoTime() + HttpTransport.REQUEST_TIMEOUT.toNanos();
+            done.await(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+
+    public long completed() {
+        return completed.sum();
+    }
+
+    public long failed() {
+        long total = 0;
+        for (LongAdder count : failures.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    public LatencyHistogram flowLatency() {
+        return flowLatency;
+    }
+
+    public void print(PrintStream out, double seconds) {
+        out.printf("flows completed %d, failed %d, %.1f flows/s, peak concurrent users %d%n",
+                completed(), failed(), completed() / seconds, peakUsers.get());
+        out.printf("flow latency ms: p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                flowLatency.valueAtPercentile(50) / 1000.0, flowLatency.valueAtPercentile(90) / 1000.0,
+                flowLatency.valueAtPercentile(99) / 1000.0, flowLatency.valueAtPercentile(99.9) / 1000.0,
+                flowLatency.maxMicros() / 1000.0);
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(failures).entrySet()) {
+            out.printf("  %6d x %s%n", entry.getValue().sum(), entry.getKey());
+        }
+    }
+
+    private void runOnce() throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            scenario.run(target);
+            flowLatency.recordNanos(System.nanoTime() - start);
+            completed.increment();
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            String reason = e.getClass().getSimpleName() + ": " + e.getMessage();
+            failures.computeIfAbsent(reason, r -> new LongAdder()).increment();
+        }
+    }
+
+    private void userStarted() {
+        peakUsers.accumulateAndGet(activeUsers.incrementAndGet(), Math::max);
+    }
+
+    private ExecutorService newUserExecutor() {
+        if (virtual) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.err.println("Virtual threads unavailable, using platform threads: " + e);
+            }
+        }
+        return Executors.newCachedThreadPool(smallStackThreads());
+    }
+
+    // looked up reflectively so the harness still compiles and runs on Java 17
+    static boolean virtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ThreadFactory smallStackThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(null, runnable, "scenario-user-" + count.incrementAndGet(), PLATFORM_STACK_BYTES);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
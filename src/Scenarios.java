@@ -0,0 +1,67 @@
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+// User flows for ScenarioRunner, written as plain sequential code with
+// blocking sends; each mirrors a fixture or flow from the test classes.
+public final class Scenarios {
+    private Scenarios() {
+    }
+
+    // One virtual user's walk through the system; throws when any step does
+    // not get the status the suite expects.
+    public interface Scenario {
+        void run(ApiTarget target) throws IOException, InterruptedException;
+    }
+
+    public static Scenario forName(String name) {
+        switch (name) {
+            case "setup_foreach":
+                return Scenarios::setupForeach;
+            case "setup_foreach_cleanup":
+                return target -> {
+                    String[] ids = setupForeach(target);
+                    expect(target, "DELETE", "/todos/" + ids[0], null, 200);
+                    expect(target, "DELETE", "/categories/" + ids[1], null, 200);
+                };
+            case "browse":
+                return target -> {
+                    expect(target, "GET", "/todos", null, 200);
+                    expect(target, "GET", "/projects", null, 200);
+                    expect(target, "GET", "/categories", null, 200);
+                };
+            default:
+                throw new IllegalArgumentException("Unknown scenario '" + name
+                        + "' (expected setup_foreach, setup_foreach_cleanup or browse)");
+        }
+    }
+
+    // TodosTest.setup_foreach: create a todo, make it a task of project 1,
+    // create a category and link it; returns {todoId, categoryId}
+    public static String[] setupForeach(ApiTarget target) throws IOException, InterruptedException {
+        String todoId = idOf(expect(target, "POST", "/todos", RequestShapes.TODO, 201));
+        expect(target, "POST", "/todos/" + todoId + "/tasksof", RequestShapes.link("1"), 201);
+        String categoryId = idOf(expect(target, "POST", "/categories", RequestShapes.CATEGORY, 201));
+        expect(target, "POST", "/todos/" + todoId + "/categories", RequestShapes.link(categoryId), 201);
+        return new String[]{todoId, categoryId};
+    }
+
+    private static HttpResponse<String> expect(ApiTarget target, String method, String path, String body, int status)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(target.uri(path));
+        if (body == null) {
+            builder.method(method, HttpRequest.BodyPublishers.noBody());
+        } else {
+            builder.header("Content-Type", "application/json").method(method, HttpRequest.BodyPublishers.ofString(body));
+        }
+        HttpResponse<String> response = HttpTransport.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != status) {
+            throw new IllegalStateException(method + " " + path + " returned " + response.statusCode() + ", expected " + status);
+        }
+        return response;
+    }
+
+    private static String idOf(HttpResponse<String> response) throws IOException {
+        return ResponseJson.id(response.body());
+    }
+}
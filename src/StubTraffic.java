@@ -0,0 +1,42 @@
+import java.io.IOException;
+
+// A stub of a test's own whose exchanges, and only those, reach a listener.
+// Other test classes share HttpTransport and run concurrently, so the
+// listener is wrapped to keep only the traffic sent to this stub's port.
+//
+//   try (StubTraffic stub = StubTraffic.start("metrics", metrics)) {
+//       ...send to stub.target()...
+//   }
+//
+// close() unregisters the listener, then stops the stub.
+final class StubTraffic implements AutoCloseable {
+    private final TodoManagerStub stub;
+    private final ApiTarget target;
+    private final HttpTransport.Listener filtered;
+
+    private StubTraffic(TodoManagerStub stub, String name, HttpTransport.Listener listener) {
+        this.stub = stub;
+        this.target = new ApiTarget(name, stub.baseUri());
+        this.filtered = exchange -> {
+            if (exchange.request().uri().getPort() == stub.port()) {
+                listener.onExchange(exchange);
+            }
+        };
+    }
+
+    static StubTraffic start(String name, HttpTransport.Listener listener) throws IOException {
+        StubTraffic traffic = new StubTraffic(TodoManagerStub.start(0), name, listener);
+        HttpTransport.addListener(traffic.filtered);
+        return traffic;
+    }
+
+    ApiTarget target() {
+        return target;
+    }
+
+    @Override
+    public void close() {
+        HttpTransport.removeListener(filtered);
+        stub.close();
+    }
+}
@@ -0,0 +1,94 @@
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Fires the same GET at several targets at once and prints their latencies
+// side by side:
+//   java TargetComparison local,staging,perf [/todos] [iterations]
+public final class TargetComparison {
+    private TargetComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<ApiTarget> targets = ApiTargets.list(args.length > 0 ? args[0] : "local");
+        String path = args.length > 1 ? args[1] : "/todos";
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        try {
+            List<Result> results = compare(targets, path, iterations);
+            System.out.printf("GET %s x%d%n", path, iterations);
+            System.out.printf("%-30s %8s %10s %10s %10s %10s%n", "target", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms");
+            for (Result result : results) {
+                System.out.printf("%-30s %8d %10.2f %10.2f %10.2f %10.2f%n", result.target.name(), result.errors,
+                        result.percentileMillis(50), result.percentileMillis(90), result.percentileMillis(99),
+                        result.percentileMillis(100));
+            }
+        } finally {
+            TodoManagerStub.stopShared();
+        }
+    }
+
+    // one thread per target, so every target sees the same wall-clock window
+    public static List<Result> compare(List<ApiTarget> targets, String path, int iterations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(targets.size(), HttpTransport.daemonThreads("compare"));
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (ApiTarget target : targets) {
+                futures.add(executor.submit(() -> run(target, path, iterations)));
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Result run(ApiTarget target, String path, int iterations) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder().uri(target.uri(path)).GET().build();
+        long[] latencies = new long[iterations];
+        int errors = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 400) {
+                    errors++;
+                }
+            } catch (IOException e) {
+                errors++;
+            }
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return new Result(target, latencies, errors);
+    }
+
+    public static final class Result {
+        final ApiTarget target;
+        final long[] sortedNanos;
+        final int errors;
+
+        Result(ApiTarget target, long[] sortedNanos, int errors) {
+            this.target = target;
+            this.sortedNanos = sortedNanos;
+            this.errors = errors;
+        }
+
+        double percentileMillis(double percentile) {
+            if (sortedNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,749 @@
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// In-memory stand-in for the Thingifier todo manager (/todos, /projects,
+// /categories and their relationship endpoints). It answers with the same
+// status codes the real jar gives for the requests in TodosTest, ProjectsTest
+// and CategoriesTest, including the quirks those tests document (e.g. 200 for
+// GET /todos/-1/tasksof).
+//
+// Bodies are JSON, or XML when the request's Content-Type (for request
+// bodies) or Accept (for responses) asks for application/xml, in the
+// Thingifier's shape: <todos><todo><id>1</id><title>..</title>..</todo></todos>.
+//
+// Run standalone on 4567 with `java TodoManagerStub [port]`, or point the tests
+// at it with -Dapi.target=embedded (see ApiTargets).
+public final class TodoManagerStub implements AutoCloseable {
+    public static final int DEFAULT_PORT = 4567;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final JsonFactory jsonFactory = mapper.getFactory();
+    private static final XMLInputFactory xmlFactory = XMLInputFactory.newFactory();
+    private static final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newFactory();
+
+    static {
+        // request bodies get no DTDs or external entities (XXE)
+        xmlFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private static TodoManagerStub shared;
+
+    static {
+        // without it headers and body go out as separate segments and every
+        // response waits out the client's delayed ACK (~40ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, Resource> resources = new LinkedHashMap<>();
+    private final Set<SocketAddress> connections = ConcurrentHashMap.newKeySet();
+
+    private TodoManagerStub(int port) throws IOException {
+        Resource todos = new Resource("todos", "title");
+        todos.field("title", false, "");
+        todos.field("doneStatus", true, "false");
+        todos.field("description", false, "");
+        Resource projects = new Resource("projects", null);
+        projects.field("title", false, "");
+        projects.field("completed", true, "false");
+        projects.field("active", true, "false");
+        projects.field("description", false, "");
+        Resource categories = new Resource("categories", "title");
+        categories.field("title", false, "");
+        categories.field("description", false, "");
+        resources.put(todos.name, todos);
+        resources.put(projects.name, projects);
+        resources.put(categories.name, categories);
+
+        relate(todos, "categories", categories, "todos");
+        relate(todos, "tasksof", projects, "tasks");
+        relate(projects, "categories", categories, "projects");
+        seed();
+
+        executor = Executors.newCachedThreadPool(HttpTransport.daemonThreads("todo-stub"));
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 128);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    // port 0 binds an ephemeral port
+    public static TodoManagerStub start(int port) throws IOException {
+        return new TodoManagerStub(port);
+    }
+
+    // One stub per JVM, started on first use on todomanager.port (ephemeral by default).
+    public static synchronized TodoManagerStub shared() throws IOException {
+        if (shared == null) {
+            shared = start(Integer.getInteger("todomanager.port", 0));
+        }
+        return shared;
+    }
+
+    // the server's dispatcher thread is not a daemon, so command-line tools that
+    // ran against the shared stub call this on the way out
+    public static synchronized void stopShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        TodoManagerStub stub = start(args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT);
+        System.out.println("Todo manager stand-in listening on " + stub.baseUri());
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public URI baseUri() {
+        return URI.create("http://localhost:" + port());
+    }
+
+    // distinct client sockets seen so far, i.e. connections the clients opened
+    public int connectionsAccepted() {
+        return connections.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void seed() {
+        Resource todos = resources.get("todos");
+        Resource projects = resources.get("projects");
+        Resource categories = resources.get("categories");
+        Entity scan = todos.create(Map.of("title", "scan paperwork"));
+        Entity file = todos.create(Map.of("title", "file paperwork"));
+        Entity office = projects.create(Map.of("title", "Office Work"));
+        Entity officeCategory = categories.create(Map.of("title", "Office"));
+        categories.create(Map.of("title", "Home"));
+        link(todos, scan, "tasksof", office.id);
+        link(todos, file, "tasksof", office.id);
+        link(todos, scan, "categories", officeCategory.id);
+    }
+
+    private static void relate(Resource from, String name, Resource to, String inverse) {
+        from.relations.put(name, new Relation(to, inverse));
+        to.relations.put(inverse, new Relation(from, name));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        connections.add(exchange.getRemoteAddress());
+        try (exchange) {
+            Response response;
+            try {
+                response = route(exchange);
+            } catch (BadRequest e) {
+                response = error(400, e.getMessage());
+            } catch (RuntimeException e) {
+                // a bug in the stub, not in the request; answered instead of dropping the connection
+                response = error(500, e.toString());
+            }
+            response.send(exchange);
+        }
+    }
+
+    private Response route(HttpExchange exchange) throws IOException, BadRequest {
+        // drain the body before anything else: the JDK server drops the
+        // connection if a response completes while request bytes are unread
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+        String method = exchange.getRequestMethod();
+        String[] path = segments(exchange.getRequestURI().getPath());
+        if (path.length == 0) {
+            return Response.redirect("/gui");
+        }
+        Resource resource = resources.get(path[0]);
+        if (resource == null) {
+            return error(404, "Could not find resource " + path[0]);
+        }
+        synchronized (this) {
+            // rendered under the lock, while the entities cannot change
+            return dispatch(exchange, body, method, resource, path).render(exchange);
+        }
+    }
+
+    private Response dispatch(HttpExchange exchange, byte[] body, String method, Resource resource, String[] path)
+            throws IOException, BadRequest {
+        switch (path.length) {
+            case 1:
+                return collection(exchange, body, method, resource);
+            case 2:
+                return instance(exchange, body, method, resource, path[1]);
+            case 3:
+                return relationship(exchange, body, method, resource, path[1], path[2]);
+            case 4:
+                if (method.equals("DELETE")) {
+                    return unlink(resource, path[1], path[2], path[3]);
+                }
+                return error(405, method + " not allowed");
+            default:
+                return error(404, "Could not find " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    private Response collection(HttpExchange exchange, byte[] body, String method, Resource resource) throws IOException, BadRequest {
+        switch (method) {
+            case "GET":
+            case "HEAD":
+                Map<String, String> filter = query(exchange.getRequestURI().getRawQuery());
+                List<Entity> matches = new ArrayList<>();
+                for (Entity entity : resource.entities.values()) {
+                    if (entity.matches(resource, filter)) {
+                        matches.add(entity);
+                    }
+                }
+                return Response.of(200, list(resource, matches));
+            case "POST":
+                Map<String, JsonValue> fields = parseBody(exchange, body);
+                for (String key : fields.keySet()) {
+                    if (key.equalsIgnoreCase("id")) {
+                        throw new BadRequest("Invalid Creation: Failed Validation: Not allowed to create with id");
+                    }
+                }
+                Entity created = resource.create(resource.validate(fields, true));
+                return Response.of(201, single(resource, created));
+            default:
+                return error(405, method + " not allowed");
+        }
+    }
+
+    private Response instance(HttpExchange exchange, byte[] body, String method, Resource resource, String id) throws IOException, BadRequest {
+        Entity entity = resource.entities.get(id);
+        if (entity == null) {
+            return error(404, "Could not find an instance with " + resource.name + "/" + id);
+        }
+        switch (method) {
+            case "GET":
+            case "HEAD":
+                return Response.of(200, list(resource, List.of(entity)));
+            case "POST":
+                entity.fields.putAll(resource.validate(parseBody(exchange, body), false));
+                return Response.of(200, single(resource, entity));
+            case "PUT":
+                Map<String, String> replacement = resource.validate(parseBody(exchange, body), true);
+                entity.fields.putAll(resource.defaults);
+                entity.fields.putAll(replacement);
+                return Response.of(200, single(resource, entity));
+            case "DELETE":
+                resource.entities.remove(id);
+                for (Map.Entry<String, Set<String>> links : entity.links.entrySet()) {
+                    Relation relation = resource.relations.get(links.getKey());
+                    for (String other : links.getValue()) {
+                        Entity target = relation.target.entities.get(other);
+                        if (target != null) {
+                            target.linked(relation.inverse).remove(id);
+                        }
+                    }
+                }
+                return Response.empty(200);
+            default:
+                return error(405, method + " not allowed");
+        }
+    }
+
+    private Response relationship(HttpExchange exchange, byte[] body, String method, Resource resource, String id, String name)
+            throws IOException, BadRequest {
+        Relation relation = resource.relations.get(name);
+        if (relation == null) {
+            return error(404, "Could not find relationship " + name);
+        }
+        Entity entity = resource.entities.get(id);
+        switch (method) {
+            case "GET":
+            case "HEAD":
+                // the real server answers 200 with an empty list for unknown parents
+                List<Entity> related = new ArrayList<>();
+                if (entity != null) {
+                    for (String other : entity.linked(name)) {
+                        Entity target = relation.target.entities.get(other);
+                        if (target != null) {
+                            related.add(target);
+                        }
+                    }
+                }
+                return Response.of(200, list(relation.target, related));
+            case "POST":
+                if (entity == null) {
+                    return error(404, "Could not find parent thing for relationship " + resource.name + "/" + id + "/" + name);
+                }
+                String targetId = null;
+                for (Map.Entry<String, JsonValue> field : parseBody(exchange, body).entrySet()) {
+                    if (field.getKey().equalsIgnoreCase("id")) {
+                        targetId = field.getValue().text;
+                    }
+                }
+                if (targetId == null || !relation.target.entities.containsKey(targetId)) {
+                    return error(404, "Could not find thing matching value for id");
+                }
+                link(resource, entity, name, targetId);
+                return Response.empty(201);
+            default:
+                return error(405, method + " not allowed");
+        }
+    }
+
+    private Response unlink(Resource resource, String id, String name, String targetId) {
+        Relation relation = resource.relations.get(name);
+        Entity entity = resource.entities.get(id);
+        if (relation == null || entity == null || !entity.linked(name).remove(targetId)) {
+            return error(404, "Could not find any instances with " + resource.name + "/" + id + "/" + name + "/" + targetId);
+        }
+        Entity target = relation.target.entities.get(targetId);
+        if (target != null) {
+            target.linked(relation.inverse).remove(id);
+        }
+        return Response.empty(200);
+    }
+
+    private static void link(Resource resource, Entity entity, String name, String targetId) {
+        Relation relation = resource.relations.get(name);
+        entity.linked(name).add(targetId);
+        relation.target.entities.get(targetId).linked(relation.inverse).add(entity.id);
+    }
+
+    private static Map<String, JsonValue> parseBody(HttpExchange exchange, byte[] body) throws BadRequest {
+        Map<String, JsonValue> fields = new LinkedHashMap<>();
+        if (body.length == 0) {
+            return fields;
+        }
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null && contentType.contains("xml")) {
+            return parseXml(body);
+        }
+        JsonNode root;
+        try {
+            root = mapper.readTree(body);
+        } catch (IOException e) {
+            throw new BadRequest("Invalid JSON: " + e.getMessage());
+        }
+        if (root == null || !root.isObject()) {
+            throw new BadRequest("Invalid JSON: expected an object");
+        }
+        Iterator<Map.Entry<String, JsonNode>> it = root.fields();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> field = it.next();
+            fields.put(field.getKey(), new JsonValue(field.getValue().asText(), field.getValue().isBoolean()));
+        }
+        return fields;
+    }
+
+    // <todo><title>..</title><doneStatus>false</doneStatus></todo>
+    private static Map<String, JsonValue> parseXml(byte[] body) throws BadRequest {
+        Map<String, JsonValue> fields = new LinkedHashMap<>();
+        try {
+            XMLStreamReader reader = xmlFactory.createXMLStreamReader(new ByteArrayInputStream(body));
+            int depth = 0;
+            String field = null;
+            StringBuilder text = new StringBuilder();
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamReader.START_ELEMENT) {
+                    depth++;
+                    if (depth == 2) {
+                        field = reader.getLocalName();
+                        text.setLength(0);
+                    }
+                } else if (event == XMLStreamReader.CHARACTERS || event == XMLStreamReader.CDATA) {
+                    text.append(reader.getText());
+                } else if (event == XMLStreamReader.END_ELEMENT) {
+                    if (depth == 2) {
+                        String value = text.toString();
+                        boolean bool = value.equals("true") || value.equals("false");
+                        fields.put(field, new JsonValue(value, bool));
+                    }
+                    depth--;
+                }
+            }
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new BadRequest("Invalid XML: " + e.getMessage());
+        }
+        return fields;
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String[] segments(String path) {
+        List<String> parts = new ArrayList<>();
+        for (String part : path.split("/")) {
+            if (!part.isEmpty()) {
+                parts.add(part);
+            }
+        }
+        return parts.toArray(new String[0]);
+    }
+
+    private static Payload list(Resource resource, List<Entity> entities) {
+        return new Payload() {
+            @Override
+            public void writeJson(JsonGenerator json) throws IOException {
+                json.writeStartObject();
+                json.writeArrayFieldStart(resource.name);
+                for (Entity entity : entities) {
+                    entity.write(json);
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+
+            @Override
+            public void writeXml(XMLStreamWriter xml) throws XMLStreamException {
+                xml.writeStartElement(resource.name);
+                for (Entity entity : entities) {
+                    entity.write(xml, resource);
+                }
+                xml.writeEndElement();
+            }
+        };
+    }
+
+    private static Payload single(Resource resource, Entity entity) {
+        return new Payload() {
+            @Override
+            public void writeJson(JsonGenerator json) throws IOException {
+                entity.write(json);
+            }
+
+            @Override
+            public void writeXml(XMLStreamWriter xml) throws XMLStreamException {
+                entity.write(xml, resource);
+            }
+        };
+    }
+
+    private static Response error(int status, String message) {
+        return Response.of(status, new Payload() {
+            @Override
+            public void writeJson(JsonGenerator json) throws IOException {
+                json.writeStartObject();
+                json.writeArrayFieldStart("errorMessages");
+                json.writeString(message);
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+
+            @Override
+            public void writeXml(XMLStreamWriter xml) throws XMLStreamException {
+                xml.writeStartElement("errorMessages");
+                xml.writeStartElement("errorMessage");
+                xml.writeCharacters(message);
+                xml.writeEndElement();
+                xml.writeEndElement();
+            }
+        });
+    }
+
+    // application/xml when Accept lists it ahead of (or without) application/json
+    private static boolean wantsXml(HttpExchange exchange) {
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        if (accept == null) {
+            return false;
+        }
+        int xml = accept.indexOf("application/xml");
+        int json = accept.indexOf("application/json");
+        return xml >= 0 && (json < 0 || xml < json);
+    }
+
+    private static final class Resource {
+        final String name;
+        final String mandatory;
+        final Map<String, Boolean> booleans = new LinkedHashMap<>();
+        final Map<String, String> defaults = new LinkedHashMap<>();
+        final Map<String, Relation> relations = new LinkedHashMap<>();
+        final Map<String, Entity> entities = new LinkedHashMap<>();
+        // element name of one entity in XML: todo, project, category
+        final String singular;
+        int nextId = 1;
+
+        Resource(String name, String mandatory) {
+            this.name = name;
+            this.mandatory = mandatory;
+            this.singular = name.endsWith("ies") ? name.substring(0, name.length() - 3) + "y" : name.substring(0, name.length() - 1);
+        }
+
+        void field(String field, boolean bool, String defaultValue) {
+            booleans.put(field, bool);
+            defaults.put(field, defaultValue);
+        }
+
+        Entity create(Map<String, String> values) {
+            Entity entity = new Entity(String.valueOf(nextId++));
+            entity.fields.putAll(defaults);
+            entity.fields.putAll(values);
+            entities.put(entity.id, entity);
+            return entity;
+        }
+
+        // field names are matched case-insensitively, as the real server does
+        String canonical(String key) {
+            for (String field : booleans.keySet()) {
+                if (field.equalsIgnoreCase(key)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+
+        Map<String, String> validate(Map<String, JsonValue> body, boolean complete) throws BadRequest {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (Map.Entry<String, JsonValue> entry : body.entrySet()) {
+                String field = canonical(entry.getKey());
+                if (field == null) {
+                    throw new BadRequest("Could not find field: " + entry.getKey());
+                }
+                JsonValue value = entry.getValue();
+                if (booleans.get(field) && !value.bool) {
+                    throw new BadRequest("Failed Validation: " + field + " should be BOOLEAN");
+                }
+                values.put(field, value.text);
+            }
+            if (mandatory != null) {
+                String value = values.get(mandatory);
+                if ((complete && value == null) || (value != null && value.isEmpty())) {
+                    throw new BadRequest("Failed Validation: " + mandatory + " : can not be empty");
+                }
+            }
+            return values;
+        }
+    }
+
+    private static final class Relation {
+        final Resource target;
+        final String inverse;
+
+        Relation(Resource target, String inverse) {
+            this.target = target;
+            this.inverse = inverse;
+        }
+    }
+
+    private static final class Entity {
+        final String id;
+        final Map<String, String> fields = new LinkedHashMap<>();
+        final Map<String, Set<String>> links = new LinkedHashMap<>();
+
+        Entity(String id) {
+            this.id = id;
+        }
+
+        Set<String> linked(String relation) {
+            return links.computeIfAbsent(relation, k -> new LinkedHashSet<>());
+        }
+
+        boolean matches(Resource resource, Map<String, String> filter) {
+            for (Map.Entry<String, String> condition : filter.entrySet()) {
+                if (condition.getKey().equals("id")) {
+                    if (!id.equals(condition.getValue())) {
+                        return false;
+                    }
+                    continue;
+                }
+                String field = resource.canonical(condition.getKey());
+                if (field != null && !fields.get(field).equals(condition.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void write(JsonGenerator json) throws IOException {
+            json.writeStartObject();
+            json.writeStringField("id", id);
+            for (Map.Entry<String, String> field : fields.entrySet()) {
+                json.writeStringField(field.getKey(), field.getValue());
+            }
+            for (Map.Entry<String, Set<String>> relation : links.entrySet()) {
+                if (relation.getValue().isEmpty()) {
+                    continue;
+                }
+                json.writeArrayFieldStart(relation.getKey());
+                for (String other : relation.getValue()) {
+                    json.writeStartObject();
+                    json.writeStringField("id", other);
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+            }
+            json.writeEndObject();
+        }
+
+        // <todo><id>1</id><title>..</title><categories><category><id>3</id></category></categories></todo>
+        void write(XMLStreamWriter xml, Resource resource) throws XMLStreamException {
+            xml.writeStartElement(resource.singular);
+            element(xml, "id", id);
+            for (Map.Entry<String, String> field : fields.entrySet()) {
+                element(xml, field.getKey(), field.getValue());
+            }
+            for (Map.Entry<String, Set<String>> relation : links.entrySet()) {
+                if (relation.getValue().isEmpty()) {
+                    continue;
+                }
+                xml.writeStartElement(relation.getKey());
+                String related = resource.relations.get(relation.getKey()).target.singular;
+                for (String other : relation.getValue()) {
+                    xml.writeStartElement(related);
+                    element(xml, "id", other);
+                    xml.writeEndElement();
+                }
+                xml.writeEndElement();
+            }
+            xml.writeEndElement();
+        }
+
+        private static void element(XMLStreamWriter xml, String name, String value) throws XMLStreamException {
+            xml.writeStartElement(name);
+            xml.writeCharacters(value);
+            xml.writeEndElement();
+        }
+    }
+
+    private static final class JsonValue {
+        final String text;
+        final boolean bool;
+
+        JsonValue(String text, boolean bool) {
+            this.text = text;
+            this.bool = bool;
+        }
+    }
+
+    // a response body that can be written in either format
+    private interface Payload {
+        void writeJson(JsonGenerator json) throws IOException;
+
+        void writeXml(XMLStreamWriter xml) throws XMLStreamException;
+    }
+
+    private static final class Response {
+        final int status;
+        final Payload payload;
+        final String location;
+        byte[] body;
+        String contentType;
+
+        private Response(int status, Payload payload, String location) {
+            this.status = status;
+            this.payload = payload;
+            this.location = location;
+        }
+
+        static Response of(int status, Payload payload) {
+            return new Response(status, payload, null);
+        }
+
+        static Response empty(int status) {
+            return new Response(status, null, null);
+        }
+
+        static Response redirect(String location) {
+            return new Response(302, null, location);
+        }
+
+        // renders the payload in the format the request accepts; idempotent
+        Response render(HttpExchange exchange) throws IOException {
+            if (payload == null || body != null) {
+                return this;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+            if (wantsXml(exchange)) {
+                try {
+                    XMLStreamWriter xml = xmlOutputFactory.createXMLStreamWriter(out, "UTF-8");
+                    payload.writeXml(xml);
+                    xml.writeEndDocument();
+                    xml.close();
+                } catch (XMLStreamException e) {
+                    throw new IOException(e);
+                }
+                contentType = "application/xml";
+            } else {
+                try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+                    payload.writeJson(json);
+                }
+                contentType = "application/json";
+            }
+            body = out.toByteArray();
+            return this;
+        }
+
+        void send(HttpExchange exchange) throws IOException {
+            render(exchange);
+            if (location != null) {
+                exchange.getResponseHeaders().set("Location", location);
+            }
+            int length = body == null ? 0 : body.length;
+            if (length > 0) {
+                exchange.getResponseHeaders().set("Content-Type", contentType);
+            }
+            boolean head = exchange.getRequestMethod().equals("HEAD");
+            exchange.sendResponseHeaders(status, head || length == 0 ? -1 : length);
+            if (!head && length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        }
+    }
+
+    private static final class BadRequest extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        BadRequest(String message) {
+            super(message);
+        }
+    }
+}
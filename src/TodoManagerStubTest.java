@@ -0,0 +1,77 @@
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// counts connections on its own stub, so its methods must not overlap
+@Execution(ExecutionMode.SAME_THREAD)
+public class TodoManagerStubTest {
+    private static TodoManagerStub stub;
+
+    @BeforeAll
+    public static void start() throws IOException {
+        stub = TodoManagerStub.start(0);
+    }
+
+    @AfterAll
+    public static void stop() {
+        stub.close();
+    }
+
+    @Test
+    public void shouldStartOnEphemeralPort() {
+        assertNotEquals(0, stub.port());
+        assertNotEquals(TodoManagerStub.DEFAULT_PORT, stub.port());
+    }
+
+    @Test
+    public void shouldServeSeededTodos() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(stub.baseUri().resolve("/todos/1"))
+                .GET().build();
+
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("scan paperwork"));
+    }
+
+    @Test
+    public void shouldReuseConnectionsAcrossRequests() throws IOException, InterruptedException {
+        int before = stub.connectionsAccepted();
+        for (int i = 0; i < 50; i++) {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(stub.baseUri().resolve("/todos"))
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .build();
+            HttpResponse<Void> response = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
+            assertEquals(200, response.statusCode());
+        }
+        // all 50 requests should ride on at most one new pooled connection
+        assertTrue(stub.connectionsAccepted() - before <= 1, "connections opened: " + (stub.connectionsAccepted() - before));
+        assertEquals(1, HttpTransport.clientsCreated());
+    }
+
+    @Test
+    public void shouldRejectExternalEntitiesInXmlBodies(@TempDir Path directory) throws IOException, InterruptedException {
+        Path secret = Files.writeString(directory.resolve("secret.txt"), "top secret");
+        String body = "<?xml version=\"1.0\"?><!DOCTYPE todo [<!ENTITY xxe SYSTEM \"" + secret.toUri() + "\">]>"
+                + "<todo><title>&xxe;</title></todo>";
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(stub.baseUri().resolve("/todos"))
+                .header("Content-Type", "application/xml")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+        assertFalse(response.body().contains("top secret"), response.body());
+    }
+}
@@ -1,10 +1,7 @@
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.*;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 
@@ -13,113 +10,144 @@ import static org.junit.jupiter.api.Assertions.*;
 @TestMethodOrder(MethodOrderer.Random.class)
 
 public class TodosTest {
-    private final HttpClient client = HttpClient.newHttpClient();
-    public static String categoryId = "0";
-    public static String taskId = "0";
-    public static String todoId = "0";
+    private static ApiTarget target;
+    private static FixturePool<Fixture> fixtures;
+    // per-instance, so concurrently running tests never see each other's fixtures
+    private Fixture fixture;
+    private String categoryId = "0";
+    private String taskId = "0";
+    private String todoId = "0";
+    @BeforeAll
+    public static void selectTarget() {
+        target = ApiTargets.current();
+        fixtures = FixturePool.start("todos", TodosTest::createFixture, TodosTest::deleteFixture);
+    }
+
+    @AfterAll
+    public static void closeFixtures() throws InterruptedException {
+        fixtures.close();
+    }
+
     @BeforeEach
     public void setup_foreach() throws IOException, InterruptedException {
+        fixture = fixtures.acquire();
+        todoId = fixture.todoId();
+        taskId = fixture.taskId();
+        categoryId = fixture.categoryId();
+    }
+
+    @AfterEach
+    public void teardown() {
+        fixtures.release(fixture);
+    }
+
+    // a todo that is a task of project 1 and linked to a category of its own
+    private record Fixture(String todoId, String taskId, String categoryId) {
+    }
+
+    private static Fixture createFixture() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"s aute irure dolor i\", \"doneStatus\": false, \"description\": \"sse cillum dolore eu\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos"))
+                .uri(target.uri("/todos"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(201, response.statusCode());
         String responseBody = response.body();
-        todoId = new ObjectMapper().readTree(responseBody).get("id").asText();
-        taskId = createTaskOfTodo();
-        categoryId = createCategory();
+        String todoId = ResponseJson.id(responseBody);
+        return new Fixture(todoId, createTaskOfTodo(todoId), createCategory(todoId));
     }
 
-    @AfterEach
-    public void teardown() throws IOException, InterruptedException {
+    private static void deleteFixture(Fixture fixture) throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId))
+                .uri(target.uri("/todos/" + fixture.todoId()))
                 .DELETE()
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
-        System.out.println(response.body());
+
+        HttpRequest categoryRequest = HttpRequest.newBuilder()
+                .uri(target.uri("/categories/" + fixture.categoryId()))
+                .DELETE()
+                .build();
+        HttpResponse<String> categoryResponse = HttpTransport.send(categoryRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, categoryResponse.statusCode());
     }
+
     @Test
     public void shouldRedirectToMainPage() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567"))
+                .uri(target.uri("/"))
                 .GET().build();
 
-        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
         assertEquals(302, response.statusCode(), "Expected redirect from main page");
     }
-       public static String createTaskOfTodo() throws IOException, InterruptedException {
-        // Initialize the HttpClient
-           HttpClient client = HttpClient.newHttpClient();
-
+    public static String createTaskOfTodo(String todoId) throws IOException, InterruptedException {
         String requestBody = "{ \"Id\": \"1\" }";
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId + "/tasksof"))
+                .uri(target.uri("/todos/" + todoId + "/tasksof"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
 
         assertEquals(201, response.statusCode());
         System.out.println(response.body());
         return "1";
     }
 
-    public static String createCategory() throws IOException, InterruptedException {
-        // Initialize the HttpClient
-        HttpClient client = HttpClient.newHttpClient();
+    public static String createCategory(String todoId) throws IOException, InterruptedException {
         String categoryRequestBody = "{ \"title\": \"Category Title\", \"description\": \"Category Description\" }";
         HttpRequest categoryRequest = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/categories"))
+                .uri(target.uri("/categories"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(categoryRequestBody))
                 .build();
 
-        HttpResponse<String> categoryResponse = client.send(categoryRequest, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> categoryResponse = HttpTransport.send(categoryRequest, HttpResponse.BodyHandlers.ofString());
         assertEquals(201, categoryResponse.statusCode());
 
         // Extract the category ID from the response body
         String responseBody = categoryResponse.body();
-        String id = new ObjectMapper().readTree(responseBody).get("id").asText();
+        String id = ResponseJson.id(responseBody);
 
         String linkBody = "{ \"Id\": \"" + id + "\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" +todoId +"/categories"))
+                .uri(target.uri("/todos/" +todoId +"/categories"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(linkBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(201, response.statusCode());
         return id;
     }
     @Test
     public void testGetAllTodos() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos"))
+                .uri(target.uri("/todos"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<JsonArrayHandler.Summary> response =
+                HttpTransport.send(request, JsonArrayHandler.of("todos").require("id", "title"));
         assertEquals(200, response.statusCode());
-        System.out.println(response.body());
+        assertTrue(response.body().count() > 0);
+        assertTrue(response.body().valid(), response.body().violations().toString());
     }
 
     @Test
     public void testHeadAllTodos() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos"))
+                .uri(target.uri("/todos"))
                 .method("HEAD", HttpRequest.BodyPublishers.noBody())
                 .build();
 
-        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
         assertEquals(200, response.statusCode());
     }
 
@@ -127,12 +155,12 @@ public class TodosTest {
     public void testCreateTodoWithInvalidDoneStatus() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"s aute irure dolor i\", \"doneStatus\": \"false\", \"description\": \"sse cillum dolore eu\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos"))
+                .uri(target.uri("/todos"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         // Check for expected error response
         assertEquals(400, response.statusCode());
         System.out.println(response.body());
@@ -142,21 +170,21 @@ public class TodosTest {
     public void testCreateTodo() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"s aute irure dolor i\", \"doneStatus\": false, \"description\": \"sse cillum dolore eu\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos"))
+                .uri(target.uri("/todos"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         String responseBody = response.body();
         // delete the created object
-        String todoId_delete = new ObjectMapper().readTree(responseBody).get("id").asText();
+        String todoId_delete = ResponseJson.id(responseBody);
         HttpRequest request_delete = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId_delete))
+                .uri(target.uri("/todos/" + todoId_delete))
                 .DELETE()
                 .build();
 
-        HttpResponse<String> response_delete = client.send(request_delete, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response_delete = HttpTransport.send(request_delete, HttpResponse.BodyHandlers.ofString());
         // verify creation
         assertEquals(201, response.statusCode());
         System.out.println(response.body());
@@ -166,32 +194,31 @@ public class TodosTest {
         //create an object first
         String requestBody = "{ \"title\": \"s aute irure dolor i\", \"doneStatus\": false, \"description\": \"sse cillum dolore eu\" }";
         HttpRequest request_create = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos"))
+                .uri(target.uri("/todos"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<String> response_create = client.send(request_create, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response_create = HttpTransport.send(request_create, HttpResponse.BodyHandlers.ofString());
         String responseBody = response_create.body();
 
         // delete and verify
-        String todoId_delete = new ObjectMapper().readTree(responseBody).get("id").asText();
+        String todoId_delete = ResponseJson.id(responseBody);
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId_delete))
+                .uri(target.uri("/todos/" + todoId_delete))
                 .DELETE()
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
     @Test
     public void testGetTodoById() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId))
+                .uri(target.uri("/todos/" + todoId))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -199,10 +226,10 @@ public class TodosTest {
     @Test
     public void testGetNonExistentTodo() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/-1"))
+                .uri(target.uri("/todos/-1"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response.statusCode());
         System.out.println(response.body());
     }
@@ -210,23 +237,23 @@ public class TodosTest {
     @Test
     public void testHeadTodoById() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId))
+                .uri(target.uri("/todos/" + todoId))
                 .method("HEAD", HttpRequest.BodyPublishers.noBody())
                 .build();
 
-        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
         assertEquals(200, response.statusCode());
     }
 
     @Test
     public void testCreateTodoWithIncorrectId() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/-1"))
+                .uri(target.uri("/todos/-1"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString("")) // Empty body
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response.statusCode());
         System.out.println(response.body());
     }
@@ -234,12 +261,12 @@ public class TodosTest {
     public void testUpdateTodoWithID() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \" new title \", \"doneStatus\": false, \"description\": \"new description\"}";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId))
+                .uri(target.uri("/todos/" + todoId))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody)) // Empty body
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -248,12 +275,12 @@ public class TodosTest {
     public void testUpdateTodoDoneStatusOnly() throws IOException, InterruptedException {
         String requestBody = "{ \"doneStatus\": true }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId))
+                .uri(target.uri("/todos/" + todoId))
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(400, response.statusCode());
         System.out.println(response.body());
     }
@@ -262,12 +289,12 @@ public class TodosTest {
     public void testUpdateTodoWithAllFields() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"Updated Title\", \"doneStatus\": false, \"description\": \"Updated Description\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId))
+                .uri(target.uri("/todos/" + todoId))
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -278,12 +305,12 @@ public class TodosTest {
     public void testUpdateTodoTitle() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"New Title\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId))
+                .uri(target.uri("/todos/" + todoId))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -292,12 +319,12 @@ public class TodosTest {
     public void testUpdateNonExistentTodo() throws IOException, InterruptedException {
         String requestBody = "{ \"title\": \"Title\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/-1"))
+                .uri(target.uri("/todos/-1"))
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response.statusCode());
         System.out.println(response.body());
     }
@@ -305,10 +332,10 @@ public class TodosTest {
     @Test
     public void testGetCategoriesForTodo() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/1/categories"))
+                .uri(target.uri("/todos/" + todoId + "/categories"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -316,11 +343,11 @@ public class TodosTest {
     @Test
     public void testHeadCategoriesForTodo() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/1/categories"))
+                .uri(target.uri("/todos/" + todoId + "/categories"))
                 .method("HEAD", HttpRequest.BodyPublishers.noBody())
                 .build();
 
-        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
         assertEquals(200, response.statusCode());
     }
 
@@ -328,12 +355,12 @@ public class TodosTest {
     public void testUpdateTodoWithMissingTitleFieldFails() throws IOException, InterruptedException {
         String requestBody = "{ \"doneStatus\": false }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId))
+                .uri(target.uri("/todos/" + todoId))
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
 
         // Assert that the response is not successful (expecting an error)
         assertNotEquals(200, response.statusCode(), "Expected to fail when updating without title field.");
@@ -344,12 +371,12 @@ public class TodosTest {
     public void testUpdateTodoWithMissingTitleFieldPasses() throws IOException, InterruptedException {
         String requestBody = "{ \"doneStatus\": false }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId))
+                .uri(target.uri("/todos/" + todoId))
                 .header("Content-Type", "application/json")
                 .PUT(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(400, response.statusCode(), "Expected to fail when updating without title field.");
         System.out.println("Response status code: " + response.statusCode());
         System.out.println("Response body: " + response.body());
@@ -358,12 +385,12 @@ public class TodosTest {
     public void testCreateLinkBetweenTodoAndCategory() throws IOException, InterruptedException {
         String requestBody = "{ \"Id\": \"" + categoryId + "\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId + "/categories"))
+                .uri(target.uri("/todos/" + todoId + "/categories"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(201, response.statusCode());
         System.out.println(response.body());
     }
@@ -372,12 +399,12 @@ public class TodosTest {
     public void testCreateLinkWithInvalidCategoryId() throws IOException, InterruptedException {
         String requestBody = "{ \"Id\": \"-1\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId + "/categories"))
+                .uri(target.uri("/todos/" + todoId + "/categories"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response.statusCode());
         System.out.println(response.body());
     }
@@ -385,11 +412,11 @@ public class TodosTest {
     @Test
     public void testDeleteLinkBetweenTodoAndCategory() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId + "/categories/" + categoryId))
+                .uri(target.uri("/todos/" + todoId + "/categories/" + categoryId))
                 .DELETE()
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -397,11 +424,11 @@ public class TodosTest {
     @Test
     public void testDeleteNonExistentLinkBetweenTodoAndCategory() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId + "/categories/-1"))
+                .uri(target.uri("/todos/" + todoId + "/categories/-1"))
                 .DELETE()
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(404, response.statusCode());
         System.out.println(response.body());
     }
@@ -409,10 +436,10 @@ public class TodosTest {
     @Test
     public void testGetTasksOfTodo() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId + "/tasksof"))
+                .uri(target.uri("/todos/" + todoId + "/tasksof"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -420,11 +447,11 @@ public class TodosTest {
     @Test
     public void testGetTasksofInvalidTodoIdFails() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/-1/tasksof"))
+                .uri(target.uri("/todos/-1/tasksof"))
                 .header("Content-Type", "application/json")
                 .GET()
                 .build();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         // Assert that the response is not successful (expecting an error)
         assertNotEquals(404, response.statusCode(), "Expected a 404 Not Found status code for invalid todo ID.");
 
@@ -432,11 +459,11 @@ public class TodosTest {
     @Test
     public void testGetTasksofInvalidTodoIdPasses() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/-1/tasksof"))
+                .uri(target.uri("/todos/-1/tasksof"))
                 .header("Content-Type", "application/json")
                 .GET()
                 .build();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         // Assert that the response is not successful (expecting an error)
         assertEquals(200, response.statusCode(), "Expected a 404 Not Found status code for invalid todo ID.");
 
@@ -444,11 +471,11 @@ public class TodosTest {
     @Test
     public void testHeadTasksOfTodo() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId + "1/tasksof"))
+                .uri(target.uri("/todos/" + todoId + "1/tasksof"))
                 .method("HEAD", HttpRequest.BodyPublishers.noBody())
                 .build();
 
-        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        HttpResponse<Void> response = HttpTransport.send(request, HttpResponse.BodyHandlers.discarding());
         assertEquals(200, response.statusCode());
     }
 
@@ -456,12 +483,12 @@ public class TodosTest {
     public void testCreateNewTaskOfTodo() throws IOException, InterruptedException {
         String requestBody = "{ \"Id\": \"1\" }";
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId + "/tasksof"))
+                .uri(target.uri("/todos/" + todoId + "/tasksof"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(201, response.statusCode());
         System.out.println(response.body());
     }
@@ -469,11 +496,11 @@ public class TodosTest {
     @Test
     public void testDeleteTaskOfTodo() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos/" + todoId + "/tasksof/1"))
+                .uri(target.uri("/todos/" + todoId + "/tasksof/1"))
                 .DELETE()
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
         System.out.println(response.body());
     }
@@ -483,13 +510,12 @@ public class TodosTest {
     @Test
     public void testGetTodosByDoneStatusTrue() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos?doneStatus=true"))
+                .uri(target.uri("/todos?doneStatus=true"))
                 .GET().build();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(200, response.statusCode());
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        JsonNode jsonResponse = objectMapper.readTree(response.body());
+        JsonNode jsonResponse = ResponseJson.tree(response.body());
         JsonNode todosArray = jsonResponse.get("todos");
         assertTrue(todosArray.size() == 0);
     }
@@ -497,17 +523,14 @@ public class TodosTest {
     @Test
     public void testGetTodosByDoneStatusFalse() throws IOException, InterruptedException {
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos?doneStatus=false"))
+                .uri(target.uri("/todos?doneStatus=false"))
                 .GET().build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<JsonArrayHandler.Summary> response =
+                HttpTransport.send(request, JsonArrayHandler.of("todos").require("id").expect("doneStatus", "false"));
         assertEquals(200, response.statusCode());
-        System.out.println(response.body());
-        ObjectMapper objectMapper = new ObjectMapper();
-        JsonNode jsonResponse = objectMapper.readTree(response.body());
-        JsonNode todosArray = jsonResponse.get("todos");
-        System.out.println(todosArray);
-        assertTrue(todosArray.size() > 0);
+        assertTrue(response.body().count() > 0);
+        assertTrue(response.body().valid(), response.body().violations().toString());
     }
     @Test
     public void testMalformedJsonPayload() throws IOException, InterruptedException {
@@ -515,12 +538,12 @@ public class TodosTest {
         String malformedJson = "{ \"title\": \"Invalid Project, \"description\": \"This is malformed JSON\" }";
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos"))
+                .uri(target.uri("/todos"))
                 .header("Content-Type", "application/json")
                 .POST(HttpRequest.BodyPublishers.ofString(malformedJson))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
 
         // Assuming the server returns 400 for malformed JSON
         assertEquals(400, response.statusCode());
@@ -533,15 +556,51 @@ public class TodosTest {
         String malformedXml = "<project><title>Invalid Project<description>This is malformed XML</description></project>";
 
         HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create("http://localhost:4567/todos"))
+                .uri(target.uri("/todos"))
                 .header("Content-Type", "application/xml")
                 .POST(HttpRequest.BodyPublishers.ofString(malformedXml))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
 
         // Assuming the server returns 400 for malformed XML
         assertEquals(400, response.statusCode());
         System.out.println("Response body: " + response.body());
     }
+
+    @Test
+    public void testCreateUpdateAndListTodoAsXml() throws IOException, InterruptedException {
+        HttpRequest create = HttpRequest.newBuilder()
+                .uri(target.uri("/todos"))
+                .header("Content-Type", "application/xml")
+                .header("Accept", "application/xml")
+                .POST(HttpRequest.BodyPublishers.ofString(RequestShapes.TODO_XML))
+                .build();
+        HttpResponse<String> created = HttpTransport.send(create, HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, created.statusCode());
+        assertTrue(created.headers().firstValue("Content-Type").orElse("").contains("xml"));
+        String id = ResponseXml.id(created.body());
+        assertNotNull(id);
+
+        HttpRequest update = HttpRequest.newBuilder()
+                .uri(target.uri("/todos/" + id))
+                .header("Content-Type", "application/xml")
+                .header("Accept", "application/xml")
+                .PUT(HttpRequest.BodyPublishers.ofString(RequestShapes.TODO_UPDATE_XML))
+                .build();
+        HttpResponse<String> updated = HttpTransport.send(update, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, updated.statusCode());
+        assertEquals("Updated Title", ResponseXml.field(updated.body(), "title"));
+
+        HttpRequest list = HttpRequest.newBuilder()
+                .uri(target.uri("/todos"))
+                .header("Accept", "application/xml")
+                .GET().build();
+        HttpResponse<String> listed = HttpTransport.send(list, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, listed.statusCode());
+        assertTrue(ResponseXml.count(listed.body()) > 0);
+
+        HttpRequest delete = HttpRequest.newBuilder().uri(target.uri("/todos/" + id)).DELETE().build();
+        assertEquals(200, HttpTransport.send(delete, HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
 }
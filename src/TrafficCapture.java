@@ -0,0 +1,360 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+// Writes every exchange sent through HttpTransport to a compact binary log,
+// so TrafficReplay can re-issue the same traffic later. Enable it for a test
+// run with -Dcapture.file=<path>; the file is closed when the JVM exits.
+//
+// Layout (big-endian): the magic "TCAP" and a version int, then one record
+// per exchange:
+//
+//   int    length of the rest of the record
+//   long   start, in nanos since the capture was opened
+//   long   latency nanos
+//   short  status (-1 when the request failed)
+//   str    method, route template, path + query
+//   short  header count, then str name / str value pairs
+//   bytes  request body
+//   str    id of the entity the request created ("" unless it answered 201)
+//
+// str is a short length plus UTF-8, bytes an int length plus the bytes.
+// Records are appended when exchanges complete, so they are not in start
+// order; read() sorts them. Response bodies are not kept, only the created
+// id, which is all the replay needs to map ids.
+//
+// Request bodies are read back from the request's BodyPublisher. That works
+// for the in-memory publishers the suite uses (ofString, ofByteArray); bodies
+// that cannot be read synchronously are recorded as empty.
+public final class TrafficCapture implements HttpTransport.Listener, AutoCloseable {
+    public static final String FILE = System.getProperty("capture.file");
+
+    private static final int MAGIC = 0x54434150;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final long originNanos = System.nanoTime();
+    private long records;
+    private boolean closed;
+
+    // one captured exchange; offsetNanos is its start relative to the capture
+    public record Captured(long offsetNanos, long latencyNanos, int status, String method, String route,
+                           String path, Map<String, String> headers, byte[] body, String createdId) {
+    }
+
+    private TrafficCapture(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public static TrafficCapture open(Path file) throws IOException {
+        TrafficCapture capture = new TrafficCapture(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+        capture.buffer.putInt(MAGIC).putInt(VERSION);
+        return capture;
+    }
+
+    // registers a capture to -Dcapture.file with HttpTransport, closed at JVM exit
+    static void installFromProperty() {
+        try {
+            TrafficCapture capture = open(Path.of(FILE));
+            HttpTransport.addListener(capture);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    capture.close();
+                    System.out.printf("Captured %d exchanges to %s%n", capture.records(), FILE);
+                } catch (IOException e) {
+                    System.err.println("Could not finish traffic capture: " + e.getMessage());
+                }
+            }, "traffic-capture"));
+        } catch (IOException e) {
+            System.err.println("Traffic capture disabled, cannot open " + FILE + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void onExchange(Exchange exchange) {
+        // encoded outside the lock; only the copy into the buffer is serialized
+        byte[] record = encode(exchange);
+        try {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (buffer.remaining() < record.length + 4) {
+                    flush();
+                }
+                if (buffer.remaining() < record.length + 4) {
+                    // larger than the whole buffer
+                    channel.write(ByteBuffer.allocate(4).putInt(0, record.length));
+                    channel.write(ByteBuffer.wrap(record));
+                } else {
+                    buffer.putInt(record.length).put(record);
+                }
+                records++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized long records() {
+        return records;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private byte[] encode(Exchange exchange) {
+        HttpRequest request = exchange.request();
+        URI uri = request.uri();
+        String path = uri.getRawPath() + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+        Map<String, List<String>> headers = request.headers().map();
+        byte[] body = body(request);
+
+        Writer out = new Writer(256 + body.length);
+        out.putLong(exchange.startNanos() - originNanos);
+        out.putLong(exchange.latencyNanos());
+        out.putShort(exchange.status());
+        out.putString(request.method());
+        out.putString(exchange.route());
+        out.putString(path);
+        int count = 0;
+        for (List<String> values : headers.values()) {
+            count += values.size();
+        }
+        out.putShort(count);
+        headers.forEach((name, values) -> {
+            for (String value : values) {
+                out.putString(name);
+                out.putString(value);
+            }
+        });
+        out.putBytes(body);
+        out.putString(createdId(exchange.response()));
+        return out.toByteArray();
+    }
+
+    private static String createdId(HttpResponse<?> response) {
+        if (response == null || response.statusCode() != 201) {
+            return "";
+        }
+        Object body = response.body();
+        String text = body instanceof String ? (String) body
+                : body instanceof byte[] ? new String((byte[]) body, StandardCharsets.UTF_8) : null;
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        try {
+            String id = ResponseJson.id(text);
+            return id == null ? "" : id;
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    // Subscribes to the request's publisher again; in-memory publishers hand
+    // over their bytes on the subscribing thread.
+    static byte[] body(HttpRequest request) {
+        HttpRequest.BodyPublisher publisher = request.bodyPublisher().orElse(null);
+        if (publisher == null || publisher.contentLength() == 0) {
+            return new byte[0];
+        }
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            private final List<ByteBuffer> chunks = new ArrayList<>();
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                chunks.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                int size = 0;
+                for (ByteBuffer chunk : chunks) {
+                    size += chunk.remaining();
+                }
+                byte[] bytes = new byte[size];
+                int position = 0;
+                for (ByteBuffer chunk : chunks) {
+                    int length = chunk.remaining();
+                    chunk.get(bytes, position, length);
+                    position += length;
+                }
+                result.complete(bytes);
+            }
+        });
+        return result.isDone() && !result.isCompletedExceptionally() ? result.join() : new byte[0];
+    }
+
+    // every record in the file, in start order
+    public static List<Captured> read(Path file) throws IOException {
+        List<Captured> captured = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            readFully(channel, header);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException(file + " is not a version " + VERSION + " traffic capture");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.flip();
+            while (true) {
+                if (!ensure(channel, buffer, 4)) {
+                    break;
+                }
+                int length = buffer.getInt();
+                if (length > buffer.capacity()) {
+                    ByteBuffer larger = ByteBuffer.allocate(length);
+                    larger.put(buffer);
+                    larger.flip();
+                    buffer = larger;
+                }
+                if (!ensure(channel, buffer, length)) {
+                    throw new EOFException(file + " ends inside a record");
+                }
+                captured.add(decode(buffer));
+            }
+        }
+        captured.sort(Comparator.comparingLong(Captured::offsetNanos));
+        return captured;
+    }
+
+    private static Captured decode(ByteBuffer in) {
+        long offset = in.getLong();
+        long latency = in.getLong();
+        int status = in.getShort();
+        String method = getString(in);
+        String route = getString(in);
+        String path = getString(in);
+        int count = in.getShort() & 0xFFFF;
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            headers.put(getString(in), getString(in));
+        }
+        byte[] body = new byte[in.getInt()];
+        in.get(body);
+        return new Captured(offset, latency, status, method, route, path, headers, body, getString(in));
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // makes sure `needed` bytes are readable, refilling from the channel; false at a clean end of file
+    private static boolean ensure(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() >= needed) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < needed) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                if (buffer.hasRemaining() && needed == 4) {
+                    throw new EOFException("traffic capture ends inside a record");
+                }
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("traffic capture is truncated");
+            }
+        }
+    }
+
+    // growable big-endian record encoder
+    private static final class Writer {
+        private ByteBuffer buffer;
+
+        Writer(int capacity) {
+            buffer = ByteBuffer.allocate(capacity);
+        }
+
+        void putLong(long value) {
+            reserve(8).putLong(value);
+        }
+
+        void putShort(int value) {
+            reserve(2).putShort((short) value);
+        }
+
+        void putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(bytes.length, 0xFFFF);
+            reserve(2 + length).putShort((short) length).put(bytes, 0, length);
+        }
+
+        void putBytes(byte[] bytes) {
+            reserve(4 + bytes.length).putInt(bytes.length).put(bytes);
+        }
+
+        byte[] toByteArray() {
+            byte[] bytes = new byte[buffer.position()];
+            buffer.flip().get(bytes);
+            return bytes;
+        }
+
+        private ByteBuffer reserve(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+            return buffer;
+        }
+    }
+}
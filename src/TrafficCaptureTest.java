@@ -0,0 +1,85 @@
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrafficCaptureTest {
+
+    @Test
+    public void shouldRecordAndReplayWithRemappedIds(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("traffic.bin");
+        TrafficCapture capture = TrafficCapture.open(file);
+        try (StubTraffic recorded = StubTraffic.start("recorded", capture)) {
+            ApiTarget target = recorded.target();
+            String todoId = create(target, "/todos", RequestShapes.TODO);
+            String categoryId = create(target, "/categories", RequestShapes.CATEGORY);
+            assertEquals(201, post(target, "/todos/" + todoId + "/categories", RequestShapes.link(categoryId)).statusCode());
+            assertEquals(200, get(target, "/todos/" + todoId + "/categories").statusCode());
+            assertEquals(404, get(target, "/todos/-1").statusCode());
+        } finally {
+            capture.close();
+        }
+        assertEquals(5, capture.records());
+
+        List<TrafficCapture.Captured> traffic = TrafficCapture.read(file);
+        assertEquals(5, traffic.size());
+        TrafficCapture.Captured first = traffic.get(0);
+        assertEquals("POST /todos", first.route());
+        assertEquals(RequestShapes.TODO, new String(first.body()));
+        assertEquals("application/json", first.headers().get("Content-Type"));
+        assertFalse(first.createdId().isEmpty());
+        assertEquals("POST /todos/{id}/categories", traffic.get(2).route());
+
+        try (TodoManagerStub replayed = TodoManagerStub.start(0)) {
+            ApiTarget target = new ApiTarget("replayed", replayed.baseUri());
+            // shift the id sequences so captured ids would point at the wrong entities
+            List<String> existing = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                existing.add(create(target, "/todos", RequestShapes.TODO));
+                create(target, "/categories", RequestShapes.CATEGORY);
+            }
+            TrafficReplay.Result result = new TrafficReplay(target, 0, 4).run(traffic);
+            assertEquals(5, result.sent());
+            assertEquals(0, result.mismatched(), result.toString());
+            assertEquals(0, result.failed());
+            // the link went to the replayed todo, not to the one holding the captured id
+            for (String todoId : existing) {
+                assertFalse(get(target, "/todos/" + todoId + "/categories").body().contains("\"id\""));
+            }
+        }
+    }
+
+    @Test
+    public void shouldMapRelationshipsOntoCollections() {
+        assertEquals("todos", TrafficReplay.collectionOf("tasks"));
+        assertEquals("projects", TrafficReplay.collectionOf("tasksof"));
+        assertEquals("categories", TrafficReplay.collectionOf("categories"));
+    }
+
+    private static String create(ApiTarget target, String path, String body) throws IOException, InterruptedException {
+        HttpResponse<String> response = post(target, path, body);
+        assertEquals(201, response.statusCode());
+        return ResponseJson.id(response.body());
+    }
+
+    private static HttpResponse<String> post(ApiTarget target, String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(target.uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return HttpTransport.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> get(ApiTarget target, String path) throws IOException, InterruptedException {
+        return HttpTransport.send(HttpRequest.newBuilder().uri(target.uri(path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
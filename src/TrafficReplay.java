@@ -0,0 +1,261 @@
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Re-issues a TrafficCapture log against a target.
+//
+//   java TrafficReplay --file traffic.bin [--speed 1|10|max] [--max-in-flight 64] [--target <name|url>]
+//
+// Requests start at their captured offsets divided by the speed factor (max
+// sends them back to back). Ids are remapped: when a captured request created
+// an entity, later requests that mention its id (in the path, or as the "id"
+// of a link body) wait for the replayed create and use the id it returned
+// instead. Ids the capture never saw created (project 1, -1, ...) are sent as
+// they were. A request whose create failed during the replay is skipped.
+// Requests on the same entity keep their captured order (a GET that finished
+// before the DELETE started is not overtaken by it), while requests that
+// overlapped in the capture may overlap again.
+//
+// Ids are tracked per collection, so todo 3 and category 3 are not confused.
+// Latencies land in LatencyRecorder like any other traffic; the summary counts
+// requests whose status differs from the captured one.
+public final class TrafficReplay {
+    private static final Pattern ID_FIELD = Pattern.compile("(\"id\"\\s*:\\s*\"?)(-?\\d+)", Pattern.CASE_INSENSITIVE);
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final ApiTarget target;
+    private final double speed;
+    private final AsyncPipeline pipeline;
+    private final Map<String, CompletableFuture<String>> ids = new ConcurrentHashMap<>();
+    private final Map<String, Use> uses = new HashMap<>();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong mismatched = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    public record Result(long requests, long sent, long mismatched, long failed, long skipped, double seconds) {
+        @Override
+        public String toString() {
+            return String.format("replayed %d of %d requests in %.2fs (%.1f req/s): %d status mismatches, %d failed, %d skipped",
+                    sent, requests, seconds, sent / seconds, mismatched, failed, skipped);
+        }
+    }
+
+    // speed is a factor on the captured pacing; 0 or less sends as fast as maxInFlight allows
+    public TrafficReplay(ApiTarget target, double speed, int maxInFlight) {
+        this.target = target;
+        this.speed = speed;
+        this.pipeline = new AsyncPipeline(target, maxInFlight);
+    }
+
+    public static void main(String[] args) throws Exception {
+        CliArgs options = CliArgs.parse(args);
+        ApiTarget target = options.has("target") ? ApiTargets.get(options.get("target", "")) : ApiTargets.current();
+        String speed = options.get("speed", "1");
+        Path file = Paths.get(options.get("file", "traffic.bin"));
+        try {
+            List<TrafficCapture.Captured> traffic = TrafficCapture.read(file);
+            System.out.printf("Replaying %d requests from %s against %s at %s speed%n",
+                    traffic.size(), file, target, speed.equals("max") ? "max" : speed + "x");
+            TrafficReplay replay = new TrafficReplay(target, speed.equals("max") ? 0 : Double.parseDouble(speed),
+                    options.getInt("max-in-flight", 64));
+            System.out.println(replay.run(traffic));
+        } finally {
+            TodoManagerStub.stopShared();
+        }
+    }
+
+    public Result run(List<TrafficCapture.Captured> traffic) throws InterruptedException {
+        long start = System.nanoTime();
+        for (TrafficCapture.Captured captured : traffic) {
+            if (speed > 0) {
+                long due = start + (long) (captured.offsetNanos() / speed);
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            }
+            pipeline.submit(() -> replay(captured));
+        }
+        pipeline.awaitIdle(HttpTransport.REQUEST_TIMEOUT.toMillis() * 2, TimeUnit.MILLISECONDS);
+        return new Result(traffic.size(), sent.get(), mismatched.get(), failed.get(), skipped.get(),
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    private CompletableFuture<String> replay(TrafficCapture.Captured captured) {
+        String body = new String(captured.body(), StandardCharsets.UTF_8);
+        // collection/id keys of the entities in the path, e.g. todos/3 and categories/5
+        List<String> entities = new ArrayList<>();
+        String collection = null;
+        for (String segment : captured.path().split("\\?", 2)[0].split("/")) {
+            if (Routes.templatePath("/" + segment).equals("/{id}")) {
+                entities.add(collection + "/" + segment);
+            } else if (!segment.isEmpty()) {
+                collection = collectionOf(segment);
+            }
+        }
+        String linkedCollection = collection;
+        Matcher linked = ID_FIELD.matcher(body);
+        // a linked entity the capture created is ordered like one in the path; shared
+        // pre-existing ones (project 1) are not, or every fixture would queue on them
+        if (linked.find() && ids.containsKey(linkedCollection + "/" + linked.group(2))) {
+            entities.add(linkedCollection + "/" + linked.group(2));
+        }
+
+        CompletableFuture<Void> ready = CompletableFuture.completedFuture(null);
+        for (String key : entities) {
+            CompletableFuture<String> id = ids.get(key);
+            if (id != null) {
+                ready = ready.thenCombine(id, (ignored, value) -> null);
+            }
+        }
+        for (String key : entities) {
+            Use previous = uses.get(key);
+            if (previous != null) {
+                ready = ready.thenCombine(previous.after(captured.offsetNanos()).handle((value, failure) -> null),
+                        (ignored, value) -> null);
+            }
+        }
+
+        // registered before sending, so later requests can wait on it
+        CompletableFuture<String> created = new CompletableFuture<>();
+        if (!captured.createdId().isEmpty()) {
+            ids.put(linkedCollection + "/" + captured.createdId(), created);
+        }
+        CompletableFuture<String> result = ready
+                .thenCompose(ignored -> send(captured, remapPath(captured.path()), remapBody(body, linkedCollection)))
+                .thenApply(response -> {
+                    if (response.statusCode() != captured.status()) {
+                        mismatched.incrementAndGet();
+                    }
+                    return response.statusCode() == 201 ? ResponseJson.idUnchecked(response.body()) : null;
+                })
+                .handle((id, failure) -> {
+                    if (failure == null) {
+                        created.complete(id);
+                        return id;
+                    }
+                    Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+                    if (cause instanceof SkippedException) {
+                        skipped.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                    created.completeExceptionally(new SkippedException());
+                    return null;
+                });
+        Use use = new Use(result, captured.offsetNanos() + captured.latencyNanos(), ready);
+        for (String key : entities) {
+            uses.put(key, use);
+        }
+        return result;
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(TrafficCapture.Captured captured, String path, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(target.uri(path))
+                .method(captured.method(), body.isEmpty()
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        captured.headers().forEach((name, value) -> {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                builder.header(name, value);
+            }
+        });
+        sent.incrementAndGet();
+        return HttpTransport.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String remapPath(String path) {
+        String[] parts = path.split("\\?", 2);
+        StringBuilder remapped = new StringBuilder();
+        String collection = null;
+        for (String segment : parts[0].split("/", -1)) {
+            if (remapped.length() > 0 || !segment.isEmpty()) {
+                remapped.append('/');
+            }
+            if (Routes.templatePath("/" + segment).equals("/{id}")) {
+                remapped.append(replayedId(collection, segment));
+            } else {
+                remapped.append(segment);
+                if (!segment.isEmpty()) {
+                    collection = collectionOf(segment);
+                }
+            }
+        }
+        if (remapped.length() == 0) {
+            remapped.append('/');
+        }
+        return parts.length == 2 ? remapped + "?" + parts[1] : remapped.toString();
+    }
+
+    // the body's "id" refers to the last collection in the path, e.g. the category for /todos/3/categories
+    private String remapBody(String body, String collection) {
+        Matcher linked = ID_FIELD.matcher(body);
+        if (!linked.find()) {
+            return body;
+        }
+        return body.substring(0, linked.start(2)) + replayedId(collection, linked.group(2)) + body.substring(linked.end(2));
+    }
+
+    // only called once the dependency completed, so join() does not block
+    private String replayedId(String collection, String capturedId) {
+        CompletableFuture<String> id = ids.get(collection + "/" + capturedId);
+        if (id == null) {
+            return capturedId;
+        }
+        try {
+            String replayed = id.join();
+            return replayed == null ? capturedId : replayed;
+        } catch (CompletionException e) {
+            throw new SkippedException();
+        }
+    }
+
+    // relationship names mapped onto the collection their ids belong to
+    static String collectionOf(String segment) {
+        switch (segment) {
+            case "tasks":
+                return "todos";
+            case "tasksof":
+                return "projects";
+            default:
+                return segment;
+        }
+    }
+
+    // The last request on an entity. A later request on the same entity waits
+    // for it if the capture saw it finish first; if the two overlapped in the
+    // capture, the later one only waits for what the earlier one waited for.
+    private record Use(CompletableFuture<?> done, long capturedEndNanos, CompletableFuture<?> ready) {
+        CompletableFuture<?> after(long capturedStartNanos) {
+            return capturedEndNanos <= capturedStartNanos ? done : ready;
+        }
+    }
+
+    // a dependency of the request was not recreated, so it was not sent
+    private static final class SkippedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SkippedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Live counters, gauges and histograms of everything sent through
+// HttpTransport, for dashboards during long test and load runs (see
+// MetricsExporter for the endpoint and the snapshot file).
+//
+// Prometheus text format (prometheus()):
+//   harness_requests_total{route,status}          counter; status "failed" without a response
+//   harness_request_duration_seconds{route}        histogram, for rate()/histogram_quantile()
+//   harness_request_latency_seconds{route,quantile} summary since start
+//   harness_requests_in_flight, harness_http_clients, harness_warmup_seconds, harness_warmup_steady
+//
+// JSON snapshots (snapshot()) carry the same counts plus requests/s and
+// latency percentiles over the interval since the previous snapshot.
+public final class TransportMetrics implements HttpTransport.Listener {
+    // upper bounds of the latency histogram buckets, in seconds
+    private static final double[] BUCKETS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final JsonFactory json = new JsonFactory();
+
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private final long startNanos = System.nanoTime();
+    private long lastSnapshotNanos = startNanos;
+
+    @Override
+    public void onExchange(Exchange exchange) {
+        Route route = routes.computeIfAbsent(exchange.route(), r -> new Route());
+        route.statuses.computeIfAbsent(exchange.status(), s -> new LongAdder()).increment();
+        long nanos = exchange.latencyNanos();
+        route.total.recordNanos(nanos);
+        synchronized (route) {
+            route.interval.recordNanos(nanos);
+        }
+        double seconds = nanos / 1e9;
+        int bucket = 0;
+        while (bucket < BUCKETS.length && seconds > BUCKETS[bucket]) {
+            bucket++;
+        }
+        // the last slot counts what is over every bound
+        route.buckets[bucket].increment();
+        route.nanos.add(nanos);
+    }
+
+    public String prometheus() {
+        StringBuilder out = new StringBuilder(4096);
+        Map<String, Route> sorted = new TreeMap<>(routes);
+
+        out.append("# HELP harness_requests_total Requests sent through the harness transport.\n");
+        out.append("# TYPE harness_requests_total counter\n");
+        sorted.forEach((name, route) -> new TreeMap<>(route.statuses).forEach((status, count) ->
+                out.append("harness_requests_total{route=\"").append(escape(name)).append("\",status=\"")
+                        .append(status < 0 ? "failed" : String.valueOf(status)).append("\"} ").append(count.sum()).append('\n')));
+
+        out.append("# HELP harness_request_duration_seconds Request latency.\n");
+        out.append("# TYPE harness_request_duration_seconds histogram\n");
+        sorted.forEach((name, route) -> {
+            String label = "route=\"" + escape(name) + "\"";
+            // +Inf and _count are the bucket sums too, so no bucket is ever above them
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                cumulative += route.buckets[i].sum();
+                out.append("harness_request_duration_seconds_bucket{").append(label).append(",le=\"")
+                        .append(number(BUCKETS[i])).append("\"} ").append(cumulative).append('\n');
+            }
+            long count = cumulative + route.buckets[BUCKETS.length].sum();
+            out.append("harness_request_duration_seconds_bucket{").append(label).append(",le=\"+Inf\"} ").append(count).append('\n');
+            out.append("harness_request_duration_seconds_sum{").append(label).append("} ").append(number(route.nanos.sum() / 1e9)).append('\n');
+            out.append("harness_request_duration_seconds_count{").append(label).append("} ").append(count).append('\n');
+        });
+
+        out.append("# HELP harness_request_latency_seconds Request latency percentiles since start.\n");
+        out.append("# TYPE harness_request_latency_seconds summary\n");
+        sorted.forEach((name, route) -> {
+            String label = "route=\"" + escape(name) + "\"";
+            for (double quantile : QUANTILES) {
+                out.append("harness_request_latency_seconds{").append(label).append(",quantile=\"").append(number(quantile))
+                        .append("\"} ").append(number(route.total.valueAtPercentile(quantile * 100) / 1e6)).append('\n');
+            }
+            out.append("harness_request_latency_seconds_sum{").append(label).append("} ").append(number(route.nanos.sum() / 1e9)).append('\n');
+            out.append("harness_request_latency_seconds_count{").append(label).append("} ").append(route.total.count()).append('\n');
+        });
+
+        gauge(out, "harness_requests_in_flight", "Requests sent and not yet completed.", HttpTransport.inFlight());
+        gauge(out, "harness_http_clients", "HttpClient instances (connection pools) created.", HttpTransport.clientsCreated());
+        WarmUp.Result warmUp = WarmUp.lastResult();
+        if (warmUp != null) {
+            gauge(out, "harness_warmup_seconds", "Duration of the last warm-up.", warmUp.elapsed().toMillis() / 1000.0);
+            gauge(out, "harness_warmup_steady", "1 if the last warm-up reached steady latency.", warmUp.steady() ? 1 : 0);
+        }
+        return out.toString();
+    }
+
+    // one JSON object; the interval figures restart with every call
+    public void snapshot(Writer writer) throws IOException {
+        long now = System.nanoTime();
+        double intervalSeconds;
+        synchronized (this) {
+            intervalSeconds = Math.max(now - lastSnapshotNanos, 1) / 1e9;
+            lastSnapshotNanos = now;
+        }
+        try (JsonGenerator out = json.createGenerator(writer)) {
+            out.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            out.writeStartObject();
+            out.writeStringField("time", Instant.now().toString());
+            out.writeNumberField("uptimeSeconds", round((now - startNanos) / 1e9));
+            out.writeNumberField("intervalSeconds", round(intervalSeconds));
+            out.writeNumberField("inFlight", HttpTransport.inFlight());
+            out.writeNumberField("clients", HttpTransport.clientsCreated());
+            WarmUp.Result warmUp = WarmUp.lastResult();
+            if (warmUp != null) {
+                out.writeObjectFieldStart("warmUp");
+                out.writeBooleanField("steady", warmUp.steady());
+                out.writeNumberField("seconds", warmUp.elapsed().toMillis() / 1000.0);
+                out.writeEndObject();
+            }
+            out.writeArrayFieldStart("routes");
+            for (Map.Entry<String, Route> entry : new TreeMap<>(routes).entrySet()) {
+                Route route = entry.getValue();
+                LatencyHistogram interval = route.takeInterval();
+                out.writeStartObject();
+                out.writeStringField("route", entry.getKey());
+                out.writeNumberField("requests", route.total.count());
+                out.writeNumberField("rps", round(interval.count() / intervalSeconds));
+                out.writeObjectFieldStart("statuses");
+                for (Map.Entry<Integer, LongAdder> status : new TreeMap<>(route.statuses).entrySet()) {
+                    out.writeNumberField(status.getKey() < 0 ? "failed" : String.valueOf(status.getKey()), status.getValue().sum());
+                }
+                out.writeEndObject();
+                out.writeNumberField("p50Ms", interval.valueAtPercentile(50) / 1000.0);
+                out.writeNumberField("p90Ms", interval.valueAtPercentile(90) / 1000.0);
+                out.writeNumberField("p99Ms", interval.valueAtPercentile(99) / 1000.0);
+                out.writeNumberField("maxMs", interval.count() == 0 ? 0 : interval.maxMicros() / 1000.0);
+                out.writeEndObject();
+                route.giveBack(interval);
+            }
+            out.writeEndArray();
+            out.writeEndObject();
+        }
+    }
+
+    public String snapshot() throws IOException {
+        StringWriter writer = new StringWriter();
+        snapshot(writer);
+        return writer.toString();
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, double value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append(name).append(' ').append(number(value)).append('\n');
+    }
+
+    private static String number(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? String.valueOf((long) value)
+                : Double.toString(value);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    // label values escape backslash, quote and newline
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class Route {
+        final LatencyHistogram total = new LatencyHistogram();
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        // one per bound, plus one for latencies over the last
+        final LongAdder[] buckets = new LongAdder[BUCKETS.length + 1];
+        final LongAdder nanos = new LongAdder();
+        // recorded into under the route's lock, swapped out by snapshots
+        LatencyHistogram interval = new LatencyHistogram();
+        LatencyHistogram spare;
+
+        Route() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        // the histogram since the last call, replaced by a reset one
+        synchronized LatencyHistogram takeInterval() {
+            LatencyHistogram taken = interval;
+            LatencyHistogram next = spare == null ? new LatencyHistogram() : spare;
+            next.reset();
+            interval = next;
+            spare = null;
+            return taken;
+        }
+
+        // a taken histogram, once read, becomes the next interval's
+        synchronized void giveBack(LatencyHistogram taken) {
+            spare = taken;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransportMetricsTest {
+
+    @Test
+    public void shouldExposeCountsHistogramsAndSnapshots(@TempDir Path directory) throws Exception {
+        TransportMetrics metrics = new TransportMetrics();
+        try (StubTraffic stub = StubTraffic.start("metrics", metrics)) {
+            ApiTarget target = stub.target();
+            for (int i = 0; i < 3; i++) {
+                assertEquals(200, get(target.uri("/todos")).statusCode());
+            }
+            assertEquals(404, get(target.uri("/todos/-1")).statusCode());
+        }
+
+        String text = metrics.prometheus();
+        assertTrue(text.contains("harness_requests_total{route=\"GET /todos\",status=\"200\"} 3\n"), text);
+        assertTrue(text.contains("harness_requests_total{route=\"GET /todos/{id}\",status=\"404\"} 1\n"), text);
+        assertTrue(text.contains("harness_request_duration_seconds_bucket{route=\"GET /todos\",le=\"+Inf\"} 3\n"), text);
+        assertTrue(text.contains("harness_request_duration_seconds_count{route=\"GET /todos\"} 3\n"), text);
+        assertTrue(text.contains("harness_request_latency_seconds{route=\"GET /todos\",quantile=\"0.99\"} "), text);
+        assertTrue(text.contains("# TYPE harness_requests_in_flight gauge\n"), text);
+
+        JsonNode first = ResponseJson.tree(metrics.snapshot());
+        JsonNode route = first.get("routes").get(0);
+        assertEquals("GET /todos", route.get("route").asText());
+        assertEquals(3, route.get("requests").asLong());
+        assertEquals(3, route.get("statuses").get("200").asLong());
+        assertTrue(route.get("p99Ms").asDouble() > 0);
+        // the next snapshot starts a new interval, the totals keep counting
+        JsonNode second = ResponseJson.tree(metrics.snapshot()).get("routes").get(0);
+        assertEquals(3, second.get("requests").asLong());
+        assertEquals(0, second.get("rps").asDouble());
+
+        Path file = directory.resolve("metrics.jsonl");
+        try (MetricsExporter exporter = new MetricsExporter(metrics)) {
+            exporter.serve(0);
+            exporter.snapshotTo(file, Duration.ofHours(1));
+            HttpResponse<String> scraped = get(URI.create("http://localhost:" + exporter.port() + "/metrics"));
+            assertEquals(200, scraped.statusCode());
+            assertTrue(scraped.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+            assertTrue(scraped.body().contains("harness_requests_total{route=\"GET /todos\",status=\"200\"} 3"));
+        }
+        // closing writes a final snapshot
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(1, lines.size());
+        assertEquals(3, ResponseJson.tree(lines.get(0)).get("routes").get(0).get("requests").asLong());
+    }
+
+    @Test
+    public void shouldCountLatenciesOverTheLastBucketInInfOnly() {
+        TransportMetrics metrics = new TransportMetrics();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:1/todos")).GET().build();
+        metrics.onExchange(new Exchange(request, null, new IOException("timeout"), 0, 11_000_000_000L, null));
+        metrics.onExchange(new Exchange(request, null, new IOException("refused"), 0, 500_000L, null));
+        String text = metrics.prometheus();
+        assertTrue(text.contains("harness_request_duration_seconds_bucket{route=\"GET /todos\",le=\"0.001\"} 1\n"), text);
+        assertTrue(text.contains("harness_request_duration_seconds_bucket{route=\"GET /todos\",le=\"10\"} 1\n"), text);
+        assertTrue(text.contains("harness_request_duration_seconds_bucket{route=\"GET /todos\",le=\"+Inf\"} 2\n"), text);
+        assertTrue(text.contains("harness_request_duration_seconds_count{route=\"GET /todos\"} 2\n"), text);
+    }
+
+    private static HttpResponse<String> get(URI uri) throws Exception {
+        return HttpTransport.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,133 @@
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+// Replays the suite's request mix (LoadMix.DEFAULT) against a target until
+// its latency stops moving, so measurements don't start on cold JIT paths.
+//
+// Latencies are collected in windows of `window` requests; the target is
+// steady once the medians of the last `windows` windows have a coefficient of
+// variation (stddev / mean) of at most `tolerance`. Medians rather than means,
+// so one GC pause doesn't reset the detection. Gives up after maxDuration and
+// reports that it never settled.
+//
+//   java WarmUp [--target <name|url>] [--window 50] [--windows 5] [--tolerance 0.1] [--max 120s]
+//
+// The last result is kept (lastResult()) so the warm-up time can be reported
+// as a metric of the run.
+public final class WarmUp {
+    private static volatile Result last;
+
+    private final ApiTarget target;
+    private int window = 50;
+    private int windows = 5;
+    private double tolerance = 0.10;
+    private Duration maxDuration = Duration.ofMinutes(2);
+
+    public WarmUp(ApiTarget target) {
+        this.target = target;
+    }
+
+    public record Result(boolean steady, Duration elapsed, long requests, double medianMillis, double variation) {
+        @Override
+        public String toString() {
+            return String.format("%s after %.1fs and %d requests (window median %.2f ms, variation %.1f%%)",
+                    steady ? "steady" : "NOT steady", elapsed.toMillis() / 1000.0, requests, medianMillis, variation * 100);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        CliArgs options = CliArgs.parse(args);
+        ApiTarget target = options.has("target") ? ApiTargets.get(options.get("target", "")) : ApiTargets.current();
+        try {
+            Result result = new WarmUp(target).window(options.getInt("window", 50)).windows(options.getInt("windows", 5))
+                    .tolerance(options.getDouble("tolerance", 0.10)).maxDuration(options.getDuration("max", Duration.ofMinutes(2)))
+                    .run();
+            System.out.println("warm-up of " + target + ": " + result);
+        } finally {
+            TodoManagerStub.stopShared();
+        }
+    }
+
+    // the most recent warm-up in this JVM, or null
+    public static Result lastResult() {
+        return last;
+    }
+
+    public WarmUp window(int requests) {
+        this.window = requests;
+        return this;
+    }
+
+    public WarmUp windows(int count) {
+        this.windows = Math.max(2, count);
+        return this;
+    }
+
+    public WarmUp tolerance(double coefficientOfVariation) {
+        this.tolerance = coefficientOfVariation;
+        return this;
+    }
+
+    public WarmUp maxDuration(Duration maxDuration) {
+        this.maxDuration = maxDuration;
+        return this;
+    }
+
+    public Result run() throws IOException, InterruptedException {
+        LoadGenerator generator = new LoadGenerator(target, LoadMix.parse(LoadMix.DEFAULT));
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        generator.prime();
+        Deque<Double> medians = new ArrayDeque<>();
+        double[] latencies = new double[window];
+        long requests = 0;
+        double variation = Double.NaN;
+        boolean steady = false;
+        while (!steady && System.nanoTime() < deadline) {
+            for (int i = 0; i < window; i++) {
+                latencies[i] = generator.sendNext() / 1e6;
+            }
+            requests += window;
+            medians.addLast(median(latencies));
+            if (medians.size() > windows) {
+                medians.removeFirst();
+            }
+            if (medians.size() == windows) {
+                variation = coefficientOfVariation(medians);
+                steady = variation <= tolerance;
+            }
+        }
+        Result result = new Result(steady, Duration.ofNanos(System.nanoTime() - start), requests,
+                medians.isEmpty() ? 0 : medians.getLast(), variation);
+        last = result;
+        return result;
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    static double coefficientOfVariation(Iterable<Double> values) {
+        double sum = 0;
+        int count = 0;
+        for (double value : values) {
+            sum += value;
+            count++;
+        }
+        double mean = sum / count;
+        if (mean == 0) {
+            return 0;
+        }
+        double squares = 0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(squares / (count - 1)) / mean;
+    }
+}
@@ -0,0 +1,28 @@
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+// With -Dwarmup=auto, replays the request mix against the selected target
+// until it is steady (see WarmUp) before the first test class runs, then
+// clears the latency histograms so the suite's own timings start warm.
+// Classes starting concurrently wait for the warm-up to finish.
+public class WarmUpExtension implements BeforeAllCallback {
+    private static final boolean ENABLED = "auto".equalsIgnoreCase(System.getProperty("warmup", "off"));
+    private static boolean done;
+
+    @Override
+    public void beforeAll(ExtensionContext context) throws Exception {
+        if (!ENABLED) {
+            return;
+        }
+        synchronized (WarmUpExtension.class) {
+            if (done) {
+                return;
+            }
+            done = true;
+            ApiTarget target = ApiTargets.current();
+            WarmUp.Result result = new WarmUp(target).run();
+            System.out.println("warm-up of " + target + ": " + result);
+            LatencyRecorder.global().reset();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WarmUpTest {
+
+    @Test
+    public void shouldMeasureVariationOfWindows() {
+        assertEquals(0, WarmUp.coefficientOfVariation(List.of(2.0, 2.0, 2.0)), 1e-9);
+        assertEquals(0.5, WarmUp.coefficientOfVariation(List.of(1.0, 2.0, 3.0)), 1e-9);
+    }
+
+    @Test
+    public void shouldReachSteadyStateAgainstStub() throws IOException, InterruptedException {
+        try (TodoManagerStub stub = TodoManagerStub.start(0)) {
+            WarmUp.Result result = new WarmUp(new ApiTarget("warm-up", stub.baseUri()))
+                    .window(20).windows(3).tolerance(0.5).maxDuration(Duration.ofSeconds(30))
+                    .run();
+            assertTrue(result.steady(), result.toString());
+            assertTrue(result.requests() >= 60);
+            assertSame(result, WarmUp.lastResult());
+        }
+    }
+}